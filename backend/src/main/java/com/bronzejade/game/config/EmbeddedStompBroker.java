@@ -0,0 +1,70 @@
+package com.bronzejade.game.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-process Artemis broker with a STOMP acceptor. Serves as the local stand-in for the
+ * external broker when running in relay mode, so several backend nodes on one machine
+ * (or in tests) can share room topics without extra infrastructure.
+ */
+@Component
+@ConditionalOnProperty(name = "game.broker.embedded.enabled", havingValue = "true")
+@Slf4j
+public class EmbeddedStompBroker implements SmartLifecycle {
+
+    @Value("${game.broker.embedded.host:localhost}")
+    private String host;
+
+    @Value("${game.broker.embedded.port:61613}")
+    private int port;
+
+    private EmbeddedActiveMQ server;
+
+    @Override
+    public synchronized void start() {
+        try {
+            ConfigurationImpl configuration = new ConfigurationImpl();
+            configuration.setPersistenceEnabled(false);
+            configuration.setSecurityEnabled(false);
+            configuration.setJMXManagementEnabled(false);
+            configuration.addAcceptorConfiguration("stomp", "tcp://" + host + ":" + port + "?protocols=STOMP");
+
+            server = new EmbeddedActiveMQ();
+            server.setConfiguration(configuration);
+            server.start();
+            log.info("Embedded STOMP broker listening on {}:{}", host, port);
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not start embedded STOMP broker", e);
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (server == null) {
+            return;
+        }
+        try {
+            server.stop();
+        } catch (Exception e) {
+            log.warn("Failed to stop embedded STOMP broker", e);
+        }
+        server = null;
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return server != null;
+    }
+
+    // Start well before (and stop after) the web server and the STOMP broker relay
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+}
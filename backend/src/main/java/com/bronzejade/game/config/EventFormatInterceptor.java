@@ -0,0 +1,89 @@
+package com.bronzejade.game.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Outbound interceptor that serializes EventPayload frames in the format of the
+ * receiving connection: CBOR for connections that sent "event-format: cbor" on CONNECT,
+ * JSON for every other one. Both come from the application's ObjectMapper settings.
+ * <p>
+ * SockJS only carries text, so CBOR is honoured on the plain WebSocket endpoint only.
+ * CBOR frames go out as application/octet-stream (which makes Spring send a binary
+ * WebSocket frame) with an "event-format: cbor" header. With the broker relay frames
+ * come back from the external broker already serialized, so that mode stays on JSON.
+ */
+@Component
+public class EventFormatInterceptor implements ChannelInterceptor, HandshakeInterceptor {
+
+    public static final String FORMAT_HEADER = "event-format";
+    private static final String BINARY_FRAMES_ATTRIBUTE = "binaryFrames";
+
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper cborMapper;
+    private final boolean relay;
+    private final Set<String> cborSessions = ConcurrentHashMap.newKeySet();
+
+    public EventFormatInterceptor(ObjectMapper objectMapper,
+                                  @Value("${game.broker.mode:simple}") String brokerMode) {
+        this.jsonMapper = objectMapper;
+        this.cborMapper = objectMapper.copyWith(new CBORFactory());
+        this.relay = "relay".equalsIgnoreCase(brokerMode);
+    }
+
+    // Registered on the plain WebSocket endpoint to mark connections that can take binary frames
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        attributes.put(BINARY_FRAMES_ATTRIBUTE, Boolean.TRUE);
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+
+    public void negotiate(String sessionId, Map<String, Object> sessionAttributes, String requestedFormat) {
+        if (!relay && "cbor".equalsIgnoreCase(requestedFormat) && sessionAttributes != null
+                && Boolean.TRUE.equals(sessionAttributes.get(BINARY_FRAMES_ATTRIBUTE))) {
+            cborSessions.add(sessionId);
+        }
+    }
+
+    public void release(String sessionId) {
+        cborSessions.remove(sessionId);
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (!(message.getPayload() instanceof EventPayload payload)) {
+            return message;
+        }
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (sessionId == null || !cborSessions.contains(sessionId)) {
+            return MessageBuilder.createMessage(payload.json(jsonMapper), message.getHeaders());
+        }
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+        accessor.setNativeHeader(FORMAT_HEADER, "cbor");
+        return MessageBuilder.createMessage(payload.cbor(cborMapper), accessor.getMessageHeaders());
+    }
+}
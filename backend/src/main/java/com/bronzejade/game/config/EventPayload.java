@@ -0,0 +1,48 @@
+package com.bronzejade.game.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.messaging.MessagingException;
+
+/**
+ * An outgoing frame body still held as the object it was sent as. The simple broker
+ * hands the same instance to every subscriber of a broadcast, so each wire format is
+ * encoded at most once per broadcast, by whichever subscriber needs it first.
+ */
+final class EventPayload {
+
+    private final Object value;
+    // Two subscribers may race to encode; both get equal bytes and one result is kept
+    private volatile byte[] json;
+    private volatile byte[] cbor;
+
+    EventPayload(Object value) {
+        this.value = value;
+    }
+
+    byte[] json(ObjectMapper jsonMapper) {
+        byte[] encoded = json;
+        if (encoded == null) {
+            encoded = encode(jsonMapper);
+            json = encoded;
+        }
+        return encoded;
+    }
+
+    byte[] cbor(ObjectMapper cborMapper) {
+        byte[] encoded = cbor;
+        if (encoded == null) {
+            encoded = encode(cborMapper);
+            cbor = encoded;
+        }
+        return encoded;
+    }
+
+    private byte[] encode(ObjectMapper mapper) {
+        try {
+            return mapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new MessagingException("Could not encode " + value.getClass().getSimpleName(), e);
+        }
+    }
+}
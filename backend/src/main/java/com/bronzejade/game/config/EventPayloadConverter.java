@@ -0,0 +1,36 @@
+package com.bronzejade.game.config;
+
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.AbstractMessageConverter;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * Outbound-only converter that wraps objects sent to the simple broker in an
+ * EventPayload instead of serializing them, leaving the choice of wire format to
+ * EventFormatInterceptor once the receiving session is known. Strings and byte arrays,
+ * and everything coming in from clients, are left to the other converters.
+ */
+class EventPayloadConverter extends AbstractMessageConverter {
+
+    EventPayloadConverter() {
+        super(MimeTypeUtils.APPLICATION_JSON);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz != String.class && clazz != byte[].class;
+    }
+
+    @Override
+    protected boolean canConvertFrom(Message<?> message, Class<?> targetClass) {
+        return false;
+    }
+
+    @Override
+    @Nullable
+    protected Object convertToInternal(Object payload, @Nullable MessageHeaders headers, @Nullable Object conversionHint) {
+        return new EventPayload(payload);
+    }
+}
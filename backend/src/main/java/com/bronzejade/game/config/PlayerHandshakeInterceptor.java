@@ -1,7 +1,7 @@
 package com.bronzejade.game.config;
 
-import com.bronzejade.game.security.JwtUtil;
-import com.bronzejade.game.service.AuthService;
+import com.bronzejade.game.security.HandshakeAuthenticator;
+import com.bronzejade.game.security.PlayerPrincipal;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.server.ServerHttpRequest;
@@ -9,59 +9,52 @@ import org.springframework.http.server.ServerHttpResponse;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import java.util.Map;
-import java.util.UUID;
+import java.util.Optional;
 
 /**
- * Intercepts the WebSocket handshake to extract the "userId" from the request
- * and store it in WebSocket session attributes for later use (e.g., in HandshakeHandler).
+ * Authenticates the WebSocket handshake from its "token" query parameter, once, and
+ * stores the resulting principal, "userId", "displayName" and the "roomId" header in
+ * the session attributes. PlayerHandshakeHandler then only picks the principal up.
  */
 @Component
 @Slf4j
 public class PlayerHandshakeInterceptor implements HandshakeInterceptor {
-    private final AuthService authService;
-    private final JwtUtil jwtUtil;
 
-    public PlayerHandshakeInterceptor(AuthService authService, JwtUtil jwtUtil) {
-        this.authService = authService;
-        this.jwtUtil = jwtUtil;
+    static final String PRINCIPAL_ATTRIBUTE = "playerPrincipal";
+
+    private final HandshakeAuthenticator authenticator;
+
+    public PlayerHandshakeInterceptor(HandshakeAuthenticator authenticator) {
+        this.authenticator = authenticator;
     }
 
     @Override
     public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
                                    WebSocketHandler wsHandler, Map<String, Object> attributes) {
 
-        String query = request.getURI().getQuery();
-        if (query == null || !query.contains("token=")) {
-            response.setStatusCode(HttpStatus.FORBIDDEN);
-            return false;
-        }
-
-        String token = query.substring(query.indexOf("token=") + 6);
-        if (!authService.validateToken(token)) {
+        String token = UriComponentsBuilder.fromUri(request.getURI()).build().getQueryParams().getFirst("token");
+        Optional<PlayerPrincipal> principal = authenticator.authenticate(token);
+        if (principal.isEmpty()) {
             response.setStatusCode(HttpStatus.FORBIDDEN);
             return false;
         }
 
-        String roomId = request.getHeaders().getFirst("roomId");
-        UUID userId = jwtUtil.validateTokenAndGetUserId(token);
-        String stringUserId = String.valueOf(userId);
+        attributes.put(PRINCIPAL_ATTRIBUTE, principal.get());
+        attributes.put("userId", principal.get().getName());
 
-        if (stringUserId != null && !stringUserId.isBlank()) {
-            attributes.put("userId", stringUserId);
+        String displayName = principal.get().displayName();
+        if (displayName != null && !displayName.isBlank()) {
+            attributes.put("displayName", displayName);
         }
 
+        String roomId = request.getHeaders().getFirst("roomId");
         if (roomId != null && !roomId.isBlank()) {
             attributes.put("roomId", roomId);
         }
 
-        String displayName = authService.getUsername(userId);
-
-        if (displayName != null && !displayName.isBlank()) {
-            attributes.put("displayName", displayName);
-        }
-
         return true;
     }
 
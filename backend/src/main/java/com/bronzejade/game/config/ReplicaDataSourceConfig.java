@@ -0,0 +1,105 @@
+package com.bronzejade.game.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Sends read-only transactions (@Transactional(readOnly = true), read-only
+ * TransactionTemplates) to a replica pool and everything else to the primary, once
+ * game.datasource.replica.url is set. Without it the single auto-configured pool is
+ * used as before.
+ *
+ * The application DataSource is a LazyConnectionDataSourceProxy over a routing
+ * DataSource: the physical connection is only fetched at the first statement, once the
+ * transaction is registered as read-only or not, and taken from the matching pool.
+ * Both pools are Hikari beans, so they get hikaricp.* metrics tagged pool=primary and
+ * pool=replica. Reads that must see the latest writes (game state, room snapshots) use
+ * read-write transactions so they stay on the primary.
+ */
+@Configuration
+@ConditionalOnExpression("!'${game.datasource.replica.url:}'.isEmpty()")
+public class ReplicaDataSourceConfig {
+
+    private static final String PRIMARY = "primary";
+    private static final String REPLICA = "replica";
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName(PRIMARY);
+        return dataSource;
+    }
+
+    // Credentials default to the primary's, the pool size to Hikari's
+    @Bean
+    public HikariDataSource replicaDataSource(DataSourceProperties properties,
+                                              @Value("${game.datasource.replica.url}") String url,
+                                              @Value("${game.datasource.replica.username:}") String username,
+                                              @Value("${game.datasource.replica.password:}") String password,
+                                              @Value("${game.datasource.replica.maximum-pool-size:10}") int maxPoolSize) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(REPLICA);
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username.isEmpty() ? properties.determineUsername() : username);
+        dataSource.setPassword(password.isEmpty() ? properties.determinePassword() : password);
+        dataSource.setMaximumPoolSize(maxPoolSize);
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("replicaDataSource") DataSource replica,
+                                               @Value("${game.datasource.replica.lag-query}") String lagQuery,
+                                               @Value("${game.datasource.replica.max-lag:PT5S}") Duration maxLag,
+                                               MeterRegistry meterRegistry) {
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(replica, lagQuery, maxLag, meterRegistry);
+        monitor.check();
+        return monitor;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica,
+                                 ReplicaLagMonitor lagMonitor) {
+        AbstractRoutingDataSource routing = new AbstractRoutingDataSource() {
+            @Override
+            protected Object determineCurrentLookupKey() {
+                return TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                        && lagMonitor.isReplicaUsable() ? REPLICA : PRIMARY;
+            }
+        };
+        routing.setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    /**
+     * Hibernate would otherwise hold a session's first connection until the session ends,
+     * which with open-in-view is the whole request: a read-only transaction followed by a
+     * write in the same request would write through the replica connection.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer releaseConnectionsAfterTransaction() {
+        return properties -> properties.put("hibernate.connection.handling_mode",
+                "DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION");
+    }
+}
@@ -0,0 +1,65 @@
+package com.bronzejade.game.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Polls the replica for how far it is behind the primary. While the lag is over the
+ * limit, or the replica cannot be asked, read-only work goes to the primary instead.
+ * Exposed as db.replica.lag (seconds) and db.replica.in.use (1 while reads go to it).
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    private final JdbcTemplate replica;
+    private final String lagQuery;
+    private final double maxLagSeconds;
+    private volatile double lagSeconds = Double.NaN;
+    // Unusable until the first check has passed
+    private volatile boolean usable;
+
+    public ReplicaLagMonitor(DataSource replica, String lagQuery, Duration maxLag, MeterRegistry meterRegistry) {
+        this.replica = new JdbcTemplate(replica);
+        this.lagQuery = lagQuery;
+        this.maxLagSeconds = maxLag.toMillis() / 1000.0;
+        Gauge.builder("db.replica.lag", this, monitor -> monitor.lagSeconds)
+                .description("Seconds the read replica is behind the primary, as of the last check")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("db.replica.in.use", this, monitor -> monitor.usable ? 1 : 0)
+                .description("1 while read-only transactions are sent to the replica")
+                .register(meterRegistry);
+    }
+
+    public boolean isReplicaUsable() {
+        return usable;
+    }
+
+    @Scheduled(fixedDelayString = "${game.datasource.replica.lag-check-interval:PT5S}")
+    public void check() {
+        boolean nowUsable;
+        try {
+            Number lag = replica.queryForObject(lagQuery, Number.class);
+            lagSeconds = lag != null ? lag.doubleValue() : 0;
+            nowUsable = lagSeconds <= maxLagSeconds;
+        } catch (DataAccessException e) {
+            lagSeconds = Double.NaN;
+            nowUsable = false;
+            if (usable) {
+                log.warn("Could not check the replica lag", e);
+            }
+        }
+        if (nowUsable != usable) {
+            log.info(nowUsable ? "Read replica in use (lag {}s)" : "Read replica behind by {}s or unavailable, "
+                    + "reading from the primary", lagSeconds);
+        }
+        usable = nowUsable;
+    }
+}
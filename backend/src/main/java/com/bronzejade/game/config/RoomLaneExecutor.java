@@ -0,0 +1,125 @@
+package com.bronzejade.game.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor for the client inbound channel that runs every frame of a room on the same
+ * single-threaded lane, like an actor mailbox. Frames of one room are handled one at a
+ * time and in arrival order, while different rooms spread over all lanes.
+ * <p>
+ * The lane is picked from the roomId stored in the session attributes on CONNECT (or the
+ * roomId header of the CONNECT frame itself); frames without a room stick to their session.
+ * <p>
+ * With virtual threads enabled every lane runs on a virtual thread: a lane blocked on JDBC
+ * no longer holds a carrier, so there are many more lanes and the Hikari pool is what
+ * bounds how many frames touch the database at once.
+ */
+@Component
+public class RoomLaneExecutor implements TaskExecutor, DisposableBean {
+
+    private final ThreadPoolExecutor[] lanes;
+    private final AtomicInteger roundRobin = new AtomicInteger();
+
+    @Autowired
+    public RoomLaneExecutor(@Value("${game.ws.inbound-lanes:0}") int laneCount, MeterRegistry meterRegistry,
+                            Environment environment) {
+        this(laneCount, meterRegistry, Threading.VIRTUAL.isActive(environment));
+    }
+
+    public RoomLaneExecutor(int laneCount, MeterRegistry meterRegistry, boolean virtualThreads) {
+        int count = laneCount > 0 ? laneCount : defaultLaneCount(virtualThreads);
+        this.lanes = new ThreadPoolExecutor[count];
+        for (int i = 0; i < count; i++) {
+            String prefix = "ws-inbound-lane-" + i + "-";
+            ThreadFactory threadFactory = virtualThreads
+                    ? new VirtualThreadTaskExecutor(prefix).getVirtualThreadFactory()
+                    : new CustomizableThreadFactory(prefix);
+            ThreadPoolExecutor lane = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(), threadFactory);
+            lanes[i] = lane;
+        }
+        // Two series whatever the lane count, rather than one per lane
+        Gauge.builder("ws.inbound.lane.queue.depth", this, RoomLaneExecutor::queuedFrames)
+                .description("Inbound STOMP frames waiting on all room lanes")
+                .register(meterRegistry);
+        Gauge.builder("ws.inbound.lane.queue.depth.max", this, RoomLaneExecutor::deepestQueue)
+                .description("Inbound STOMP frames waiting on the busiest room lane")
+                .register(meterRegistry);
+    }
+
+    private static int defaultLaneCount(boolean virtualThreads) {
+        // Virtual lanes are nearly free, so use enough of them that busy rooms rarely share one
+        return virtualThreads ? 1024 : Runtime.getRuntime().availableProcessors() * 2;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        lanes[laneFor(task)].execute(task);
+    }
+
+    public int laneCount() {
+        return lanes.length;
+    }
+
+    int queuedFrames() {
+        int queued = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            queued += lane.getQueue().size();
+        }
+        return queued;
+    }
+
+    int deepestQueue() {
+        int deepest = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            deepest = Math.max(deepest, lane.getQueue().size());
+        }
+        return deepest;
+    }
+
+    int laneFor(Runnable task) {
+        Object key = task instanceof MessageHandlingRunnable runnable ? affinityKey(runnable.getMessage()) : null;
+        if (key == null) {
+            // Not tied to a room or session, so any lane will do
+            return Math.floorMod(roundRobin.getAndIncrement(), lanes.length);
+        }
+        int hash = key.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), lanes.length);
+    }
+
+    private static Object affinityKey(Message<?> message) {
+        Map<String, Object> attributes = SimpMessageHeaderAccessor.getSessionAttributes(message.getHeaders());
+        Object roomId = attributes != null ? attributes.get("roomId") : null;
+        if (roomId == null) {
+            roomId = SimpMessageHeaderAccessor.getFirstNativeHeader("roomId", message.getHeaders());
+        }
+        return roomId != null ? roomId : SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+    }
+
+    @Override
+    public void destroy() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.bronzejade.game.config;
+
+import com.bronzejade.game.service.RoomStateService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Lets a reconnecting client resume its room streams. The client sends the last
+ * sequence number it saw in the "last-seq" CONNECT header; once the broker has
+ * registered each of its room subscriptions, RoomStateService replays what was missed
+ * (or sends a snapshot). Doing it after registration means no broadcast can fall
+ * between the replay and the live stream.
+ *
+ * That relies on the broker registering the subscription synchronously, before
+ * afterMessageHandled runs, which holds for the simple broker only. The
+ * StompBrokerRelay just forwards the SUBSCRIBE to the external broker, so a broadcast
+ * published before the broker has processed it can be missed. Relay mode also sends
+ * frames unsequenced (see RoomEventLog), so the client cannot notice such a gap;
+ * there the snapshot is best effort, and the next delta or /app/state catches up.
+ */
+@Component
+@Slf4j
+public class RoomResumeInterceptor implements ExecutorChannelInterceptor {
+
+    public static final String LAST_SEQ_HEADER = "last-seq";
+    static final String LAST_SEQ_ATTRIBUTE = "lastSeq";
+
+    private final RoomStateService roomStateService;
+
+    // Lazy: the service needs the messaging template, which needs this configured channel first
+    public RoomResumeInterceptor(@Lazy RoomStateService roomStateService) {
+        this.roomStateService = roomStateService;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.CONNECT) {
+            return message;
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        String lastSeq = accessor.getFirstNativeHeader(LAST_SEQ_HEADER);
+        if (attributes != null && lastSeq != null) {
+            try {
+                attributes.put(LAST_SEQ_ATTRIBUTE, Long.parseLong(lastSeq));
+            } catch (NumberFormatException e) {
+                log.debug("Ignoring malformed {} header: {}", LAST_SEQ_HEADER, lastSeq);
+            }
+        }
+        return message;
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        if (ex != null || !(handler instanceof AbstractBrokerMessageHandler)
+                || SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.SUBSCRIBE) {
+            return;
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        if (attributes == null
+                || attributes.get("roomId") == null || accessor.getDestination() == null) {
+            return;
+        }
+        String roomId = (String) attributes.get("roomId");
+        try {
+            roomStateService.subscribed(UUID.fromString(roomId), accessor.getDestination(),
+                    (Long) attributes.get(LAST_SEQ_ATTRIBUTE), accessor.getSessionId(), accessor.getSubscriptionId());
+        } catch (RuntimeException e) {
+            log.warn("Could not resume room {} for subscription to {}", roomId, accessor.getDestination(), e);
+        }
+    }
+}
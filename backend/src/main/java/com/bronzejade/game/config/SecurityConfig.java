@@ -1,7 +1,9 @@
 package com.bronzejade.game.config;
 
+import com.bronzejade.game.service.AuthService;
 import com.bronzejade.game.security.JwtAuthFilter;
 import com.bronzejade.game.security.JwtUtil;
+import com.bronzejade.game.security.TokenDenyList;
 import com.bronzejade.game.repositories.UserRepository;
 import com.bronzejade.game.service.CustomUserDetailsService;
 import lombok.RequiredArgsConstructor;
@@ -39,8 +41,9 @@ import java.util.List;
 public class SecurityConfig {
 
     @Bean
-    public JwtAuthFilter jwtAuthFilter(JwtUtil jwtUtil, CustomUserDetailsService userDetailsService) {
-        return new JwtAuthFilter(jwtUtil, userDetailsService);
+    public JwtAuthFilter jwtAuthFilter(JwtUtil jwtUtil, CustomUserDetailsService userDetailsService,
+                                       TokenDenyList denyList) {
+        return new JwtAuthFilter(jwtUtil, userDetailsService, denyList);
     }
 
     @Bean
@@ -98,6 +101,8 @@ public class SecurityConfig {
                 "https://guesswho.190304.xyz", "https://guess-who-web-nine.vercel.app"));
         config.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH"));
         config.setAllowedHeaders(List.of("Authorization", "Content-Type"));
+        // Lets browser clients read the guest token re-issued by room create/join
+        config.setExposedHeaders(List.of(AuthService.REFRESHED_TOKEN_HEADER));
         config.setAllowCredentials(true);
 
         // Apply config to all paths
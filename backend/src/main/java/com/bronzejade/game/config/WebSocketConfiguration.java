@@ -1,13 +1,16 @@
 package com.bronzejade.game.config;
 
-import com.bronzejade.game.security.JwtUtil;
-import com.bronzejade.game.service.AuthService;
-import com.bronzejade.game.service.RoomPlayerService;
+import com.bronzejade.game.service.ConnectionIdentityService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.converter.MessageConverter;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.messaging.simp.stomp.StompCommand;
@@ -18,7 +21,7 @@ import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBr
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 
-import java.util.UUID;
+import java.util.List;
 
 /**
  * Configures STOMP WebSocket messaging, endpoint registration, message broker setup,
@@ -29,26 +32,75 @@ import java.util.UUID;
 @Slf4j
 public class WebSocketConfiguration implements WebSocketMessageBrokerConfigurer {
 
-    private final RoomPlayerService roomPlayerService;
+    private final ConnectionIdentityService connectionIdentityService;
     private final PlayerHandshakeInterceptor playerHandshakeInterceptor;
-    private final JwtUtil jwtUtil;
-    private final AuthService authService;
+    private final RoomLaneExecutor roomLaneExecutor;
+    private final EventFormatInterceptor eventFormatInterceptor;
+    private final RoomResumeInterceptor roomResumeInterceptor;
+    private final boolean virtualThreads;
 
-    public WebSocketConfiguration(RoomPlayerService roomPlayerService, PlayerHandshakeInterceptor playerHandshakeInterceptor, AuthService authService, JwtUtil jwtUtil) {
-        this.roomPlayerService = roomPlayerService;
+    // "simple" keeps subscriptions in this JVM; "relay" forwards them to an external STOMP broker
+    @Value("${game.broker.mode:simple}")
+    private String brokerMode;
+
+    @Value("${game.broker.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${game.broker.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${game.broker.relay.login:guest}")
+    private String relayLogin;
+
+    @Value("${game.broker.relay.passcode:guest}")
+    private String relayPasscode;
+
+    public WebSocketConfiguration(ConnectionIdentityService connectionIdentityService, PlayerHandshakeInterceptor playerHandshakeInterceptor, RoomLaneExecutor roomLaneExecutor, EventFormatInterceptor eventFormatInterceptor, RoomResumeInterceptor roomResumeInterceptor, Environment environment) {
+        this.connectionIdentityService = connectionIdentityService;
         this.playerHandshakeInterceptor = playerHandshakeInterceptor;
-        this.jwtUtil = jwtUtil;
-        this.authService = authService;
+        this.roomLaneExecutor = roomLaneExecutor;
+        this.eventFormatInterceptor = eventFormatInterceptor;
+        this.roomResumeInterceptor = roomResumeInterceptor;
+        // spring.threads.virtual.enabled=true on Java 21+
+        this.virtualThreads = Threading.VIRTUAL.isActive(environment);
     }
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         // Prefix for application-level message mappings (@MessageMapping)
         config.setApplicationDestinationPrefixes("/app");
-        // Enable simple in-memory message broker for subscribing to destinations
-        config.enableSimpleBroker("/topic", "/queue");
+        if ("relay".equalsIgnoreCase(brokerMode)) {
+            // Relay room topics and user queues through a shared broker so the players
+            // of one room may be connected to different backend nodes
+            config.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode)
+                    // Let /user destinations resolve for sessions held by other nodes
+                    .setUserDestinationBroadcast("/topic/unresolved-user-destination")
+                    .setUserRegistryBroadcast("/topic/simp-user-registry");
+        } else {
+            // Enable simple in-memory message broker for subscribing to destinations
+            config.enableSimpleBroker("/topic", "/queue");
+        }
         // Prefix for user-specific destinations (/user/...)
         config.setUserDestinationPrefix("/user");
+        if (virtualThreads) {
+            // Every outbound frame gets its own virtual thread, so keep per-session order explicitly
+            config.setPreservePublishOrder(true);
+        }
+    }
+
+    @Override
+    public boolean configureMessageConverters(List<MessageConverter> messageConverters) {
+        if (!"relay".equalsIgnoreCase(brokerMode)) {
+            // Ahead of the JSON converter: EventFormatInterceptor serializes per receiving session
+            messageConverters.add(0, new EventPayloadConverter());
+        }
+        return true;
     }
 
     @Override
@@ -56,13 +108,20 @@ public class WebSocketConfiguration implements WebSocketMessageBrokerConfigurer
         // Register WebSocket endpoint that clients will use to connect
         registry.addEndpoint("/ws")
                 .addInterceptors(playerHandshakeInterceptor) // Extracts playerId before handshake
-                .setHandshakeHandler(new PlayerHandshakeHandler(authService, jwtUtil)) // Assigns Principal per connection
+                .setHandshakeHandler(new PlayerHandshakeHandler()) // Assigns Principal per connection
                 .setAllowedOriginPatterns("http://localhost:8080", "http://localhost:63342","http://127.0.0.1:5500", "https://guesswho.190304.xyz", "https://guess-who-web-nine.vercel.app")  // Configure CORS as needed
                 .withSockJS();  // Enable SockJS fallback options
+        // Plain WebSocket endpoint for clients that want binary (CBOR) room events
+        registry.addEndpoint("/ws-native")
+                .addInterceptors(playerHandshakeInterceptor, eventFormatInterceptor)
+                .setHandshakeHandler(new PlayerHandshakeHandler())
+                .setAllowedOriginPatterns("http://localhost:8080", "http://localhost:63342","http://127.0.0.1:5500", "https://guesswho.190304.xyz", "https://guess-who-web-nine.vercel.app");
     }
 
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
+        // Frames of one room run serially on one lane, so game handlers never race each other
+        registration.executor(roomLaneExecutor);
         // Intercepts incoming STOMP frames to validate room membership
         registration.interceptors(new ChannelInterceptor() {
             @Override
@@ -79,23 +138,37 @@ public class WebSocketConfiguration implements WebSocketMessageBrokerConfigurer
                         throw new MessagingException("Missing userId or roomId in WebSocket session attributes.");
                     }
                     accessor.getSessionAttributes().put("roomId", roomId);
+                    // Resolve the player identity once; message handlers read it from the session
+                    connectionIdentityService.resolve(accessor.getSessionId(), accessor.getSessionAttributes());
+                    // Room events are JSON unless the client asks for CBOR
+                    eventFormatInterceptor.negotiate(accessor.getSessionId(), accessor.getSessionAttributes(),
+                            accessor.getFirstNativeHeader(EventFormatInterceptor.FORMAT_HEADER));
                 }
 
                 if (StompCommand.SUBSCRIBE.equals(accessor.getCommand())) {
                     String destination = accessor.getDestination();
                     // Validate that the subscribing player is actually in the room
-                    if (destination.contains("room")) {
-                        UUID userId = UUID.fromString((String) accessor.getSessionAttributes().get("userId"));
-                        UUID roomId = UUID.fromString((String) accessor.getSessionAttributes().get("roomId"));
-
-                        if (!roomPlayerService.isInRoom(roomId, userId)) {
-                            throw new MessagingException("Access to this room is forbidden.");
-                        }
+                    if (destination.contains("room")
+                            && connectionIdentityService.resolve(accessor.getSessionId(), accessor.getSessionAttributes()) == null) {
+                        throw new MessagingException("Access to this room is forbidden.");
                     }
                 }
 
+                if (StompCommand.DISCONNECT.equals(accessor.getCommand())) {
+                    connectionIdentityService.unregister(accessor.getSessionId());
+                    eventFormatInterceptor.release(accessor.getSessionId());
+                }
+
                 return message;
             }
-        });
+        }, roomResumeInterceptor); // Replays missed room broadcasts once a subscription is registered
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.interceptors(eventFormatInterceptor);
+        if (virtualThreads) {
+            registration.executor(new VirtualThreadTaskExecutor("ws-outbound-"));
+        }
     }
 }
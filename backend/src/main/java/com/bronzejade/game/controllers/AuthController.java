@@ -35,6 +35,14 @@ public class AuthController {
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestHeader(value = "Authorization", required = false) String authHeader) {
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            authService.logout(authHeader.substring(7));
+        }
+        return ResponseEntity.noContent().build();
+    }
+
 //    @PostMapping("/validate")
 //    public ResponseEntity<Boolean> validateToken(@RequestHeader("Authorization") String authHeader) {
 //        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
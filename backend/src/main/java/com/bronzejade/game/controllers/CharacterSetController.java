@@ -2,20 +2,22 @@ package com.bronzejade.game.controllers;
 
 import com.bronzejade.game.security.ApiUserDetails;
 import com.bronzejade.game.domain.dtos.Character.CharacterSetDto;
+import com.bronzejade.game.domain.dtos.Character.CharacterSetPageDto;
 import com.bronzejade.game.domain.dtos.Character.CreateCharacterSetRequest;
 import com.bronzejade.game.domain.dtos.User.UserDto;
 import com.bronzejade.game.domain.entities.CharacterSet;
 import com.bronzejade.game.mapper.CharacterSetMapper;
 import com.bronzejade.game.service.AuthService;
+import com.bronzejade.game.service.CharacterSetCatalog;
 import com.bronzejade.game.service.CharacterSetService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/character-sets")
@@ -26,11 +28,24 @@ public class CharacterSetController {
     private final CharacterSetMapper characterSetMapper;
     private final AuthService userService;
 
+    // Pre-serialized catalog; clients revalidate with If-None-Match and get a 304 while it is unchanged
     @GetMapping()
-    public ResponseEntity<Set<CharacterSetDto>> getAllCharacterSets() {
-        Set<CharacterSet> characterSets = characterSetService.getCharacterSets();
-        Set<CharacterSetDto> characterSetDtos = characterSets.stream().map(characterSetMapper::toDto).collect(Collectors.toSet());
-        return ResponseEntity.ok(characterSetDtos);
+    public ResponseEntity<byte[]> getAllCharacterSets() {
+        CharacterSetCatalog.Snapshot catalog = characterSetService.getCatalog();
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(catalog.etag())
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(catalog.json());
+    }
+
+    // Summaries only, keyset-paginated; the characters of a set come from /{id}
+    @GetMapping(path="/summaries")
+    public ResponseEntity<CharacterSetPageDto> getCharacterSetSummaries(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        return ResponseEntity.ok(characterSetService.getPublicSummaries(cursor, size));
     }
 
     @GetMapping(path="/{id}")
@@ -11,6 +11,7 @@ import com.bronzejade.game.mapper.RoomMapper;
 import com.bronzejade.game.mapper.RoomPlayerMapper;
 import com.bronzejade.game.service.AuthService;
 import com.bronzejade.game.service.RoomService;
+import com.bronzejade.game.service.RoomStateService;
 import com.bronzejade.game.domain.entities.Room;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -24,6 +25,7 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class RoomController {
     private final RoomService roomService;
+    private final RoomStateService roomStateService;
     private final RoomMapper roomMapper;
     private final RoomPlayerMapper roomPlayerMapper;
     private final AuthService userService;
@@ -32,10 +34,11 @@ public class RoomController {
     public ResponseEntity<RoomDto> createRoom(
             @Valid @RequestBody CreateRoomRequest createRoomRequest,
             Authentication authentication) {
+        String refreshedToken = userService.ensurePersisted((ApiUserDetails) authentication.getPrincipal());
         UserDto userDto = userService.getUserFromPrincipal((ApiUserDetails) authentication.getPrincipal());
         Room room = roomService.createRoom(createRoomRequest, userDto.getId());
         RoomDto roomDto = roomMapper.toDto(room);
-        return ResponseEntity.ok(roomDto);
+        return ok(refreshedToken).body(roomDto);
     }
 
     @PostMapping("/join/{roomCode}")
@@ -43,13 +46,15 @@ public class RoomController {
             @PathVariable String roomCode,
             Authentication authentication
     ) {
+        String refreshedToken = userService.ensurePersisted((ApiUserDetails) authentication.getPrincipal());
         UserDto userDto = userService.getUserFromPrincipal((ApiUserDetails) authentication.getPrincipal());
         Room room = roomService.joinRoom(
                 roomCode,
                 userDto.getId()
         );
+        roomStateService.membershipChanged(room.getId());
         RoomDto roomDto = roomMapper.toDto(room);
-        return ResponseEntity.ok(roomDto);
+        return ok(refreshedToken).body(roomDto);
     }
 
     @PostMapping("/{id}/select-character")
@@ -64,6 +69,7 @@ public class RoomController {
                 userDto.getId(),
                 characterRequest.getCharacterId()
         );
+        roomStateService.characterSelected(id, userDto.getId());
         RoomPlayerDto roomPlayerDto = roomPlayerMapper.toDto(player);
         return ResponseEntity.ok(roomPlayerDto);
     }
@@ -80,8 +86,10 @@ public class RoomController {
         );
         if (room == null) {
             // Room was deleted
+            roomStateService.roomClosed(id);
             return ResponseEntity.ok().body(null);
         }
+        roomStateService.membershipChanged(id);
         RoomDto roomDto = roomMapper.toDto(room);
         return ResponseEntity.ok(roomDto);
     }
@@ -92,4 +100,10 @@ public class RoomController {
         RoomDto roomDto = roomMapper.toDto(room);
         return ResponseEntity.ok(roomDto);
     }
+
+    // A guest whose token name could not be kept gets a token with its persisted name
+    private static ResponseEntity.BodyBuilder ok(String refreshedToken) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        return refreshedToken != null ? response.header(AuthService.REFRESHED_TOKEN_HEADER, refreshedToken) : response;
+    }
 }
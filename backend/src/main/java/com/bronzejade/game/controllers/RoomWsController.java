@@ -1,25 +1,23 @@
 package com.bronzejade.game.controllers;
 
 import com.bronzejade.game.domain.dtos.Character.GuessCharacterResponse;
-import com.bronzejade.game.domain.dtos.Room.MessageDto;
-import com.bronzejade.game.domain.dtos.Room.StartGameResponse;
+import com.bronzejade.game.domain.dtos.Event.GameEvent;
+import com.bronzejade.game.domain.dtos.Event.RoomStateUpdate;
 import com.bronzejade.game.domain.dtos.User.ConnectionInfoDto;
 import com.bronzejade.game.domain.dtos.User.RoomPlayerDto;
 import com.bronzejade.game.domain.entities.RoomPlayer;
-import com.bronzejade.game.domain.entities.User;
-import com.bronzejade.game.repositories.UserRepository;
+import com.bronzejade.game.service.ConnectionIdentityService;
 import com.bronzejade.game.service.GameStateService;
-import com.bronzejade.game.service.RoomPlayerService;
+import com.bronzejade.game.service.RoomEventPublisher;
 import com.bronzejade.game.service.RoomService;
+import com.bronzejade.game.service.RoomStateService;
 import com.bronzejade.game.service.GuessCharacterService;
-import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.MessagingException;
 import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.messaging.simp.annotation.SendToUser;
 import org.springframework.stereotype.Controller;
 
@@ -30,49 +28,48 @@ import java.util.UUID;
 @Slf4j
 public class RoomWsController {
 
-    private final SimpMessagingTemplate messagingTemplate;
-    private final UserRepository userRepo;
-    private final RoomPlayerService roomPlayerService;
+    private final RoomEventPublisher eventPublisher;
+    private final ConnectionIdentityService connectionIdentityService;
     private final RoomService roomService;
+    private final RoomStateService roomStateService;
     private final GameStateService gameStateService;
     private final GuessCharacterService guessCharacterService;
 
     @MessageMapping("/join")
     public void handleJoin(SimpMessageHeaderAccessor accessor) {
         ConnectionInfoDto connectionInfoDto = retrieveConnectionInfo(accessor);
-        MessageDto message = messageCrafter(
-                " has joined room",
+        eventPublisher.publish(roomId(connectionInfoDto), new GameEvent.PlayerJoined(
+                connectionInfoDto.getUserId(),
                 connectionInfoDto.getDisplayName()
-        );
-        messagingTemplate.convertAndSend("/topic/room." + connectionInfoDto.getRoomId(), message);
+        ));
     }
 
     @MessageMapping("/ready")
     public void toggleReady(SimpMessageHeaderAccessor accessor) {
         ConnectionInfoDto connectionInfoDto = retrieveConnectionInfo(accessor);
         RoomPlayer roomPlayer = roomService.togglePlayerReady(
-                UUID.fromString(connectionInfoDto.getRoomId()),
+                roomId(connectionInfoDto),
                 connectionInfoDto.getUserId()
         );
-        MessageDto message = messageCrafter(
-                " is " + (!roomPlayer.isReady() ? "not " : "") + "ready",
-                connectionInfoDto.getDisplayName()
-        );
-        messagingTemplate.convertAndSend("/topic/room." + connectionInfoDto.getRoomId(), message);
+        eventPublisher.publish(roomId(connectionInfoDto), new GameEvent.ReadyToggled(
+                connectionInfoDto.getUserId(),
+                connectionInfoDto.getDisplayName(),
+                roomPlayer.isReady()
+        ));
+        roomStateService.playerReady(roomId(connectionInfoDto), connectionInfoDto.getUserId(), roomPlayer.isReady());
     }
 
     @MessageMapping("/start")
     public void start(SimpMessageHeaderAccessor accessor) {
         ConnectionInfoDto connectionInfoDto = retrieveConnectionInfo(accessor);
-        RoomPlayerDto roomPlayerDto = roomService.startGame(
-                UUID.fromString(connectionInfoDto.getRoomId()),
+        RoomPlayerDto turnPlayer = roomService.startGame(
+                roomId(connectionInfoDto),
                 connectionInfoDto.getUserId()
         );
-        String message = "The game has been started";
-        StartGameResponse startGameResponse = new StartGameResponse();
-        startGameResponse.setMessage(message);
-        startGameResponse.setTurnPlayer(roomPlayerDto);
-        messagingTemplate.convertAndSend("/topic/room." + connectionInfoDto.getRoomId(), startGameResponse);
+        eventPublisher.publish(roomId(connectionInfoDto),
+                new GameEvent.GameStarted(turnPlayer.getId(), turnPlayer.getUserId()));
+        roomStateService.statusChanged(roomId(connectionInfoDto));
+        roomStateService.turnChanged(roomId(connectionInfoDto));
     }
 
     @MessageMapping("/question")
@@ -80,14 +77,15 @@ public class RoomWsController {
         ConnectionInfoDto connectionInfoDto = retrieveConnectionInfo(accessor);
         gameStateService.submitQuestion(
                 payload,
-                UUID.fromString(connectionInfoDto.getRoomId()),
+                roomId(connectionInfoDto),
                 connectionInfoDto.getUserId()
         );
-        MessageDto msg = messageCrafter(
-                ": " + payload,
-                connectionInfoDto.getDisplayName()
-        );
-        messagingTemplate.convertAndSend("/topic/room." + connectionInfoDto.getRoomId(), msg);
+        eventPublisher.publish(roomId(connectionInfoDto), new GameEvent.QuestionAsked(
+                connectionInfoDto.getUserId(),
+                connectionInfoDto.getDisplayName(),
+                payload
+        ));
+        roomStateService.turnChanged(roomId(connectionInfoDto));
     }
 
     @MessageMapping("/answer")
@@ -95,25 +93,40 @@ public class RoomWsController {
         ConnectionInfoDto connectionInfoDto = retrieveConnectionInfo(accessor);
         gameStateService.submitAnswer(
                 payload,
-                UUID.fromString(connectionInfoDto.getRoomId()),
+                roomId(connectionInfoDto),
                 connectionInfoDto.getUserId()
         );
-        MessageDto msg = messageCrafter(
-                ": " + payload,
-                connectionInfoDto.getDisplayName()
-        );
-        messagingTemplate.convertAndSend("/topic/room." + connectionInfoDto.getRoomId(), msg);
+        eventPublisher.publish(roomId(connectionInfoDto), new GameEvent.AnswerGiven(
+                connectionInfoDto.getUserId(),
+                connectionInfoDto.getDisplayName(),
+                payload
+        ));
+        roomStateService.turnChanged(roomId(connectionInfoDto));
     }
 
     @MessageMapping("/guess")
     public void guessCharacter(String characterId, SimpMessageHeaderAccessor accessor) {
         ConnectionInfoDto connectionInfoDto = retrieveConnectionInfo(accessor);
         GuessCharacterResponse response = guessCharacterService.guessCharacter(
-                UUID.fromString(connectionInfoDto.getRoomId()),
+                roomId(connectionInfoDto),
                 connectionInfoDto.getUserId(),
                 UUID.fromString(characterId)
         );
-        messagingTemplate.convertAndSend("/topic/room." + connectionInfoDto.getRoomId(), response);
+        eventPublisher.publish(roomId(connectionInfoDto),
+                GameEvent.GuessResult.of(connectionInfoDto.getUserId(), response));
+        if (response.isGameEnded()) {
+            roomStateService.statusChanged(roomId(connectionInfoDto));
+        } else {
+            roomStateService.turnChanged(roomId(connectionInfoDto));
+        }
+    }
+
+    // Full room state on demand, e.g. after the client noticed a gap in the state stream
+    @MessageMapping("/state")
+    @SendToUser(destinations = "/queue/state", broadcast = false)
+    public RoomStateUpdate.Snapshot state(SimpMessageHeaderAccessor accessor) {
+        ConnectionInfoDto connectionInfoDto = retrieveConnectionInfo(accessor);
+        return roomStateService.snapshot(roomId(connectionInfoDto));
     }
 
     @MessageExceptionHandler
@@ -122,45 +135,30 @@ public class RoomWsController {
         return ex.getMessage();
     }
 
-    // Checks if the player is in the room
+    /**
+     * Reads the identity resolved at CONNECT/SUBSCRIBE. A membership change drops it, so a
+     * miss is resolved again before the frame is refused as coming from outside the room.
+     */
     private ConnectionInfoDto retrieveConnectionInfo(SimpMessageHeaderAccessor accessor) {
         if (accessor.getSessionAttributes() == null) {
             throw new IllegalArgumentException("Session attributes cannot be null");
         }
 
-        String roomId = (String) accessor.getSessionAttributes().get("roomId");
-        String userIdStr = (String) accessor.getSessionAttributes().get("userId");
-
-        if (roomId == null) {
+        if (accessor.getSessionAttributes().get("roomId") == null) {
             throw new MessagingException("Room ID is null");
         }
 
-        UUID roomUuid = UUID.fromString(roomId);
-        UUID userId = userIdStr != null ? UUID.fromString(userIdStr) : null;
-
-        if (userId == null) {
-            throw new MessagingException("Both User ID and Guest Session ID are null");
+        ConnectionInfoDto connectionInfoDto = connectionIdentityService.get(accessor.getSessionAttributes());
+        if (connectionInfoDto == null) {
+            connectionInfoDto = connectionIdentityService.resolve(accessor.getSessionId(), accessor.getSessionAttributes());
         }
-
-        User user = userRepo.findById(userId)
-                .orElseThrow(() -> new EntityNotFoundException("User not found"));
-
-        // Check if player is in room
-        if (!roomPlayerService.isInRoom(roomUuid, userId)) {
+        if (connectionInfoDto == null) {
             throw new MessagingException("Player is not in the room");
         }
-
-        ConnectionInfoDto connectionInfoDto = new ConnectionInfoDto();
-        connectionInfoDto.setRoomId(roomId);
-        connectionInfoDto.setUserId(userId);
-        connectionInfoDto.setDisplayName(user.getUsername());
         return connectionInfoDto;
     }
 
-    private MessageDto messageCrafter(String text, String username) {
-        String message = username + text;
-        return MessageDto.builder()
-                .message(message)
-                .build();
+    private static UUID roomId(ConnectionInfoDto connectionInfoDto) {
+        return UUID.fromString(connectionInfoDto.getRoomId());
     }
 }
\ No newline at end of file
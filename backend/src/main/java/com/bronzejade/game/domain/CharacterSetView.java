@@ -0,0 +1,90 @@
+package com.bronzejade.game.domain;
+
+import com.bronzejade.game.domain.entities.Character;
+import com.bronzejade.game.domain.entities.CharacterSet;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Immutable copy of a character set, cached by CharacterSetService and shared by every
+ * room using the set. Characters sit in parallel arrays in a fixed order; indexOf maps
+ * an id to its position. Safe to read from any thread without locking.
+ */
+public final class CharacterSetView {
+
+    @Getter
+    private final UUID id;
+    @Getter
+    private final String name;
+    @Getter
+    private final String createdBy;
+    @Getter
+    private final boolean isPublic;
+    @Getter
+    private final LocalDateTime createdAt;
+
+    private final UUID[] characterIds;
+    private final String[] characterNames;
+    private final String[] imageUrls;
+    private final Map<UUID, Integer> indexById;
+
+    private CharacterSetView(CharacterSet set, Character[] characters) {
+        this.id = set.getId();
+        this.name = set.getName();
+        this.createdBy = set.getCreatedBy();
+        this.isPublic = Boolean.TRUE.equals(set.getIsPublic());
+        this.createdAt = set.getCreatedAt();
+        this.characterIds = new UUID[characters.length];
+        this.characterNames = new String[characters.length];
+        this.imageUrls = new String[characters.length];
+        Map<UUID, Integer> index = new HashMap<>();
+        for (int i = 0; i < characters.length; i++) {
+            characterIds[i] = characters[i].getId();
+            characterNames[i] = characters[i].getName();
+            imageUrls[i] = characters[i].getImageUrl();
+            index.put(characterIds[i], i);
+        }
+        this.indexById = Map.copyOf(index);
+    }
+
+    // Reads the set's characters, so call it while the entity is still attached
+    public static CharacterSetView of(CharacterSet set) {
+        return new CharacterSetView(set, set.getCharacters().toArray(new Character[0]));
+    }
+
+    public int size() {
+        return characterIds.length;
+    }
+
+    // Position of the character in this view, or -1 if it is not part of the set
+    public int indexOf(UUID characterId) {
+        Integer index = indexById.get(characterId);
+        return index != null ? index : -1;
+    }
+
+    public boolean contains(UUID characterId) {
+        return indexById.containsKey(characterId);
+    }
+
+    public UUID characterId(int index) {
+        return characterIds[index];
+    }
+
+    public String characterName(int index) {
+        return characterNames[index];
+    }
+
+    public String imageUrl(int index) {
+        return imageUrls[index];
+    }
+
+    // Name of the character with this id, or null if it is not part of the set
+    public String nameOf(UUID characterId) {
+        int index = indexOf(characterId);
+        return index >= 0 ? characterNames[index] : null;
+    }
+}
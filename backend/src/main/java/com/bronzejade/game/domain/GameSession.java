@@ -0,0 +1,67 @@
+package com.bronzejade.game.domain;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory state of a single room's game, used as the source of truth for turn rules.
+ * Instances are owned by GameSessionRegistry and must only be read or mutated while
+ * holding the session's lock. It is a ReentrantLock rather than the object monitor
+ * because turn changes hold it across a database round trip, and a virtual thread
+ * blocked inside a synchronized block would pin its carrier thread for that long.
+ */
+@Getter
+@Setter
+public class GameSession {
+
+    private final UUID roomId;
+    private final UUID gameStateId;
+    private final Map<UUID, Player> playersByUserId;
+    // The room's character set, shared with every other room using it
+    private final CharacterSetView characterSet;
+    @Getter(AccessLevel.NONE)
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private RoomStatus status;
+    private UUID turnPlayerId;
+    private TurnPhase turnPhase;
+    private int roundNumber;
+    // User id of the winner once the game is finished
+    private UUID winnerId;
+    // Id of the QUESTION game event of the current round, while it awaits its answer
+    private UUID currentActionId;
+
+    public GameSession(UUID roomId, UUID gameStateId, Map<UUID, Player> playersByUserId, CharacterSetView characterSet) {
+        this.roomId = roomId;
+        this.gameStateId = gameStateId;
+        this.playersByUserId = playersByUserId;
+        this.characterSet = characterSet;
+    }
+
+    public void lock() {
+        lock.lock();
+    }
+
+    public void unlock() {
+        lock.unlock();
+    }
+
+    public Optional<Player> findPlayer(UUID userId) {
+        return Optional.ofNullable(playersByUserId.get(userId));
+    }
+
+    public Optional<Player> findOpponent(UUID roomPlayerId) {
+        return playersByUserId.values().stream()
+                .filter(p -> !p.roomPlayerId().equals(roomPlayerId))
+                .findFirst();
+    }
+
+    public record Player(UUID roomPlayerId, UUID userId, UUID characterId) {
+    }
+}
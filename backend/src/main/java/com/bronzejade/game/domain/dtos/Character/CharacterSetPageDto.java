@@ -0,0 +1,16 @@
+package com.bronzejade.game.domain.dtos.Character;
+
+import lombok.*;
+
+import java.util.List;
+
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CharacterSetPageDto {
+    private List<CharacterSetSummaryDto> items;
+    // Pass back as cursor for the next page; null on the last page
+    private String nextCursor;
+}
@@ -0,0 +1,20 @@
+package com.bronzejade.game.domain.dtos.Character;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CharacterSetSummaryDto {
+    private UUID id;
+    private String name;
+    private String createdBy;
+    private LocalDateTime createdAt;
+    private int characterCount;
+    private String coverImageUrl;
+}
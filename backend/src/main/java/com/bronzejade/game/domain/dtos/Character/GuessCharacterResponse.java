@@ -19,5 +19,4 @@ public class GuessCharacterResponse {
     private String actualCharacterName;
     private boolean gameEnded;
     private UUID winnerId;
-    private String message;
 }
\ No newline at end of file
@@ -0,0 +1,54 @@
+package com.bronzejade.game.domain.dtos.Event;
+
+import com.bronzejade.game.domain.dtos.Character.GuessCharacterResponse;
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+
+import java.util.UUID;
+
+/**
+ * Events broadcast on /topic/room.{id}. The "type" property tells clients which
+ * event they got; clients render the text themselves.
+ */
+@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "type")
+@JsonSubTypes({
+        @JsonSubTypes.Type(value = GameEvent.PlayerJoined.class, name = "PlayerJoined"),
+        @JsonSubTypes.Type(value = GameEvent.ReadyToggled.class, name = "ReadyToggled"),
+        @JsonSubTypes.Type(value = GameEvent.GameStarted.class, name = "GameStarted"),
+        @JsonSubTypes.Type(value = GameEvent.QuestionAsked.class, name = "QuestionAsked"),
+        @JsonSubTypes.Type(value = GameEvent.AnswerGiven.class, name = "AnswerGiven"),
+        @JsonSubTypes.Type(value = GameEvent.GuessResult.class, name = "GuessResult")
+})
+public sealed interface GameEvent {
+
+    record PlayerJoined(UUID userId, String displayName) implements GameEvent {
+    }
+
+    record ReadyToggled(UUID userId, String displayName, boolean ready) implements GameEvent {
+    }
+
+    record GameStarted(UUID turnPlayerId, UUID turnUserId) implements GameEvent {
+    }
+
+    record QuestionAsked(UUID userId, String displayName, String question) implements GameEvent {
+    }
+
+    record AnswerGiven(UUID userId, String displayName, String answer) implements GameEvent {
+    }
+
+    record GuessResult(UUID userId,
+                       boolean correct,
+                       UUID guessedCharacterId,
+                       String guessedCharacterName,
+                       UUID actualCharacterId,
+                       String actualCharacterName,
+                       boolean gameEnded,
+                       UUID winnerId) implements GameEvent {
+
+        public static GuessResult of(UUID userId, GuessCharacterResponse response) {
+            return new GuessResult(userId, response.isCorrect(), response.getGuessedCharacterId(),
+                    response.getGuessedCharacterName(), response.getActualCharacterId(),
+                    response.getActualCharacterName(), response.isGameEnded(), response.getWinnerId());
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.bronzejade.game.domain.dtos.Event;
+
+import com.bronzejade.game.domain.RoomStatus;
+import com.bronzejade.game.domain.TurnPhase;
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Frames of the /topic/room.{id}.state stream: a Snapshot first, then deltas.
+ * Every frame carries the room's sequence number, shared with the room's GameEvents
+ * (which get it as a "seq" header). Deltas hold absolute values, so applying one the
+ * snapshot already reflects is harmless; a gap in seq across both topics means the
+ * client missed something and should ask /app/state for a new snapshot.
+ */
+@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "type")
+@JsonSubTypes({
+        @JsonSubTypes.Type(value = RoomStateUpdate.Snapshot.class, name = "Snapshot"),
+        @JsonSubTypes.Type(value = RoomStateUpdate.PlayerReady.class, name = "PlayerReady"),
+        @JsonSubTypes.Type(value = RoomStateUpdate.CharacterSelected.class, name = "CharacterSelected"),
+        @JsonSubTypes.Type(value = RoomStateUpdate.TurnChanged.class, name = "TurnChanged"),
+        @JsonSubTypes.Type(value = RoomStateUpdate.StatusChanged.class, name = "StatusChanged")
+})
+public sealed interface RoomStateUpdate {
+
+    long seq();
+
+    record Snapshot(long seq,
+                    UUID roomId,
+                    RoomStatus status,
+                    List<PlayerState> players,
+                    UUID turnUserId,
+                    TurnPhase turnPhase,
+                    int roundNumber,
+                    UUID winnerId) implements RoomStateUpdate {
+    }
+
+    // Only says whether a character was picked; which one stays private to the player
+    record PlayerState(UUID userId, String displayName, boolean host, boolean ready, boolean characterSelected) {
+    }
+
+    record PlayerReady(long seq, UUID userId, boolean ready) implements RoomStateUpdate {
+    }
+
+    record CharacterSelected(long seq, UUID userId) implements RoomStateUpdate {
+    }
+
+    record TurnChanged(long seq, UUID turnUserId, TurnPhase turnPhase, int roundNumber) implements RoomStateUpdate {
+    }
+
+    record StatusChanged(long seq, RoomStatus status, UUID winnerId) implements RoomStateUpdate {
+    }
+}
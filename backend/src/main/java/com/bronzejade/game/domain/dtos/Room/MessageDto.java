@@ -1,12 +0,0 @@
-package com.bronzejade.game.domain.dtos.Room;
-
-import lombok.*;
-
-@Builder
-@Getter
-@Setter
-@NoArgsConstructor
-@AllArgsConstructor
-public class MessageDto {
-    private String message;
-}
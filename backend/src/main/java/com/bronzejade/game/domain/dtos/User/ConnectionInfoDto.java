@@ -12,5 +12,6 @@ import java.util.UUID;
 public class ConnectionInfoDto {
     private String roomId;
     private UUID userId;
+    private UUID roomPlayerId;
     private String displayName;
 }
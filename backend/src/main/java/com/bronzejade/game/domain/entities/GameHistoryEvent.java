@@ -0,0 +1,56 @@
+package com.bronzejade.game.domain.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One immutable entry of a game's history, in the append-only game_event table
+ * (range-partitioned by month in Postgres). Rows are only ever inserted, in JDBC
+ * batches by GameStateWriteBehind, so ids and references are plain columns.
+ */
+@Entity
+@Table(name = "game_event", indexes = @Index(name = "idx_game_event_state_round", columnList = "game_state_id, round_number"))
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+public class GameHistoryEvent {
+
+    @Id
+    private UUID id;
+
+    @Column(nullable = false)
+    private UUID roomId;
+
+    @Column(nullable = false)
+    private UUID gameStateId;
+
+    @Column(nullable = false)
+    private int roundNumber;
+
+    @Column(nullable = false, length = 20)
+    @Enumerated(EnumType.STRING)
+    private Type type;
+
+    // Room player who acted; for TURN_CHANGE the player whose turn it now is
+    private UUID playerId;
+
+    // Question or answer text; for TURN_CHANGE the new turn phase
+    @Column(columnDefinition = "TEXT")
+    private String text;
+
+    // ANSWER: the question's event id; GUESS: the guessed character
+    private UUID targetId;
+
+    // Partition key
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    public enum Type {
+        QUESTION, ANSWER, GUESS, TURN_CHANGE, GAME_FINISHED
+    }
+}
@@ -36,4 +36,7 @@ public class GameState {
     private Integer roundNumber;
 
     private UUID winnerId;
+
+    @Version
+    private Long version;
 }
@@ -8,9 +8,9 @@ import lombok.*;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
 
-import java.util.Random;
 import java.time.LocalDateTime;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Entity
 @Table(name = "rooms")
@@ -56,19 +56,28 @@ public class Room {
     @Column
     private LocalDateTime finishedAt;
 
+    // Last time a player joined or left; RoomReaper measures abandonment from here
+    @Column(nullable = false)
+    private LocalDateTime membershipChangedAt;
+
+    @Version
+    private Long version;
+
     @PrePersist
     protected void onCreate() {
         this.createdAt = LocalDateTime.now();
+        this.membershipChangedAt = this.createdAt;
         this.status = RoomStatus.WAITING;
         if (this.roomCode == null) {
             this.roomCode = generateRoomCode();
         }
     }
 
+    // Fallback for rooms saved without a code from RoomCodeAllocator
     public String generateRoomCode() {
         String characters = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789";
         StringBuilder code = new StringBuilder();
-        Random random = new Random();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
         for(int i = 0; i < 6; i++) {
             code.append(characters.charAt(random.nextInt(characters.length())));
         }
@@ -0,0 +1,50 @@
+package com.bronzejade.game.domain.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * What is kept of a finished room once RoomReaper has archived it: one compact row in
+ * room_history instead of the room, its players and its game state. The moves stay in
+ * game_event under the same room id. Written only by the reaper's SQL.
+ */
+@Entity
+@Table(name = "room_history", indexes = @Index(name = "idx_room_history_finished_at", columnList = "finished_at"))
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+public class RoomHistory {
+
+    // Id of the archived room
+    @Id
+    private UUID roomId;
+
+    @Column(nullable = false, length = 6)
+    private String roomCode;
+
+    private UUID hostId;
+
+    private UUID characterSetId;
+
+    // User, not room player, since the room players are gone
+    private UUID winnerUserId;
+
+    private UUID gameStateId;
+
+    private Integer roundNumber;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+}
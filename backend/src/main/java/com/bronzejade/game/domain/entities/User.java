@@ -28,7 +28,8 @@ public class User implements UserDetails{
     )
     private UUID id;
 
-    @Column(unique = true, nullable = false)
+    // Null for guests
+    @Column(unique = true)
     private String email;
 
     @Column(unique = true, nullable = false)
@@ -39,6 +40,12 @@ public class User implements UserDetails{
 
     private LocalDateTime createdAt = LocalDateTime.now();
 
+    // Guest rows are inserted by UserRepository.insertGuest and removed by GuestReaper once idle
+    @Column(name = "is_guest", nullable = false)
+    private boolean guest;
+
+    private LocalDateTime lastActiveAt;
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return Collections.emptyList();
@@ -0,0 +1,31 @@
+package com.bronzejade.game.domain.events;
+
+import java.util.UUID;
+
+/**
+ * Published by RoomService when a user joins or leaves a room, or when the room
+ * itself goes away. For ROOM_CLOSED the userId is null and applies to everyone;
+ * roomPlayerId is only set for JOINED.
+ */
+public record RoomMembershipChangedEvent(UUID roomId, UUID userId, UUID roomPlayerId, Type type) {
+
+    public enum Type {
+        JOINED, LEFT, ROOM_CLOSED
+    }
+
+    public static RoomMembershipChangedEvent joined(UUID roomId, UUID userId, UUID roomPlayerId) {
+        return new RoomMembershipChangedEvent(roomId, userId, roomPlayerId, Type.JOINED);
+    }
+
+    public static RoomMembershipChangedEvent left(UUID roomId, UUID userId) {
+        return new RoomMembershipChangedEvent(roomId, userId, null, Type.LEFT);
+    }
+
+    public static RoomMembershipChangedEvent roomClosed(UUID roomId) {
+        return new RoomMembershipChangedEvent(roomId, null, null, Type.ROOM_CLOSED);
+    }
+
+    public boolean affects(UUID roomId, UUID userId) {
+        return this.roomId.equals(roomId) && (this.userId == null || this.userId.equals(userId));
+    }
+}
@@ -1,10 +1,50 @@
 package com.bronzejade.game.repositories;
 
 import com.bronzejade.game.domain.entities.CharacterSet;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
-import java.util.Set;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 public interface CharacterSetRepository extends JpaRepository<CharacterSet, UUID> {
-    Set<CharacterSet> findByIsPublic(Boolean isPublic);
+    String SUMMARY_SELECT = """
+            select s.id as id, s.name as name, s.createdBy as createdBy, s.createdAt as createdAt,
+                   size(s.characters) as characterCount,
+                   (select min(c.imageUrl) from s.characters c) as coverImageUrl
+            from CharacterSet s
+            """;
+
+    // Public sets with their characters in one statement, for the lobby catalog
+    @Query("select distinct s from CharacterSet s left join fetch s.characters where s.isPublic = true")
+    List<CharacterSet> findPublicWithCharacters();
+
+    // Newest public sets first, read off the partial (created_at, id) index
+    @Query(SUMMARY_SELECT + """
+            where s.isPublic = true
+            order by s.createdAt desc, s.id desc
+            """)
+    List<SummaryRow> findPublicSummaries(Limit limit);
+
+    // The public sets strictly after the given (createdAt, id) key, in the same order
+    @Query(SUMMARY_SELECT + """
+            where s.isPublic = true
+              and (s.createdAt, s.id) < (:createdAt, :id)
+            order by s.createdAt desc, s.id desc
+            """)
+    List<SummaryRow> findPublicSummariesAfter(@Param("createdAt") LocalDateTime createdAt,
+                                              @Param("id") UUID id,
+                                              Limit limit);
+
+    interface SummaryRow {
+        UUID getId();
+        String getName();
+        String getCreatedBy();
+        LocalDateTime getCreatedAt();
+        Integer getCharacterCount();
+        String getCoverImageUrl();
+    }
 }
@@ -0,0 +1,10 @@
+package com.bronzejade.game.repositories;
+
+import com.bronzejade.game.domain.entities.GameHistoryEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.List;
+import java.util.UUID;
+
+public interface GameHistoryEventRepository extends JpaRepository<GameHistoryEvent, UUID> {
+    List<GameHistoryEvent> findByGameStateIdOrderByCreatedAt(UUID gameStateId);
+}
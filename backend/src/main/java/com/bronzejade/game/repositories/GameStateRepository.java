@@ -1,11 +1,90 @@
 package com.bronzejade.game.repositories;
 
+import com.bronzejade.game.domain.RoomStatus;
+import com.bronzejade.game.domain.TurnPhase;
 import com.bronzejade.game.domain.entities.GameState;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface GameStateRepository extends JpaRepository<GameState, UUID> {
     Optional<GameState> findByRoomId(UUID roomId);
     boolean existsByRoomId(UUID roomId);
+
+    /**
+     * Everything a game session needs about a room in one statement: one row per
+     * player, each repeating the room status and game state. The action id (the
+     * question's game event) is only set while a question is waiting for its answer.
+     */
+    @Query("""
+            select r.status as roomStatus, r.characterSet.id as characterSetId, gs.id as gameStateId, gs.turnPlayer.id as turnPlayerId,
+                   gs.turnPhase as turnPhase, gs.roundNumber as roundNumber, gs.winnerId as winnerId,
+                   q.id as currentActionId,
+                   rp.id as roomPlayerId, rp.user.id as userId, rp.characterToGuess.id as characterId
+            from GameState gs
+            join gs.room r
+            left join RoomPlayer rp on rp.room = r
+            left join GameHistoryEvent q on q.gameStateId = gs.id and q.roundNumber = gs.roundNumber
+                and q.type = com.bronzejade.game.domain.entities.GameHistoryEvent.Type.QUESTION
+                and gs.turnPhase = com.bronzejade.game.domain.TurnPhase.ANSWERING
+            where r.id = :roomId
+            """)
+    List<GameContextRow> findGameContext(@Param("roomId") UUID roomId);
+
+    /**
+     * Moves the game to the next turn only if it is still at the expected one. Returns
+     * the number of rows changed: 0 means another frame or node got there first.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE game_state
+            SET turn_player_id = :turnPlayerId, turn_phase = :turnPhase, round_number = :roundNumber,
+                version = version + 1
+            WHERE id = :id AND winner_id IS NULL
+              AND turn_player_id = :expectedTurnPlayerId AND turn_phase = :expectedTurnPhase
+              AND COALESCE(round_number, 0) = :expectedRoundNumber
+            """, nativeQuery = true)
+    int compareAndSetTurn(@Param("id") UUID id,
+                          @Param("expectedTurnPlayerId") UUID expectedTurnPlayerId,
+                          @Param("expectedTurnPhase") String expectedTurnPhase,
+                          @Param("expectedRoundNumber") int expectedRoundNumber,
+                          @Param("turnPlayerId") UUID turnPlayerId,
+                          @Param("turnPhase") String turnPhase,
+                          @Param("roundNumber") int roundNumber);
+
+    // Same guard as compareAndSetTurn, for the guess that ends the game
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE game_state
+            SET winner_id = :winnerId, version = version + 1
+            WHERE id = :id AND winner_id IS NULL
+              AND turn_player_id = :expectedTurnPlayerId AND turn_phase = :expectedTurnPhase
+              AND COALESCE(round_number, 0) = :expectedRoundNumber
+            """, nativeQuery = true)
+    int compareAndSetWinner(@Param("id") UUID id,
+                            @Param("expectedTurnPlayerId") UUID expectedTurnPlayerId,
+                            @Param("expectedTurnPhase") String expectedTurnPhase,
+                            @Param("expectedRoundNumber") int expectedRoundNumber,
+                            @Param("winnerId") UUID winnerId);
+
+    interface GameContextRow {
+        RoomStatus getRoomStatus();
+        UUID getCharacterSetId();
+        UUID getGameStateId();
+        UUID getTurnPlayerId();
+        TurnPhase getTurnPhase();
+        Integer getRoundNumber();
+        UUID getWinnerId();
+        UUID getCurrentActionId();
+        UUID getRoomPlayerId();
+        UUID getUserId();
+        UUID getCharacterId();
+    }
 }
@@ -3,6 +3,8 @@ package com.bronzejade.game.repositories;
 import com.bronzejade.game.domain.entities.RoomPlayer;
 import com.bronzejade.game.domain.entities.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -13,5 +15,8 @@ public interface RoomPlayerRepository extends JpaRepository<RoomPlayer, UUID> {
     boolean existsByRoomIdAndUser(UUID roomId, User user);
     long countByRoomId(UUID roomId);
 
+    @Query("select rp.id from RoomPlayer rp where rp.room.id = :roomId and rp.user.id = :userId")
+    Optional<UUID> findIdByRoomIdAndUserId(@Param("roomId") UUID roomId, @Param("userId") UUID userId);
+
     RoomPlayer findByHost(boolean host);
 }
@@ -2,8 +2,13 @@ package com.bronzejade.game.repositories;
 
 import com.bronzejade.game.domain.entities.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -13,4 +18,22 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     Optional<User> findByUsername(String username);
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
+
+    @Query("select u.username from User u where u.id = :id")
+    Optional<String> findUsernameById(@Param("id") UUID id);
+
+    // Native so the guest keeps the id its token was issued for, instead of a generated one
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO users (id, username, email, password, is_guest, created_at, last_active_at) " +
+            "VALUES (:id, :username, NULL, '', TRUE, :createdAt, :createdAt)", nativeQuery = true)
+    void insertGuest(@Param("id") UUID id, @Param("username") String username,
+                     @Param("createdAt") LocalDateTime createdAt);
+
+    // Zero if the guest has no row (yet, or any more) under this username
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE users SET last_active_at = :now WHERE id = :id AND is_guest AND username = :username",
+            nativeQuery = true)
+    int touchGuest(@Param("id") UUID id, @Param("username") String username, @Param("now") LocalDateTime now);
 }
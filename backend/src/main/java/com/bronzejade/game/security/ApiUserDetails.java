@@ -2,29 +2,48 @@ package com.bronzejade.game.security;
 
 import com.bronzejade.game.domain.entities.User;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 @Getter
 public class ApiUserDetails implements UserDetails {
 
+    // Guests are authenticated by their token alone and may have no users row yet
+    public static final GrantedAuthority GUEST = new SimpleGrantedAuthority("ROLE_GUEST");
+
     private final UUID id;
     private final String username;
     private final String password;
+    private final List<GrantedAuthority> authorities;
+    // Built from token claims rather than loaded from the users table
+    private final boolean stateless;
 
     public ApiUserDetails(UUID id, String username, String password) {
+        this(id, username, password, List.of(), false);
+    }
+
+    private ApiUserDetails(UUID id, String username, String password, List<GrantedAuthority> authorities,
+                           boolean stateless) {
         this.id = id;
         this.username = username;
         this.password = password;
+        this.authorities = authorities;
+        this.stateless = stateless;
+    }
+
+    public static ApiUserDetails fromToken(TokenIdentity identity) {
+        return new ApiUserDetails(identity.userId(), identity.name(), "",
+                identity.guest() ? List.of(GUEST) : List.of(), true);
     }
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return null;
+        return authorities;
     }
 
     @Override
@@ -0,0 +1,67 @@
+package com.bronzejade.game.security;
+
+import com.bronzejade.game.repositories.UserRepository;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Authenticates a WebSocket handshake in one pass: the token is verified once (usually
+ * a JwtUtil cache hit on reconnect), checked against the deny-list, and turned into the
+ * connection's principal. Tokens carrying the username need no database at all; older
+ * ones cost a single username query, which doubles as the check that the user exists.
+ */
+@Component
+public class HandshakeAuthenticator {
+
+    private final JwtUtil jwtUtil;
+    private final TokenDenyList denyList;
+    private final UserRepository userRepository;
+    private final Counter fromClaims;
+    private final Counter fromDatabase;
+    private final Counter rejected;
+
+    public HandshakeAuthenticator(JwtUtil jwtUtil, TokenDenyList denyList, UserRepository userRepository,
+                                  MeterRegistry meterRegistry) {
+        this.jwtUtil = jwtUtil;
+        this.denyList = denyList;
+        this.userRepository = userRepository;
+        this.fromClaims = handshakes(meterRegistry, "claims");
+        this.fromDatabase = handshakes(meterRegistry, "database");
+        this.rejected = handshakes(meterRegistry, "rejected");
+    }
+
+    private static Counter handshakes(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("game.ws.handshakes")
+                .description("WebSocket handshakes by how the user was authenticated")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    // Empty when the token is missing, invalid, revoked or names a user that is gone
+    public Optional<PlayerPrincipal> authenticate(String token) {
+        TokenIdentity identity;
+        try {
+            identity = token == null ? null : jwtUtil.parseToken(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            identity = null;
+        }
+        if (identity == null || denyList.isRevoked(identity.tokenId())) {
+            rejected.increment();
+            return Optional.empty();
+        }
+        if (identity.stateless()) {
+            fromClaims.increment();
+            return Optional.of(new PlayerPrincipal(identity.userId(), identity.name()));
+        }
+        UUID userId = identity.userId();
+        Optional<PlayerPrincipal> principal = userRepository.findUsernameById(userId)
+                .map(username -> new PlayerPrincipal(userId, username));
+        (principal.isPresent() ? fromDatabase : rejected).increment();
+        return principal;
+    }
+}
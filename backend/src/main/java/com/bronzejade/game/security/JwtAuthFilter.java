@@ -21,6 +21,7 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final CustomUserDetailsService userDetailsService;
+    private final TokenDenyList denyList;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -38,9 +39,16 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         String token = authHeader.substring(7);
 
         try {
-            var userId = jwtUtil.validateTokenAndGetUserId(token);
+            TokenIdentity identity = jwtUtil.parseToken(token);
+            if (denyList.isRevoked(identity.tokenId())) {
+                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                return;
+            }
 
-            UserDetails userDetails = userDetailsService.loadUserById(String.valueOf(userId));
+            // Tokens carrying the username are trusted as they are; only older ones hit the users table
+            UserDetails userDetails = identity.stateless()
+                    ? ApiUserDetails.fromToken(identity)
+                    : userDetailsService.loadUserById(String.valueOf(identity.userId()));
 
             var authToken = new UsernamePasswordAuthenticationToken(
                     userDetails,
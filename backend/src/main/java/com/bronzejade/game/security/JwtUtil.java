@@ -1,44 +1,155 @@
 package com.bronzejade.game.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Date;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Issues and verifies the HS256 tokens. The signing key and parser are built once.
+ * Tokens that verified are remembered in a bounded cache, keyed by their SHA-256 so
+ * no bearer token is kept in memory, until the token expires or the cache ttl passes,
+ * whichever is first; a repeated token then skips signature checking and JSON parsing.
+ * A max-size of 0 turns the cache off.
+ */
 @Component
 public class JwtUtil {
 
-    @Value("${jwt.secret}")
-    private String SECRET;
+    private static final String GUEST_CLAIM = "guest";
+    private static final String NAME_CLAIM = "name";
 
-    @Value("${jwt.expiration}")
-    private long EXPIRATION_MS;
+    private final Key signingKey;
+    private final JwtParser parser;
+    private final long expirationMs;
+    private final Cache<ByteBuffer, Verified> verified;
 
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(SECRET.getBytes());
+    public JwtUtil(@Value("${jwt.secret}") String secret,
+                   @Value("${jwt.expiration}") long expirationMs,
+                   @Value("${jwt.cache.max-size:10000}") long cacheSize,
+                   @Value("${jwt.cache.ttl:PT10M}") Duration cacheTtl,
+                   MeterRegistry meterRegistry) {
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        this.parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        this.expirationMs = expirationMs;
+        if (cacheSize > 0) {
+            this.verified = Caffeine.newBuilder()
+                    .maximumSize(cacheSize)
+                    .expireAfter(new UntilTokenExpiry(cacheTtl))
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, verified, "verifiedTokens");
+        } else {
+            this.verified = null;
+        }
     }
 
+    // Only the user id; the user is looked up on every request made with it
     public String generateToken(UUID userId) {
+        return token(userId).compact();
+    }
+
+    // Carries the username, so requests made with it need no users lookup
+    public String generateToken(UUID userId, String username) {
+        return token(userId)
+                .setId(UUID.randomUUID().toString())
+                .claim(NAME_CLAIM, username)
+                .compact();
+    }
+
+    // Guest identity lives in the token alone: id as subject, plus a flag and display name
+    public String generateGuestToken(UUID guestId, String name) {
+        return token(guestId)
+                .setId(UUID.randomUUID().toString())
+                .claim(GUEST_CLAIM, true)
+                .claim(NAME_CLAIM, name)
+                .compact();
+    }
+
+    private JwtBuilder token(UUID subject) {
         return Jwts.builder()
-                .setSubject(userId.toString())
+                .setSubject(subject.toString())
                 .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_MS))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
-                .compact();
+                .setExpiration(new Date(System.currentTimeMillis() + expirationMs))
+                .signWith(signingKey, SignatureAlgorithm.HS256);
     }
 
     public UUID validateTokenAndGetUserId(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return UUID.fromString(claims.getSubject());
-    }
-}
\ No newline at end of file
+        return parseToken(token).userId();
+    }
+
+    public TokenIdentity parseToken(String token) {
+        if (verified == null) {
+            return verify(token).identity();
+        }
+        ByteBuffer key = hash(token);
+        Verified hit = verified.getIfPresent(key);
+        if (hit == null) {
+            // Not computeIfAbsent: an invalid token has to throw, and nothing is cached for it
+            hit = verify(token);
+            verified.put(key, hit);
+        }
+        return hit.identity();
+    }
+
+    private Verified verify(String token) {
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        Date expiration = claims.getExpiration();
+        TokenIdentity identity = new TokenIdentity(
+                UUID.fromString(claims.getSubject()),
+                Boolean.TRUE.equals(claims.get(GUEST_CLAIM, Boolean.class)),
+                claims.get(NAME_CLAIM, String.class),
+                claims.getId() != null ? UUID.fromString(claims.getId()) : null,
+                expiration != null ? expiration.toInstant() : null);
+        return new Verified(identity, expiration != null ? expiration.getTime() : Long.MAX_VALUE);
+    }
+
+    private static ByteBuffer hash(String token) {
+        try {
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private record Verified(TokenIdentity identity, long expiresAtMillis) {
+    }
+
+    private record UntilTokenExpiry(Duration ttl) implements Expiry<ByteBuffer, Verified> {
+
+        @Override
+        public long expireAfterCreate(ByteBuffer key, Verified value, long currentTime) {
+            long untilExpiry = TimeUnit.MILLISECONDS.toNanos(
+                    Math.max(0, value.expiresAtMillis() - System.currentTimeMillis()));
+            return Math.min(untilExpiry, ttl.toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(ByteBuffer key, Verified value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(ByteBuffer key, Verified value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
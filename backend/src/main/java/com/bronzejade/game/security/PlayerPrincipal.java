@@ -0,0 +1,16 @@
+package com.bronzejade.game.security;
+
+import java.security.Principal;
+import java.util.UUID;
+
+/**
+ * The user behind a WebSocket connection. Its name is the user id, which is what
+ * /user destinations are addressed to.
+ */
+public record PlayerPrincipal(UUID userId, String displayName) implements Principal {
+
+    @Override
+    public String getName() {
+        return userId.toString();
+    }
+}
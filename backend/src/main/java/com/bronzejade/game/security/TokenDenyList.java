@@ -0,0 +1,150 @@
+package com.bronzejade.game.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Token ids (jti) revoked by logout, until the tokens expire. Checked on every request,
+ * so it is answered from memory: a bloom filter rules out almost every token that was
+ * never revoked without touching the exact set, which only confirms the rare positive.
+ *
+ * Revocations are written to revoked_tokens as well, and every node reads the rows
+ * added since its last sync, so a logout reaches the other nodes within sync-interval.
+ * Expired entries are dropped on sync and the filter is rebuilt from what is left.
+ */
+@Component
+@Slf4j
+public class TokenDenyList {
+
+    private static final String INSERT =
+            "INSERT INTO revoked_tokens (jti, expires_at, revoked_at) VALUES (:jti, :expiresAt, :revokedAt)";
+    private static final String FIND_SINCE =
+            "SELECT jti, expires_at FROM revoked_tokens WHERE revoked_at >= :since AND expires_at > :now";
+    private static final String FIND_ALL = "SELECT jti, expires_at FROM revoked_tokens WHERE expires_at > :now";
+    private static final String DELETE_EXPIRED = "DELETE FROM revoked_tokens WHERE expires_at <= :now";
+    // Rows committed late by another node's clock or transaction are still picked up
+    private static final Duration SYNC_OVERLAP = Duration.ofMinutes(1);
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final int expectedRevocations;
+    private final Map<UUID, LocalDateTime> revoked = new ConcurrentHashMap<>();
+    private volatile BloomFilter filter;
+    private LocalDateTime syncedUntil;
+
+    public TokenDenyList(NamedParameterJdbcTemplate jdbcTemplate,
+                         @Value("${jwt.deny-list.expected-revocations:100000}") int expectedRevocations) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.expectedRevocations = expectedRevocations;
+        this.filter = new BloomFilter(expectedRevocations);
+    }
+
+    public boolean isRevoked(UUID tokenId) {
+        return tokenId != null && filter.mightContain(tokenId) && revoked.containsKey(tokenId);
+    }
+
+    public void revoke(UUID tokenId, Instant expiresAt) {
+        LocalDateTime expiry = LocalDateTime.ofInstant(expiresAt, ZoneId.systemDefault());
+        add(tokenId, expiry);
+        try {
+            jdbcTemplate.update(INSERT, new MapSqlParameterSource()
+                    .addValue("jti", tokenId)
+                    .addValue("expiresAt", expiry)
+                    .addValue("revokedAt", LocalDateTime.now()));
+        } catch (DuplicateKeyException e) {
+            // Logged out twice
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.deny-list.sync-interval:PT10S}")
+    public void sync() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            MapSqlParameterSource params = new MapSqlParameterSource("now", now);
+            String query = FIND_ALL;
+            if (syncedUntil != null) {
+                query = FIND_SINCE;
+                params.addValue("since", syncedUntil.minus(SYNC_OVERLAP));
+            }
+            RowCallbackHandler addRow = row -> add(row.getObject(1, UUID.class), row.getObject(2, LocalDateTime.class));
+            jdbcTemplate.query(query, params, addRow);
+            syncedUntil = now;
+            if (revoked.values().removeIf(expiry -> !expiry.isAfter(now))) {
+                rebuild();
+                jdbcTemplate.update(DELETE_EXPIRED, new MapSqlParameterSource("now", now));
+            }
+        } catch (DataAccessException e) {
+            log.warn("Could not sync the token deny-list", e);
+        }
+    }
+
+    // Under the monitor so a rebuild cannot miss an id added while it copies the set
+    private synchronized void add(UUID tokenId, LocalDateTime expiresAt) {
+        revoked.put(tokenId, expiresAt);
+        filter.put(tokenId);
+    }
+
+    private synchronized void rebuild() {
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedRevocations, 2 * revoked.size()));
+        revoked.keySet().forEach(rebuilt::put);
+        filter = rebuilt;
+    }
+
+    /**
+     * Sized for about 1% false positives at the expected number of entries. A jti is a
+     * random UUID, so its two halves serve directly as the two base hashes.
+     */
+    static final class BloomFilter {
+
+        private static final int HASHES = 7;
+
+        private final AtomicLongArray bits;
+        private final long size;
+
+        BloomFilter(int expectedEntries) {
+            this.size = Math.max(64, (long) Math.ceil(expectedEntries * 9.6) / 64 * 64);
+            this.bits = new AtomicLongArray((int) (size / 64));
+        }
+
+        void put(UUID id) {
+            for (int i = 0; i < HASHES; i++) {
+                long bit = bit(id, i);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long current;
+                while (((current = bits.get(word)) & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+                    // Another bit of the same word was set concurrently; retry
+                }
+            }
+        }
+
+        boolean mightContain(UUID id) {
+            for (int i = 0; i < HASHES; i++) {
+                long bit = bit(id, i);
+                if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private long bit(UUID id, int i) {
+            return Math.floorMod(id.getMostSignificantBits() + i * id.getLeastSignificantBits(), size);
+        }
+    }
+}
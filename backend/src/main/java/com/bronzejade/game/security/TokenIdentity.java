@@ -0,0 +1,17 @@
+package com.bronzejade.game.security;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Who a verified JWT belongs to. Tokens issued at login, registration and for guests
+ * carry the username, so the request can be authenticated from the claims alone, and a
+ * token id (jti) by which logout revokes them. Tokens without a name are resolved
+ * against the users table instead.
+ */
+public record TokenIdentity(UUID userId, boolean guest, String name, UUID tokenId, Instant expiresAt) {
+
+    public boolean stateless() {
+        return name != null;
+    }
+}
@@ -7,10 +7,14 @@ import com.bronzejade.game.domain.dtos.User.UserDto;
 import com.bronzejade.game.domain.entities.User;
 import com.bronzejade.game.security.ApiUserDetails;
 import com.bronzejade.game.security.JwtUtil;
+import com.bronzejade.game.security.TokenDenyList;
+import com.bronzejade.game.security.TokenIdentity;
 import com.bronzejade.game.mapper.UserMapper;
 import com.bronzejade.game.repositories.UserRepository;
+import io.jsonwebtoken.JwtException;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -18,7 +22,6 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
@@ -27,11 +30,15 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class AuthService {
 
+    // Response header carrying a guest token re-issued by ensurePersisted
+    public static final String REFRESHED_TOKEN_HEADER = "X-Refreshed-Token";
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
     private final AuthenticationManager authenticationManager;
     private final UserMapper userMapper;
+    private final TokenDenyList denyList;
 
     public AuthResponse register(RegisterRequest request) {
         // Check if username or email already exist
@@ -53,13 +60,15 @@ public class AuthService {
         User savedUser = userRepository.save(user);
 
         // Generate JWT token
-        String token = jwtUtil.generateToken(savedUser.getId());
+        String token = jwtUtil.generateToken(savedUser.getId(), savedUser.getUsername());
 
         return new AuthResponse(token, savedUser.getId(), savedUser.getUsername());
     }
 
-    @Transactional(readOnly = true)
     public UserDto getUserFromPrincipal(ApiUserDetails userDetails) {
+        if (userDetails.isStateless()) {
+            return UserDto.builder().id(userDetails.getId()).username(userDetails.getUsername()).build();
+        }
         //For some reason I cant pass userDetails.getUser() directly due to LazyLoading issues
         //So I have to reinitialize user object from ID
         UUID userId = userDetails.getId();
@@ -81,7 +90,7 @@ public class AuthService {
 
             ApiUserDetails user = (ApiUserDetails) authentication.getPrincipal();
 
-            String token = jwtUtil.generateToken(user.getId());
+            String token = jwtUtil.generateToken(user.getId(), user.getUsername());
 
             return new AuthResponse(token, user.getId(), user.getUsername());
 
@@ -91,32 +100,81 @@ public class AuthService {
         }
     }
 
+    // No users row yet: the guest only exists in its token until it creates or joins a room
     public AuthResponse createGuestUser() {
-        UUID guestSessionId = UUID.randomUUID();
+        UUID guestId = UUID.randomUUID();
+        String username = "guest_" + guestId.toString().substring(0, 8);
 
-        User guestUser = User.builder()
-                .username("guest_" + guestSessionId.toString().substring(0, 8))
-                .email(null)
-                .password("")
-                .createdAt(LocalDateTime.now())
-                .build();
+        String token = jwtUtil.generateGuestToken(guestId, username);
 
-        User savedUser = userRepository.save(guestUser);
+        return new AuthResponse(token, guestId, username);
+    }
 
-        String token = jwtUtil.generateToken(savedUser.getId());
+    /**
+     * Inserts the users row of a guest principal, under the id from its token, if it is
+     * not there yet, and otherwise marks the guest active. Does nothing for registered users.
+     *
+     * The row takes the name from the token unless another user has it. Then the row falls
+     * back to "guest_" plus the full id, and a guest token carrying that name is returned
+     * for the client to use from now on, so the name shown from the token (profile,
+     * WebSocket) and the one shown from the row (room state) stay the same. Returns null
+     * when the token's name is the persisted one.
+     */
+    public String ensurePersisted(ApiUserDetails userDetails) {
+        UUID id = userDetails.getId();
+        if (!userDetails.getAuthorities().contains(ApiUserDetails.GUEST) || userRepository.touchGuest(id, userDetails.getUsername(), LocalDateTime.now()) > 0) {
+            return null;
+        }
+        String persisted = userRepository.findUsernameById(id).orElseGet(() -> insertGuest(userDetails));
+        if (persisted.equals(userDetails.getUsername())) {
+            return null;
+        }
+        // Still on a token from before the fallback name was given
+        userRepository.touchGuest(id, persisted, LocalDateTime.now());
+        return jwtUtil.generateGuestToken(id, persisted);
+    }
 
-        return new AuthResponse(token, savedUser.getId(), savedUser.getUsername());
+    // The name the row was inserted with
+    private String insertGuest(ApiUserDetails userDetails) {
+        UUID id = userDetails.getId();
+        try {
+            userRepository.insertGuest(id, userDetails.getUsername(), LocalDateTime.now());
+            return userDetails.getUsername();
+        } catch (DataIntegrityViolationException e) {
+            // Either a concurrent request inserted this guest, or the short name is taken
+            return userRepository.findUsernameById(id).orElseGet(() -> {
+                String fallback = "guest_" + id;
+                userRepository.insertGuest(id, fallback, LocalDateTime.now());
+                return fallback;
+            });
+        }
     }
 
     public boolean validateToken(String token) {
         try {
-            UUID userId = jwtUtil.validateTokenAndGetUserId(token);
-            return userRepository.existsById(userId);
+            TokenIdentity identity = jwtUtil.parseToken(token);
+            if (denyList.isRevoked(identity.tokenId())) {
+                return false;
+            }
+            return identity.stateless() || userRepository.existsById(identity.userId());
         } catch (Exception e) {
             return false;
         }
     }
 
+    // Tokens without a jti predate revocation and stay valid until they expire
+    public void logout(String token) {
+        TokenIdentity identity;
+        try {
+            identity = jwtUtil.parseToken(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return;
+        }
+        if (identity.tokenId() != null && identity.expiresAt() != null) {
+            denyList.revoke(identity.tokenId(), identity.expiresAt());
+        }
+    }
+
     public String getUsername(UUID userId) {
         User user = userRepository.findById(userId).orElseThrow(EntityNotFoundException::new);
         return user.getUsername();
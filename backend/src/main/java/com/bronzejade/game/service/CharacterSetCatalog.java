@@ -0,0 +1,120 @@
+package com.bronzejade.game.service;
+
+import com.bronzejade.game.domain.dtos.Character.CharacterDto;
+import com.bronzejade.game.domain.dtos.Character.CharacterSetDto;
+import com.bronzejade.game.mapper.CharacterSetMapper;
+import com.bronzejade.game.repositories.CharacterSetRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The public character sets as the lobby receives them, serialized once and kept as bytes
+ * together with a hash of them for ETag validation. Sets and characters are written in a
+ * fixed order so every rebuild (and every node) hashes the same content to the same tag.
+ * Rebuilt on the first request after a set is created, or after the ttl for sets edited
+ * straight in the database.
+ * <p>
+ * Invalidation is local: only the node that handled createSet drops its copy. Other nodes
+ * (several behind a load balancer, as with game.broker.mode=relay) keep serving the old
+ * bytes and ETag until their own copy is older than game.character-sets.cache.ttl, so a new
+ * public set can take up to one ttl to show up everywhere.
+ */
+@Service
+public class CharacterSetCatalog {
+
+    public record Snapshot(byte[] json, String etag, long builtAtNanos) {
+    }
+
+    private static final Comparator<CharacterSetDto> SET_ORDER = Comparator
+            .comparing(CharacterSetDto::getCreatedAt, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(CharacterSetDto::getId);
+    private static final Comparator<CharacterDto> CHARACTER_ORDER = Comparator
+            .comparing(CharacterDto::getName, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(CharacterDto::getId);
+
+    private final CharacterSetRepository characterSetRepository;
+    private final CharacterSetMapper characterSetMapper;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long ttlNanos;
+    // Bumped on every invalidation, so a rebuild that raced one is not kept
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    public CharacterSetCatalog(CharacterSetRepository characterSetRepository,
+                               CharacterSetMapper characterSetMapper,
+                               ObjectMapper objectMapper,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${game.character-sets.cache.ttl:PT1H}") Duration ttl) {
+        this.characterSetRepository = characterSetRepository;
+        this.characterSetMapper = characterSetMapper;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    public Snapshot get() {
+        Snapshot current = snapshot;
+        if (current != null && System.nanoTime() - current.builtAtNanos() < ttlNanos) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            if (current != null && System.nanoTime() - current.builtAtNanos() < ttlNanos) {
+                return current;
+            }
+            long buildGeneration = generation.get();
+            Snapshot built = build();
+            if (generation.get() == buildGeneration) {
+                snapshot = built;
+            }
+            return built;
+        }
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+        snapshot = null;
+    }
+
+    private Snapshot build() {
+        List<CharacterSetDto> sets = readOnlyTransaction.execute(status ->
+                characterSetRepository.findPublicWithCharacters().stream()
+                        .map(characterSetMapper::toDto)
+                        .sorted(SET_ORDER)
+                        .toList());
+        for (CharacterSetDto set : sets) {
+            set.setCharacters(set.getCharacters().stream()
+                    .sorted(CHARACTER_ORDER)
+                    .collect(LinkedHashSet::new, LinkedHashSet::add, LinkedHashSet::addAll));
+        }
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(sets);
+            return new Snapshot(json, HexFormat.of().formatHex(sha256(json)), System.nanoTime());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize the character set catalog", e);
+        }
+    }
+
+    private static byte[] sha256(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -1,34 +1,160 @@
 package com.bronzejade.game.service;
 
+import com.bronzejade.game.domain.CharacterSetView;
+import com.bronzejade.game.domain.dtos.Character.CharacterSetPageDto;
+import com.bronzejade.game.domain.dtos.Character.CharacterSetSummaryDto;
 import com.bronzejade.game.domain.dtos.Character.CreateCharacterRequest;
 import com.bronzejade.game.domain.dtos.Character.CreateCharacterSetRequest;
 import com.bronzejade.game.domain.entities.CharacterSet;
 import com.bronzejade.game.domain.entities.Character;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import jakarta.persistence.EntityNotFoundException;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import com.bronzejade.game.repositories.CharacterSetRepository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
+/**
+ * Character sets are reference data that practically never change once created, so
+ * reads for game rules go through an in-process cache of immutable CharacterSetViews
+ * (metrics as cache.* with cache=characterSets). Sets edited straight in the database
+ * are picked up once their entry expires.
+ */
 @Service
-@RequiredArgsConstructor
 public class CharacterSetService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final CharacterSetRepository characterSetRepository;
+    private final CharacterSetCatalog catalog;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Cache<UUID, CharacterSetView> views;
+
+    public CharacterSetService(CharacterSetRepository characterSetRepository,
+                               CharacterSetCatalog catalog,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${game.character-sets.cache.max-size:1000}") long maxSize,
+                               @Value("${game.character-sets.cache.ttl:PT1H}") Duration ttl) {
+        this.characterSetRepository = characterSetRepository;
+        this.catalog = catalog;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.views = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, views, "characterSets");
+    }
+
+    public CharacterSetCatalog.Snapshot getCatalog() {
+        return catalog.get();
+    }
 
-    public Set<CharacterSet> getCharacterSets() {
-        return characterSetRepository.findByIsPublic(true);
+    /**
+     * One page of public set summaries, newest first. The cursor is the opaque nextCursor
+     * of the previous page (null for the first one); it holds the (createdAt, id) key of
+     * that page's last row, so pages stay stable while new sets are created.
+     */
+    @Transactional(readOnly = true)
+    public CharacterSetPageDto getPublicSummaries(String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        // One extra row tells whether there is a next page
+        Limit limit = Limit.of(pageSize + 1);
+        List<CharacterSetRepository.SummaryRow> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = characterSetRepository.findPublicSummaries(limit);
+        } else {
+            PageKey after = decodeCursor(cursor);
+            rows = characterSetRepository.findPublicSummariesAfter(after.createdAt(), after.id(), limit);
+        }
+
+        List<CharacterSetSummaryDto> items = rows.stream()
+                .limit(pageSize)
+                .map(row -> CharacterSetSummaryDto.builder()
+                        .id(row.getId())
+                        .name(row.getName())
+                        .createdBy(row.getCreatedBy())
+                        .createdAt(row.getCreatedAt())
+                        .characterCount(row.getCharacterCount() != null ? row.getCharacterCount() : 0)
+                        .coverImageUrl(row.getCoverImageUrl())
+                        .build())
+                .toList();
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            CharacterSetSummaryDto last = items.get(items.size() - 1);
+            nextCursor = encodeCursor(last.getCreatedAt(), last.getId());
+        }
+        return CharacterSetPageDto.builder().items(items).nextCursor(nextCursor).build();
     }
 
+    @Transactional(readOnly = true)
     public CharacterSet getCharacterSet(UUID id) {
         return characterSetRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("CharacterSet with id " + id + " not found"));
     }
 
+    /**
+     * The set with its characters, from the cache. Throws EntityNotFoundException
+     * (not cached) if there is no such set.
+     */
+    public CharacterSetView getView(UUID id) {
+        return views.get(id, this::loadView);
+    }
+
+    // Entity reference for associations, checked against the cache instead of selected
+    public CharacterSet getReference(UUID id) {
+        getView(id);
+        return characterSetRepository.getReferenceById(id);
+    }
+
+    public void invalidate(UUID id) {
+        views.invalidate(id);
+        catalog.invalidate();
+    }
+
+    private static String encodeCursor(LocalDateTime createdAt, UUID id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((createdAt + "," + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Bad base64 and bad UUIDs already throw IllegalArgumentException, which maps to a 400
+    private static PageKey decodeCursor(String cursor) {
+        String[] key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(",");
+        if (key.length != 2) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        try {
+            return new PageKey(LocalDateTime.parse(key[0]), UUID.fromString(key[1]));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    private record PageKey(LocalDateTime createdAt, UUID id) {
+    }
+
+    private CharacterSetView loadView(UUID id) {
+        return readOnlyTransaction.execute(status -> CharacterSetView.of(getCharacterSet(id)));
+    }
+
     public CharacterSet createSet(CreateCharacterSetRequest createSetRequest, UUID createrId) {
         List<CreateCharacterRequest> characterRequests = createSetRequest.getCharacters();
         Set<Character> characters = characterRequests.stream().map((CreateCharacterRequest request) -> {
@@ -44,6 +170,8 @@ public class CharacterSetService {
         characterSet.setCreatedBy(String.valueOf(createrId));
         characterSet.setIsPublic(createSetRequest.getIsPublic());
 
-        return characterSetRepository.save(characterSet);
+        CharacterSet saved = characterSetRepository.save(characterSet);
+        invalidate(saved.getId());
+        return saved;
     }
 }
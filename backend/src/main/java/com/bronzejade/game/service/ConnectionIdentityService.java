@@ -0,0 +1,114 @@
+package com.bronzejade.game.service;
+
+import com.bronzejade.game.domain.dtos.User.ConnectionInfoDto;
+import com.bronzejade.game.domain.events.RoomMembershipChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves who is behind a STOMP session once (at CONNECT/SUBSCRIBE) and caches the
+ * result in the WebSocket session attributes, so message handlers never hit the database
+ * to find out who sent a frame. Cached identities are dropped on room join/leave events.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ConnectionIdentityService {
+
+    public static final String IDENTITY_ATTRIBUTE = "connectionInfo";
+
+    private final RoomPlayerService roomPlayerService;
+
+    // Live session attribute maps by room id, then STOMP session id, used to invalidate identities
+    private final Map<String, Map<String, Map<String, Object>>> sessionsByRoom = new ConcurrentHashMap<>();
+    private final Map<String, String> roomBySession = new ConcurrentHashMap<>();
+
+    public ConnectionInfoDto get(Map<String, Object> attributes) {
+        return attributes == null ? null : (ConnectionInfoDto) attributes.get(IDENTITY_ATTRIBUTE);
+    }
+
+    /**
+     * Returns the cached identity for the session, resolving it with a single query when
+     * missing. Returns null when the user is not a player of the session's room.
+     */
+    public ConnectionInfoDto resolve(String sessionId, Map<String, Object> attributes) {
+        String roomId = (String) attributes.get("roomId");
+        String userId = (String) attributes.get("userId");
+        register(sessionId, roomId, attributes);
+
+        ConnectionInfoDto cached = get(attributes);
+        if (cached != null && cached.getRoomId().equals(roomId)) {
+            return cached;
+        }
+        if (roomId == null || userId == null) {
+            return null;
+        }
+
+        UUID roomUuid = UUID.fromString(roomId);
+        UUID userUuid = UUID.fromString(userId);
+        return roomPlayerService.findRoomPlayerId(roomUuid, userUuid)
+                .map(roomPlayerId -> {
+                    ConnectionInfoDto identity = ConnectionInfoDto.builder()
+                            .roomId(roomId)
+                            .userId(userUuid)
+                            .roomPlayerId(roomPlayerId)
+                            .displayName((String) attributes.get("displayName"))
+                            .build();
+                    attributes.put(IDENTITY_ATTRIBUTE, identity);
+                    return identity;
+                })
+                .orElse(null);
+    }
+
+    public void unregister(String sessionId) {
+        String roomId = roomBySession.remove(sessionId);
+        if (roomId != null) {
+            removeFromRoom(roomId, sessionId);
+        }
+    }
+
+    private void register(String sessionId, String roomId, Map<String, Object> attributes) {
+        if (roomId == null) {
+            return;
+        }
+        String previousRoomId = roomBySession.put(sessionId, roomId);
+        if (previousRoomId != null && !previousRoomId.equals(roomId)) {
+            removeFromRoom(previousRoomId, sessionId);
+        }
+        // compute, not computeIfAbsent: removeFromRoom must not drop the map between get and put
+        sessionsByRoom.compute(roomId, (id, sessions) -> {
+            Map<String, Map<String, Object>> roomSessions = sessions != null ? sessions : new ConcurrentHashMap<>();
+            roomSessions.put(sessionId, attributes);
+            return roomSessions;
+        });
+    }
+
+    private void removeFromRoom(String roomId, String sessionId) {
+        sessionsByRoom.computeIfPresent(roomId, (id, sessions) -> {
+            sessions.remove(sessionId);
+            return sessions.isEmpty() ? null : sessions;
+        });
+    }
+
+    // Only the sessions connected to the event's room are looked at
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMembershipChanged(RoomMembershipChangedEvent event) {
+        Map<String, Map<String, Object>> sessions = sessionsByRoom.get(event.roomId().toString());
+        if (sessions == null) {
+            return;
+        }
+        for (Map<String, Object> attributes : sessions.values()) {
+            ConnectionInfoDto identity = get(attributes);
+            if (identity != null && event.affects(UUID.fromString(identity.getRoomId()), identity.getUserId())) {
+                log.debug("Dropping cached identity of user {} in room {}", identity.getUserId(), identity.getRoomId());
+                attributes.remove(IDENTITY_ATTRIBUTE);
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.bronzejade.game.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the monthly partitions of the Postgres game_event table: creates the coming
+ * months ahead of time (an insert into a month without a partition fails) and, when a
+ * retention is configured, drops whole months past it instead of deleting rows.
+ * Only enabled against Postgres, where V11 set the table up as partitioned.
+ *
+ * Events for a month without a partition land in game_event_default (V16) rather than
+ * failing. Creating the month's partition moves them out; any still left there after a
+ * run are logged as an error and exported as game.events.partitions.default.rows.
+ */
+@Component
+@ConditionalOnProperty(name = "game.events.partitions.enabled", havingValue = "true")
+@Slf4j
+public class GameEventPartitionMaintenance {
+
+    private static final String PARTITION_PREFIX = "game_event_";
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("yyyy_MM");
+    private static final String LIST_PARTITIONS = """
+            SELECT c.relname FROM pg_inherits i
+            JOIN pg_class c ON c.oid = i.inhrelid
+            JOIN pg_class p ON p.oid = i.inhparent
+            WHERE p.relname = 'game_event'
+            """;
+    private static final String COUNT_DEFAULT = "SELECT count(*) FROM game_event_default";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final AtomicLong defaultRows = new AtomicLong();
+
+    public GameEventPartitionMaintenance(JdbcTemplate jdbcTemplate,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${game.events.partitions.months-ahead:2}") int monthsAhead,
+                                         @Value("${game.events.partitions.retention-months:0}") int retentionMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        Gauge.builder("game.events.partitions.default.rows", defaultRows, AtomicLong::get)
+                .description("Game events outside every monthly partition as of the last maintenance run")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${game.events.partitions.cron:0 15 3 * * *}")
+    public void maintain() {
+        try {
+            YearMonth now = YearMonth.now();
+            for (int i = 0; i <= monthsAhead; i++) {
+                jdbcTemplate.queryForObject("SELECT create_game_event_partition(?)::text", String.class,
+                        now.plusMonths(i).atDay(1));
+            }
+            if (retentionMonths > 0) {
+                dropBefore(now.minusMonths(retentionMonths));
+            }
+            long stray = jdbcTemplate.queryForObject(COUNT_DEFAULT, Long.class);
+            defaultRows.set(stray);
+            if (stray > 0) {
+                log.error("{} game events are in game_event_default, outside every monthly partition", stray);
+            }
+        } catch (DataAccessException e) {
+            log.error("Game event partition maintenance failed", e);
+        }
+    }
+
+    // Drops every partition whose whole month lies before the given one
+    private void dropBefore(YearMonth oldestKept) {
+        List<String> partitions = jdbcTemplate.queryForList(LIST_PARTITIONS, String.class);
+        for (String partition : partitions) {
+            YearMonth month = monthOf(partition);
+            if (month != null && month.isBefore(oldestKept)) {
+                // Identifier comes from the catalog and matched the naming pattern
+                jdbcTemplate.execute("DROP TABLE " + partition);
+                log.info("Dropped game event partition {}", partition);
+            }
+        }
+    }
+
+    private static YearMonth monthOf(String partition) {
+        if (!partition.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(partition.substring(PARTITION_PREFIX.length()), PARTITION_MONTH);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.bronzejade.game.service;
+
+import com.bronzejade.game.domain.GameSession;
+import com.bronzejade.game.domain.RoomStatus;
+import com.bronzejade.game.domain.TurnPhase;
+import com.bronzejade.game.repositories.GameStateRepository;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds one GameSession per room. Sessions are built from the database on first
+ * use (or after a restart) and evicted whenever the room changes outside of the
+ * turn flow, so they are rebuilt with fresh data on the next frame. A load is one
+ * statement, the room's game context; the character set comes from CharacterSetService.
+ */
+@Service
+@Slf4j
+public class GameSessionRegistry {
+
+    private final Map<UUID, GameSession> sessions = new ConcurrentHashMap<>();
+
+    private final GameStateRepository gameStateRepo;
+    private final CharacterSetService characterSetService;
+    private final GameStateWriteBehind writeBehind;
+    private final TransactionTemplate primaryTransaction;
+
+    public GameSessionRegistry(GameStateRepository gameStateRepo,
+                               CharacterSetService characterSetService,
+                               GameStateWriteBehind writeBehind,
+                               PlatformTransactionManager transactionManager) {
+        this.gameStateRepo = gameStateRepo;
+        this.characterSetService = characterSetService;
+        this.writeBehind = writeBehind;
+        // Not read-only: those may be served by the replica, and this must see the latest writes
+        this.primaryTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    public GameSession get(UUID roomId) {
+        GameSession session = sessions.get(roomId);
+        if (session != null) {
+            return session;
+        }
+        GameSession loaded = load(roomId);
+        GameSession existing = sessions.putIfAbsent(roomId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    /**
+     * Drops the cached session. When called inside a transaction the session is
+     * dropped again after commit so a concurrent reload cannot keep stale data.
+     */
+    public void evict(UUID roomId) {
+        sessions.remove(roomId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    sessions.remove(roomId);
+                }
+            });
+        }
+    }
+
+    /**
+     * Moves the session to the given turn, first persisting it with a compare-and-set
+     * against the turn the session holds. Callers must hold the session's lock. If the
+     * database has moved on (another node played the turn, or the room was changed
+     * outside the session) nothing is applied, the session is evicted so the next frame
+     * reloads it, and an OptimisticLockingFailureException is thrown.
+     */
+    public void advanceTurn(GameSession session, UUID turnPlayerId, TurnPhase turnPhase, int roundNumber) {
+        checkApplied(session, gameStateRepo.compareAndSetTurn(session.getGameStateId(),
+                session.getTurnPlayerId(), session.getTurnPhase().name(), session.getRoundNumber(),
+                turnPlayerId, turnPhase.name(), roundNumber));
+        session.setTurnPlayerId(turnPlayerId);
+        session.setTurnPhase(turnPhase);
+        session.setRoundNumber(roundNumber);
+    }
+
+    // Like advanceTurn, for the guess that ends the game
+    public void finish(GameSession session, UUID winnerId) {
+        checkApplied(session, gameStateRepo.compareAndSetWinner(session.getGameStateId(),
+                session.getTurnPlayerId(), session.getTurnPhase().name(), session.getRoundNumber(), winnerId));
+        session.setStatus(RoomStatus.FINISHED);
+        session.setWinnerId(winnerId);
+    }
+
+    private void checkApplied(GameSession session, int updatedRows) {
+        if (updatedRows == 0) {
+            evict(session.getRoomId());
+            throw new OptimisticLockingFailureException("Game state changed concurrently, please retry");
+        }
+    }
+
+    private GameSession load(UUID roomId) {
+        // Make sure our own queued writes are visible before reading them back
+        writeBehind.flush();
+        log.debug("Loading game session for room {}", roomId);
+
+        return primaryTransaction.execute(status -> {
+            List<GameStateRepository.GameContextRow> rows = gameStateRepo.findGameContext(roomId);
+            if (rows.isEmpty()) {
+                throw new EntityNotFoundException("Game state not found for room: " + roomId);
+            }
+            GameStateRepository.GameContextRow context = rows.get(0);
+
+            Map<UUID, GameSession.Player> players = new HashMap<>();
+            for (GameStateRepository.GameContextRow row : rows) {
+                if (row.getRoomPlayerId() != null) {
+                    players.put(row.getUserId(),
+                            new GameSession.Player(row.getRoomPlayerId(), row.getUserId(), row.getCharacterId()));
+                }
+            }
+
+            GameSession session = new GameSession(roomId, context.getGameStateId(),
+                    Map.copyOf(players), characterSetService.getView(context.getCharacterSetId()));
+            session.setStatus(context.getRoomStatus());
+            session.setTurnPlayerId(context.getTurnPlayerId());
+            session.setTurnPhase(context.getTurnPhase() != null ? context.getTurnPhase() : TurnPhase.ASKING);
+            session.setRoundNumber(context.getRoundNumber() != null ? context.getRoundNumber() : 0);
+            session.setWinnerId(context.getWinnerId());
+            session.setCurrentActionId(context.getCurrentActionId());
+            return session;
+        });
+    }
+}
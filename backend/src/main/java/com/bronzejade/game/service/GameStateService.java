@@ -1,17 +1,10 @@
 package com.bronzejade.game.service;
 
+import com.bronzejade.game.domain.GameSession;
 import com.bronzejade.game.domain.RoomStatus;
 import com.bronzejade.game.domain.TurnPhase;
-import com.bronzejade.game.domain.entities.GameAction;
-import com.bronzejade.game.domain.entities.GameState;
-import com.bronzejade.game.domain.entities.Room;
-import com.bronzejade.game.domain.entities.User;
-import com.bronzejade.game.domain.entities.RoomPlayer;
-import com.bronzejade.game.repositories.*;
 import jakarta.persistence.EntityNotFoundException;
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import java.util.UUID;
 
@@ -19,93 +12,79 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class GameStateService {
 
-    private final RoomRepository roomRepo;
-    private final GameStateRepository gameStateRepo;
-    private final RoomPlayerRepository roomPlayerRepo;
-    private final UserRepository userRepo;
-    private final GameActionRepository gameActionRepository;
-
-    @Transactional
-    public void submitQuestion(String question, UUID roomId, UUID userId) {  // Remove guestSessionId parameter
-        Room room = roomRepo.findById(roomId)
-                .orElseThrow(() -> new EntityNotFoundException("Room not found with id: " + roomId));
-
-        GameState gameState = gameStateRepo.findByRoomId(roomId)
-                .orElseThrow(() -> new EntityNotFoundException("Game state not found"));
-
-        // Simplified player lookup
-        User user = userRepo.findById(userId)
-                .orElseThrow(() -> new EntityNotFoundException("User not found"));
-        RoomPlayer player = roomPlayerRepo.findByRoomIdAndUser(roomId, user)
-                .orElseThrow(() -> new EntityNotFoundException("Player not found in room"));
-
-        // Room should be in progress state in order to submit a question
-        if (room.getStatus() != RoomStatus.IN_PROGRESS) {
-            throw new IllegalArgumentException("Room is not in progress");
-        }
-        if (!gameState.getTurnPlayer().getId().equals(player.getId())) {
-            throw new IllegalArgumentException("Not user's turn to ask");
+    private final GameSessionRegistry sessionRegistry;
+    private final GameStateWriteBehind writeBehind;
+
+    public void submitQuestion(String question, UUID roomId, UUID userId) {
+        GameSession session = sessionRegistry.get(roomId);
+
+        session.lock();
+        try {
+            GameSession.Player player = session.findPlayer(userId)
+                    .orElseThrow(() -> new EntityNotFoundException("Player not found in room"));
+
+            // Room should be in progress state in order to submit a question
+            if (session.getStatus() != RoomStatus.IN_PROGRESS) {
+                throw new IllegalArgumentException("Room is not in progress");
+            }
+            if (!player.roomPlayerId().equals(session.getTurnPlayerId())) {
+                throw new IllegalArgumentException("Not user's turn to ask");
+            }
+            if (session.getTurnPhase() != TurnPhase.ASKING) {
+                throw new IllegalArgumentException("Not in ASKING phase");
+            }
+
+            sessionRegistry.advanceTurn(session, player.roomPlayerId(), TurnPhase.ANSWERING, session.getRoundNumber());
+            UUID questionId = UUID.randomUUID();
+            session.setCurrentActionId(questionId);
+            writeBehind.questionAsked(session, questionId, player.roomPlayerId(), question);
+            writeBehind.turnChanged(session);
+        } finally {
+            session.unlock();
         }
-        if (!gameState.getTurnPhase().equals(TurnPhase.ASKING)) {
-            throw new IllegalArgumentException("Not in ASKING phase");
-        }
-
-        GameAction gameAction = new GameAction();
-        gameAction.setGameState(gameState);
-        gameAction.setAskingPlayer(player);
-        gameAction.setQuestion(question);
-        gameAction.setRoundNumber(gameState.getRoundNumber());
-
-        gameActionRepository.save(gameAction);
-
-        gameState.setTurnPhase(TurnPhase.ANSWERING);
-        gameStateRepo.save(gameState);
     }
 
-    @Transactional
-    public void submitAnswer(String answer, UUID roomId, UUID userId) {  // Remove guestSessionId parameter
-        Room room = roomRepo.findById(roomId)
-                .orElseThrow(() -> new EntityNotFoundException("Room not found with id: " + roomId));
-
-        GameState gameState = gameStateRepo.findByRoomId(roomId)
-                .orElseThrow(() -> new EntityNotFoundException("Game state not found"));
-
-        // Simplified player lookup - no more helper method needed
-        User user = userRepo.findById(userId)
-                .orElseThrow(() -> new EntityNotFoundException("User not found"));
-        RoomPlayer player = roomPlayerRepo.findByRoomIdAndUser(roomId, user)
-                .orElseThrow(() -> new EntityNotFoundException("Player not found in room"));
-
-        // Room should be in progress state in order to submit an answer
-        if (room.getStatus() != RoomStatus.IN_PROGRESS) {
-            throw new IllegalArgumentException("Room is not in progress");
+    public void submitAnswer(String answer, UUID roomId, UUID userId) {
+        GameSession session = sessionRegistry.get(roomId);
+
+        session.lock();
+        try {
+            GameSession.Player player = session.findPlayer(userId)
+                    .orElseThrow(() -> new EntityNotFoundException("Player not found in room"));
+
+            // Room should be in progress state in order to submit an answer
+            if (session.getStatus() != RoomStatus.IN_PROGRESS) {
+                throw new IllegalArgumentException("Room is not in progress");
+            }
+
+        /*
+          Counterintuitive, but turn player shows who was asking a question during Asking phase
+          So when it switches to Answer phase turn player doesn't change
+          So turn player should not be equal to player who answered a question (current player)
+         */
+            if (player.roomPlayerId().equals(session.getTurnPlayerId())) {
+                throw new IllegalArgumentException("Not user's turn to answer");
+            }
+
+            if (session.getTurnPhase() != TurnPhase.ANSWERING) {
+                throw new IllegalArgumentException("Not in ANSWERING phase");
+            }
+
+            UUID actionId = session.getCurrentActionId();
+            if (actionId == null) {
+                // The question was asked elsewhere and its event was not written yet when we loaded
+                sessionRegistry.evict(roomId);
+                throw new EntityNotFoundException("Game action not found");
+            }
+
+            // Finally switch turns
+            int roundNumber = session.getRoundNumber();
+            sessionRegistry.advanceTurn(session, player.roomPlayerId(), TurnPhase.ASKING, roundNumber + 1);
+            session.setCurrentActionId(null);
+            writeBehind.answerGiven(session, roundNumber, actionId, player.roomPlayerId(), answer);
+            writeBehind.turnChanged(session);
+        } finally {
+            session.unlock();
         }
-
-    /*
-      Counterintuitive, but turn player shows who was asking a question during Asking phase
-      So when it switches to Answer phase turn player doesn't change
-      So turn player should not be equal to player who answered a question (current player)
-     */
-        if (gameState.getTurnPlayer().getId().equals(player.getId())) {
-            throw new IllegalArgumentException("Not user's turn to answer");
-        }
-
-        if (!gameState.getTurnPhase().equals(TurnPhase.ANSWERING)) {
-            throw new IllegalArgumentException("Not in ANSWERING phase");
-        }
-
-        GameAction gameAction = gameActionRepository
-                .findByGameState_IdAndRoundNumber(gameState.getId(), gameState.getRoundNumber())
-                .orElseThrow(() -> new EntityNotFoundException("Game action not found"));
-        gameAction.setAnswer(answer);
-        gameAction.setAnsweringPlayer(player);
-        gameActionRepository.save(gameAction);
-
-        gameState.setTurnPhase(TurnPhase.ASKING);
-
-        // Finally switch turns
-        gameState.setTurnPlayer(player);
-        gameState.setRoundNumber((gameState.getRoundNumber() == null ? 0 : gameState.getRoundNumber()) + 1);
-        gameStateRepo.save(gameState);
     }
 }
@@ -0,0 +1,216 @@
+package com.bronzejade.game.service;
+
+import com.bronzejade.game.domain.GameSession;
+import com.bronzejade.game.domain.RoomStatus;
+import com.bronzejade.game.domain.entities.GameHistoryEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Queues game mutations made against in-memory sessions and writes them in JDBC
+ * batches on a fixed interval: the game's history as inserts into the append-only
+ * game_event table, and the room's final status. Turn transitions on game_state are
+ * not queued: GameSessionRegistry compare-and-sets them synchronously.
+ *
+ * Nothing is dropped because the database is briefly unavailable: on a connection or
+ * other transient failure the unwritten rows go back to the head of the queue and the
+ * next flush tries again. A row the database rejects is retried on the next few flushes
+ * and only then dropped, counted in game.session.writes.dropped and logged with its values.
+ */
+@Component
+@Slf4j
+public class GameStateWriteBehind {
+
+    private static final String INSERT_EVENT =
+            "INSERT INTO game_event (id, room_id, game_state_id, round_number, type, player_id, text, target_id, created_at)"
+                    + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String FINISH_ROOM =
+            "UPDATE rooms SET status = ?, finished_at = ?, version = version + 1 WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Deque<PendingWrite> pending = new ConcurrentLinkedDeque<>();
+    // A lock rather than synchronized: flushes do JDBC and must not pin a virtual thread's carrier
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final int maxBatchSize;
+    private final int maxAttempts;
+    private final Counter dropped;
+
+    public GameStateWriteBehind(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${game.session.flush-batch-size:500}") int maxBatchSize,
+                                @Value("${game.session.write-attempts:5}") int maxAttempts) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxBatchSize = maxBatchSize;
+        this.maxAttempts = maxAttempts;
+        Gauge.builder("game.session.writes.pending", pending, Deque::size)
+                .description("Game writes queued for the next flush")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("game.session.writes.dropped")
+                .description("Game writes the database kept rejecting, given up on")
+                .register(meterRegistry);
+    }
+
+    public void questionAsked(GameSession session, UUID questionId, UUID askingPlayerId, String question) {
+        event(questionId, session, session.getRoundNumber(), GameHistoryEvent.Type.QUESTION,
+                askingPlayerId, question, null);
+    }
+
+    public void answerGiven(GameSession session, int roundNumber, UUID questionId, UUID answeringPlayerId,
+                            String answer) {
+        event(UUID.randomUUID(), session, roundNumber, GameHistoryEvent.Type.ANSWER,
+                answeringPlayerId, answer, questionId);
+    }
+
+    public void guessMade(GameSession session, UUID guessingPlayerId, UUID characterId) {
+        event(UUID.randomUUID(), session, session.getRoundNumber(), GameHistoryEvent.Type.GUESS,
+                guessingPlayerId, null, characterId);
+    }
+
+    // Records the turn the session is now at
+    public void turnChanged(GameSession session) {
+        event(UUID.randomUUID(), session, session.getRoundNumber(), GameHistoryEvent.Type.TURN_CHANGE,
+                session.getTurnPlayerId(), session.getTurnPhase().name(), null);
+    }
+
+    public void gameFinished(GameSession session, UUID winnerPlayerId, LocalDateTime finishedAt) {
+        event(UUID.randomUUID(), session, session.getRoundNumber(), GameHistoryEvent.Type.GAME_FINISHED,
+                winnerPlayerId, null, null);
+        enqueue(FINISH_ROOM, RoomStatus.FINISHED.name(), finishedAt, session.getRoomId());
+    }
+
+    private void event(UUID id, GameSession session, int roundNumber, GameHistoryEvent.Type type,
+                       UUID playerId, String text, UUID targetId) {
+        enqueue(INSERT_EVENT, id, session.getRoomId(), session.getGameStateId(), roundNumber, type.name(),
+                playerId, text, targetId, LocalDateTime.now());
+    }
+
+    private void enqueue(String sql, Object... args) {
+        pending.add(new PendingWrite(sql, args, 0));
+    }
+
+    /**
+     * Drains the queue and writes everything in one transaction, grouping consecutive
+     * writes with the same statement into a single JDBC batch so ordering is preserved.
+     * Returns early, leaving the rest queued, when the database is unavailable.
+     */
+    @Scheduled(fixedDelayString = "${game.session.flush-interval-ms:100}")
+    public void flush() {
+        flushLock.lock();
+        // Rejected rows wait for the next flush rather than being retried straight away
+        List<PendingWrite> retries = new ArrayList<>();
+        try {
+            while (!pending.isEmpty()) {
+                List<PendingWrite> drained = new ArrayList<>();
+                PendingWrite write;
+                while (drained.size() < maxBatchSize && (write = pending.poll()) != null) {
+                    drained.add(write);
+                }
+                try {
+                    transactionTemplate.executeWithoutResult(status -> writeBatched(drained));
+                } catch (DataAccessException e) {
+                    if (isUnavailable(e)) {
+                        requeue(drained);
+                        log.warn("Database unavailable, keeping {} game writes queued", pending.size(), e);
+                        return;
+                    }
+                    // One bad row (e.g. its room was deleted meanwhile) must not take the whole batch down
+                    log.warn("Batched game write failed, retrying {} writes one by one", drained.size(), e);
+                    for (int i = 0; i < drained.size(); i++) {
+                        if (!writeSingle(drained.get(i), retries)) {
+                            requeue(drained.subList(i, drained.size()));
+                            return;
+                        }
+                    }
+                }
+            }
+        } finally {
+            pending.addAll(retries);
+            flushLock.unlock();
+        }
+    }
+
+    private void writeBatched(List<PendingWrite> writes) {
+        int start = 0;
+        while (start < writes.size()) {
+            String sql = writes.get(start).sql();
+            int end = start;
+            List<Object[]> args = new ArrayList<>();
+            while (end < writes.size() && writes.get(end).sql().equals(sql)) {
+                args.add(writes.get(end).args());
+                end++;
+            }
+            jdbcTemplate.batchUpdate(sql, args);
+            start = end;
+        }
+    }
+
+    // False if the database is unavailable; the write was not consumed
+    private boolean writeSingle(PendingWrite write, List<PendingWrite> retries) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(write.sql(), write.args()));
+        } catch (DataAccessException e) {
+            if (isUnavailable(e)) {
+                return false;
+            }
+            if (write.attempts() + 1 < maxAttempts) {
+                retries.add(write.retried());
+            } else {
+                dropped.increment();
+                log.error("Dropping game write rejected {} times: {} {}", maxAttempts, write.sql(),
+                        Arrays.toString(write.args()), e);
+            }
+        }
+        return true;
+    }
+
+    private static boolean isUnavailable(DataAccessException e) {
+        return e instanceof TransientDataAccessException || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException;
+    }
+
+    // Back to the head of the queue, in their original order
+    private void requeue(List<PendingWrite> writes) {
+        for (int i = writes.size() - 1; i >= 0; i--) {
+            pending.addFirst(writes.get(i));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        if (!pending.isEmpty()) {
+            log.error("Shutting down with {} game writes that could not be persisted", pending.size());
+        }
+    }
+
+    private record PendingWrite(String sql, Object[] args, int attempts) {
+
+        PendingWrite retried() {
+            return new PendingWrite(sql, args, attempts + 1);
+        }
+    }
+}
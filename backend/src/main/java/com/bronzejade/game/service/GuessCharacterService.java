@@ -1,129 +1,104 @@
 package com.bronzejade.game.service;
 
-import com.bronzejade.game.repositories.RoomRepository;
-import com.bronzejade.game.repositories.UserRepository;
-import com.bronzejade.game.domain.entities.User;
 import java.util.UUID;
 import java.time.LocalDateTime;
-import java.util.List;
-import com.bronzejade.game.domain.entities.GameState;
-import com.bronzejade.game.domain.entities.RoomPlayer;
+import com.bronzejade.game.domain.GameSession;
 import com.bronzejade.game.domain.RoomStatus;
 import com.bronzejade.game.domain.TurnPhase;
 import jakarta.persistence.EntityNotFoundException;
-import org.springframework.transaction.annotation.Transactional;
-import com.bronzejade.game.repositories.GameStateRepository;
-import com.bronzejade.game.repositories.RoomPlayerRepository;
 import com.bronzejade.game.domain.dtos.Character.GuessCharacterResponse;
-import com.bronzejade.game.domain.entities.Character;
 import org.springframework.stereotype.Service;
-import com.bronzejade.game.domain.entities.CharacterSet;
-import com.bronzejade.game.domain.entities.Room;
 import lombok.RequiredArgsConstructor;
 
 @Service
 @RequiredArgsConstructor
 public class GuessCharacterService {
-    private final RoomRepository roomRepo;
-    private final RoomPlayerRepository roomPlayerRepo;
-    private final GameStateRepository gameStateRepo;
-    private final UserRepository userRepo;
+    private final GameSessionRegistry sessionRegistry;
+    private final GameStateWriteBehind writeBehind;
 
-    @Transactional
     public GuessCharacterResponse guessCharacter(UUID roomId, UUID userId, UUID guessedCharacterId) {
-        Room room = roomRepo.findById(roomId)
-                .orElseThrow(() -> new EntityNotFoundException("Room not found with id: " + roomId));
-
-        if (room.getStatus() != RoomStatus.IN_PROGRESS) {
-            throw new IllegalArgumentException("Game is not in progress");
-        }
-
-        GameState gameState = gameStateRepo.findByRoomId(roomId)
-                .orElseThrow(() -> new EntityNotFoundException("Game state not found"));
-
-        // Simplified player lookup - no more helper method
-        User user = userRepo.findById(userId)
-                .orElseThrow(() -> new EntityNotFoundException("User not found"));
-        RoomPlayer guessingPlayer = roomPlayerRepo.findByRoomIdAndUser(roomId, user)
-                .orElseThrow(() -> new EntityNotFoundException("Player not found in room"));
-
-        // I am making essentially three checks here which determine whether,
-        // the player can guess or not
-
-        // CHECK 1: Turn player must exist
-        if (gameState.getTurnPlayer() == null) {
-            throw new IllegalArgumentException("Turn player not set");
-        }
-
-        // CHECK 2: Must be the player's turn (who can guess?)
-        if (!gameState.getTurnPlayer().getId().equals(guessingPlayer.getId())) {
-            throw new IllegalArgumentException("Not user's turn to guess");
-        }
-
-        // CHECK 3: Must be ASKING phase (when they can guess?)
-        if (!gameState.getTurnPhase().equals(TurnPhase.ASKING)) {
-            throw new IllegalArgumentException("Not in ASKING phase");
-        }
-
-        // Filtering out the opponent player
-        List<RoomPlayer> allPlayers = roomPlayerRepo.findByRoomId(roomId);
-        RoomPlayer opponentPlayer = allPlayers.stream()
-                .filter(p -> !p.getId().equals(guessingPlayer.getId()))
-                .findFirst()
-                .orElseThrow(() -> new EntityNotFoundException("Opponent not found"));
-
-        // Validate the guessed character exists in the character set
-        CharacterSet characterSet = room.getCharacterSet();
-        Character guessedCharacter = characterSet.getCharacters().stream()
-                .filter(c -> c.getId().equals(guessedCharacterId))
-                .findFirst()
-                .orElseThrow(() -> new EntityNotFoundException("Guessed character not found in character set"));
-
-        // Get the opponent's actual character
-        Character actualCharacter = opponentPlayer.getCharacterToGuess();
-        if (actualCharacter == null) {
-            throw new IllegalArgumentException("Opponent hasn't selected a character");
-        }
-
-        // Check if the guess is correct
-        boolean isCorrect = actualCharacter.getId().equals(guessedCharacterId);
-
-        GuessCharacterResponse response = GuessCharacterResponse.builder()
-                .correct(isCorrect)
-                .guessedCharacterId(guessedCharacter.getId())
-                .guessedCharacterName(guessedCharacter.getName())
-                .actualCharacterId(actualCharacter.getId())
-                .actualCharacterName(actualCharacter.getName())
-                .build();
-
-        if (isCorrect) {
-            // End the game if player guesses correctly
-            room.setStatus(RoomStatus.FINISHED);
-            room.setFinishedAt(LocalDateTime.now());
-
-            // Set winner ID - always a User ID now
-            UUID winnerId = guessingPlayer.getUser().getId();
-            gameState.setWinnerId(winnerId);
-
-            gameStateRepo.save(gameState);
-            roomRepo.save(room);
-
-            return response.toBuilder()
-                    .gameEnded(true)
-                    .winnerId(winnerId)
-                    .message("Correct! You've won the game!")
-                    .build();
-        } else {
-            // If it's a wrong guess, switch turns
-            gameState.setTurnPlayer(opponentPlayer);
-            gameState.setTurnPhase(TurnPhase.ASKING);
-            gameStateRepo.save(gameState);
-
-            return response.toBuilder()
-                    .gameEnded(false)
-                    .winnerId(null)
-                    .message("Wrong guess! Turn passes to opponent.")
+        GameSession session = sessionRegistry.get(roomId);
+
+        session.lock();
+        try {
+            if (session.getStatus() != RoomStatus.IN_PROGRESS) {
+                throw new IllegalArgumentException("Game is not in progress");
+            }
+
+            GameSession.Player guessingPlayer = session.findPlayer(userId)
+                    .orElseThrow(() -> new EntityNotFoundException("Player not found in room"));
+
+            // I am making essentially three checks here which determine whether,
+            // the player can guess or not
+
+            // CHECK 1: Turn player must exist
+            if (session.getTurnPlayerId() == null) {
+                throw new IllegalArgumentException("Turn player not set");
+            }
+
+            // CHECK 2: Must be the player's turn (who can guess?)
+            if (!session.getTurnPlayerId().equals(guessingPlayer.roomPlayerId())) {
+                throw new IllegalArgumentException("Not user's turn to guess");
+            }
+
+            // CHECK 3: Must be ASKING phase (when they can guess?)
+            if (session.getTurnPhase() != TurnPhase.ASKING) {
+                throw new IllegalArgumentException("Not in ASKING phase");
+            }
+
+            // Filtering out the opponent player
+            GameSession.Player opponentPlayer = session.findOpponent(guessingPlayer.roomPlayerId())
+                    .orElseThrow(() -> new EntityNotFoundException("Opponent not found"));
+
+            // Validate the guessed character exists in the character set
+            String guessedCharacterName = session.getCharacterSet().nameOf(guessedCharacterId);
+            if (guessedCharacterName == null) {
+                throw new EntityNotFoundException("Guessed character not found in character set");
+            }
+
+            // Get the opponent's actual character
+            UUID actualCharacterId = opponentPlayer.characterId();
+            if (actualCharacterId == null) {
+                throw new IllegalArgumentException("Opponent hasn't selected a character");
+            }
+
+            // Check if the guess is correct
+            boolean isCorrect = actualCharacterId.equals(guessedCharacterId);
+
+            GuessCharacterResponse response = GuessCharacterResponse.builder()
+                    .correct(isCorrect)
+                    .guessedCharacterId(guessedCharacterId)
+                    .guessedCharacterName(guessedCharacterName)
+                    .actualCharacterId(actualCharacterId)
+                    .actualCharacterName(session.getCharacterSet().nameOf(actualCharacterId))
                     .build();
+
+            if (isCorrect) {
+                // End the game if player guesses correctly
+                // Set winner ID - always a User ID now
+                UUID winnerId = guessingPlayer.userId();
+                sessionRegistry.finish(session, winnerId);
+                writeBehind.guessMade(session, guessingPlayer.roomPlayerId(), guessedCharacterId);
+                writeBehind.gameFinished(session, guessingPlayer.roomPlayerId(), LocalDateTime.now());
+
+                return response.toBuilder()
+                        .gameEnded(true)
+                        .winnerId(winnerId)
+                        .build();
+            } else {
+                // If it's a wrong guess, switch turns
+                sessionRegistry.advanceTurn(session, opponentPlayer.roomPlayerId(), TurnPhase.ASKING,
+                        session.getRoundNumber());
+                writeBehind.guessMade(session, guessingPlayer.roomPlayerId(), guessedCharacterId);
+                writeBehind.turnChanged(session);
+
+                return response.toBuilder()
+                        .gameEnded(false)
+                        .winnerId(null)
+                        .build();
+            }
+        } finally {
+            session.unlock();
         }
     }
-}
\ No newline at end of file
+}
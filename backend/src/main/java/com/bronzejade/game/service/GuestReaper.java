@@ -0,0 +1,99 @@
+package com.bronzejade.game.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Deletes guest users that have not created or joined a room for longer than max-idle.
+ * A guest still seated in a room, or hosting one, is left alone whatever its age:
+ * deleting it would cascade into that room's players and, through turn_player_id, its
+ * game state. Those rooms are removed by RoomReaper, after which the guest goes too.
+ *
+ * Like RoomReaper it works in bounded chunks claimed with FOR UPDATE SKIP LOCKED. A
+ * guest whose token outlives its row simply gets a new row on its next create or join.
+ */
+@Component
+@ConditionalOnProperty(name = "game.users.guest-reaper.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class GuestReaper {
+
+    private static final String CLAIM = """
+            SELECT u.id FROM users u
+            WHERE u.is_guest AND u.last_active_at < :cutoff
+              AND NOT EXISTS (SELECT 1 FROM room_players rp WHERE rp.user_id = u.id)
+              AND NOT EXISTS (SELECT 1 FROM rooms r WHERE r.host_id = u.id)
+            ORDER BY u.last_active_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """;
+    private static final String DELETE = "DELETE FROM users WHERE id IN (:ids)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration maxIdle;
+    private final int chunkSize;
+    private final int maxChunks;
+    private final DistributionSummary reapedPerRun;
+
+    public GuestReaper(NamedParameterJdbcTemplate jdbcTemplate,
+                       PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry,
+                       @Value("${game.users.guest-reaper.max-idle:P1D}") Duration maxIdle,
+                       @Value("${game.users.guest-reaper.chunk-size:500}") int chunkSize,
+                       @Value("${game.users.guest-reaper.max-chunks:20}") int maxChunks) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxIdle = maxIdle;
+        this.chunkSize = chunkSize;
+        this.maxChunks = maxChunks;
+        this.reapedPerRun = DistributionSummary.builder("game.users.guests.reaped")
+                .description("Idle guest users deleted per reaper run")
+                .baseUnit("users")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${game.users.guest-reaper.interval:PT1H}",
+            initialDelayString = "${game.users.guest-reaper.initial-delay:PT2M}")
+    public void reap() {
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minus(maxIdle);
+            int total = 0;
+            for (int chunk = 0; chunk < maxChunks; chunk++) {
+                int deleted = transactionTemplate.execute(tx -> reapChunk(cutoff));
+                total += deleted;
+                if (deleted < chunkSize) {
+                    break;
+                }
+            }
+            reapedPerRun.record(total);
+            if (total > 0) {
+                log.info("Reaped {} idle guest users", total);
+            }
+        } catch (DataAccessException e) {
+            log.error("Guest reaping failed", e);
+        }
+    }
+
+    private int reapChunk(LocalDateTime cutoff) {
+        List<UUID> ids = jdbcTemplate.query(CLAIM, new MapSqlParameterSource()
+                        .addValue("cutoff", cutoff)
+                        .addValue("limit", chunkSize),
+                (row, i) -> row.getObject(1, UUID.class));
+        return ids.isEmpty() ? 0 : jdbcTemplate.update(DELETE, new MapSqlParameterSource("ids", ids));
+    }
+}
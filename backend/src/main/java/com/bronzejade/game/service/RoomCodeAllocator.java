@@ -0,0 +1,319 @@
+package com.bronzejade.game.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Hands out room codes from a pool of codes already checked against the rooms table,
+ * so creating a room never trips the room_code unique constraint. The pool is topped
+ * up on a background thread whenever it runs low.
+ *
+ * Codes in use are tracked in a bitmap over the whole 32^6 code space, split into
+ * pages that are only allocated once a code in them is taken. Codes of deleted rooms
+ * are released back into it. With several nodes, each one draws only the codes whose
+ * index falls into its own residue class (node-index of node-count), so two nodes
+ * never pick the same code between their checks.
+ *
+ * The codes of existing rooms are loaded once, by the first refill on the background
+ * thread, and merged into the bitmap only after the scan. Until then allocate waits for
+ * that refill instead of querying itself.
+ */
+@Service
+@Slf4j
+public class RoomCodeAllocator {
+
+    static final String ALPHABET = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789";
+    static final int CODE_LENGTH = 6;
+    static final int CODE_SPACE = 1 << (5 * CODE_LENGTH);
+
+    private static final int PAGE_BITS = 16;
+    private static final int PAGE_MASK = (1 << PAGE_BITS) - 1;
+    private static final String FIND_TAKEN = "SELECT room_code FROM rooms WHERE room_code IN (:codes)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final int nodeIndex;
+    private final int nodeCount;
+    private final BlockingQueue<String> pool;
+    private final int lowWater;
+    private final long[][] pages = new long[CODE_SPACE >>> PAGE_BITS][];
+    private final ExecutorService refiller = Executors.newSingleThreadExecutor(
+            new CustomizableThreadFactory("room-code-refill-"));
+    private final AtomicBoolean refillQueued = new AtomicBoolean();
+    private final Duration loadTimeout;
+    private volatile boolean loaded;
+
+    public RoomCodeAllocator(NamedParameterJdbcTemplate jdbcTemplate,
+                             MeterRegistry meterRegistry,
+                             @Value("${game.rooms.codes.pool-size:256}") int poolSize,
+                             @Value("${game.rooms.codes.node-index:0}") int nodeIndex,
+                             @Value("${game.rooms.codes.node-count:1}") int nodeCount,
+                             @Value("${game.broker.mode:simple}") String brokerMode,
+                             @Value("${game.rooms.codes.load-timeout:PT10S}") Duration loadTimeout) {
+        if (nodeCount < 1 || nodeCount > CODE_SPACE) {
+            throw new IllegalArgumentException(
+                    "game.rooms.codes.node-count must be in [1, " + CODE_SPACE + "], was " + nodeCount);
+        }
+        if (nodeIndex < 0 || nodeIndex >= nodeCount) {
+            throw new IllegalArgumentException("game.rooms.codes.node-index must be in [0, " + nodeCount
+                    + ") for node-count " + nodeCount + ", was " + nodeIndex);
+        }
+        if (nodeCount == 1 && "relay".equalsIgnoreCase(brokerMode)) {
+            // Only the insert's unique constraint then keeps two nodes from handing out one code
+            log.warn("The broker relay is on but game.rooms.codes.node-count is 1: give every node "
+                    + "the same node-count and its own node-index, or their room codes can collide");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.nodeIndex = nodeIndex;
+        this.nodeCount = nodeCount;
+        this.loadTimeout = loadTimeout;
+        this.pool = new ArrayBlockingQueue<>(poolSize);
+        this.lowWater = poolSize / 4;
+        Gauge.builder("game.rooms.codes.pool.size", pool, BlockingQueue::size)
+                .description("Pre-checked room codes ready to hand out")
+                .register(meterRegistry);
+    }
+
+    /**
+     * A code no other room has, for a room about to be inserted. Only waits on the
+     * database when the pool has run dry. Called inside a transaction, the code is
+     * released again if that transaction rolls back.
+     */
+    public String allocate() {
+        String code = pool.poll();
+        if (pool.size() < lowWater) {
+            requestRefill();
+        }
+        String allocated = code != null ? code : awaitCode();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        release(allocated);
+                    }
+                }
+            });
+        }
+        return allocated;
+    }
+
+    // The room holding this code is deleted; inside a transaction, once it commits
+    public void releaseAfterCommit(String code) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    release(code);
+                }
+            });
+        } else {
+            release(code);
+        }
+    }
+
+    // The room holding this code is gone; the code may be handed out again
+    public void release(String code) {
+        int index = indexOf(code);
+        if (index < 0) {
+            return;
+        }
+        synchronized (this) {
+            long[] page = pages[index >>> PAGE_BITS];
+            if (page != null) {
+                int bit = index & PAGE_MASK;
+                page[bit >>> 6] &= ~(1L << bit);
+            }
+        }
+    }
+
+    // The pool ran dry. Before the first refill has loaded the taken codes only it can hand any out
+    private String awaitCode() {
+        if (loaded) {
+            return checkedBatch(1).get(0);
+        }
+        requestRefill();
+        try {
+            String code = pool.poll(loadTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            if (code != null) {
+                return code;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        throw new IllegalStateException("Room codes are not available yet, the taken codes are still loading");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void requestRefill() {
+        if (refillQueued.compareAndSet(false, true)) {
+            refiller.execute(() -> {
+                refillQueued.set(false);
+                try {
+                    refill();
+                } catch (DataAccessException e) {
+                    log.warn("Could not refill the room code pool", e);
+                }
+            });
+        }
+    }
+
+    void refill() {
+        loadTakenCodes();
+        int missing = pool.remainingCapacity();
+        if (missing > 0) {
+            checkedBatch(missing).forEach(pool::offer);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        refiller.shutdownNow();
+    }
+
+    // Draws count free codes, marks them used and drops any the database already has
+    private List<String> checkedBatch(int count) {
+        List<String> codes = new ArrayList<>(count);
+        while (codes.size() < count) {
+            List<String> candidates = reserve(count - codes.size());
+            Set<String> taken = new HashSet<>(jdbcTemplate.queryForList(FIND_TAKEN,
+                    Map.of("codes", candidates), String.class));
+            for (String candidate : candidates) {
+                if (!taken.contains(candidate)) {
+                    codes.add(candidate);
+                }
+            }
+        }
+        return codes;
+    }
+
+    private synchronized List<String> reserve(int count) {
+        List<String> codes = new ArrayList<>(count);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int slots = (CODE_SPACE - nodeIndex + nodeCount - 1) / nodeCount;
+        // Random probing only slows down once this node's share is nearly full
+        long attempts = 64L * count + 1024;
+        while (codes.size() < count) {
+            if (attempts-- == 0) {
+                codes.forEach(this::release);
+                throw new IllegalStateException("No free room codes left in this node's share of the code space");
+            }
+            int index = random.nextInt(slots) * nodeCount + nodeIndex;
+            if (markUsed(index)) {
+                codes.add(codeOf(index));
+            }
+        }
+        return codes;
+    }
+
+    /**
+     * Codes of rooms that existed before this node started, other nodes' included. Runs
+     * on the refill thread only; the scan fills a separate bitmap, so allocations and
+     * releases never wait for it, and the monitor is only held to merge the result.
+     */
+    private void loadTakenCodes() {
+        if (loaded) {
+            return;
+        }
+        long[][] taken = new long[pages.length][];
+        jdbcTemplate.getJdbcTemplate().query("SELECT room_code FROM rooms",
+                row -> {
+                    int index = indexOf(row.getString(1));
+                    if (index >= 0) {
+                        markUsed(taken, index);
+                    }
+                });
+        synchronized (this) {
+            for (int pageIndex = 0; pageIndex < taken.length; pageIndex++) {
+                long[] scanned = taken[pageIndex];
+                if (scanned == null) {
+                    continue;
+                }
+                if (pages[pageIndex] == null) {
+                    pages[pageIndex] = scanned;
+                } else {
+                    for (int word = 0; word < scanned.length; word++) {
+                        pages[pageIndex][word] |= scanned[word];
+                    }
+                }
+            }
+            loaded = true;
+        }
+    }
+
+    // False if it was already marked; callers hold the monitor
+    private boolean markUsed(int index) {
+        return markUsed(pages, index);
+    }
+
+    private static boolean markUsed(long[][] pages, int index) {
+        int pageIndex = index >>> PAGE_BITS;
+        long[] page = pages[pageIndex];
+        if (page == null) {
+            page = pages[pageIndex] = new long[(1 << PAGE_BITS) / 64];
+        }
+        int bit = index & PAGE_MASK;
+        long mask = 1L << bit;
+        if ((page[bit >>> 6] & mask) != 0) {
+            return false;
+        }
+        page[bit >>> 6] |= mask;
+        return true;
+    }
+
+    synchronized boolean isUsed(String code) {
+        int index = indexOf(code);
+        long[] page = index >= 0 ? pages[index >>> PAGE_BITS] : null;
+        int bit = index & PAGE_MASK;
+        return page != null && (page[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    static String codeOf(int index) {
+        char[] code = new char[CODE_LENGTH];
+        for (int i = CODE_LENGTH - 1; i >= 0; i--) {
+            code[i] = ALPHABET.charAt(index & 31);
+            index >>>= 5;
+        }
+        return new String(code);
+    }
+
+    // Position of the code in the code space, or -1 if it is not a well-formed code
+    static int indexOf(String code) {
+        if (code == null || code.length() != CODE_LENGTH) {
+            return -1;
+        }
+        int index = 0;
+        for (int i = 0; i < CODE_LENGTH; i++) {
+            int digit = ALPHABET.indexOf(code.charAt(i));
+            if (digit < 0) {
+                return -1;
+            }
+            index = (index << 5) | digit;
+        }
+        return index;
+    }
+}
@@ -0,0 +1,187 @@
+package com.bronzejade.game.service;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongFunction;
+
+/**
+ * Numbers every broadcast of a room (events and state frames share one sequence) and
+ * keeps the most recent ones in a fixed-size ring buffer, so a reconnecting client can
+ * be sent only what it missed. Sequences and buffers live in this JVM. A log is made by
+ * the room's first broadcast; once the game is over its buffer is dropped and only the
+ * last number kept, until the room itself is closed.
+ *
+ * With the broker relay (game.broker.mode=relay) the players of one room may be on
+ * different nodes, each with its own counter, and a client may reconnect to a node
+ * without its buffer. Numbers from separate counters would read as duplicates and
+ * gaps to the client, so in that mode frames go out unsequenced (seq 0, no header)
+ * and nothing is buffered; a resuming client always gets a snapshot.
+ */
+@Component
+public class RoomEventLog {
+
+    public static final String SEQ_HEADER = "seq";
+
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+
+    private final Map<UUID, RoomLog> logs = new ConcurrentHashMap<>();
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final MessageChannel clientOutboundChannel;
+    private final int capacity;
+    private final boolean sequenced;
+
+    public RoomEventLog(SimpMessagingTemplate messagingTemplate,
+                        @Qualifier("clientOutboundChannel") MessageChannel clientOutboundChannel,
+                        @Value("${game.events.replay-buffer-size:64}") int capacity,
+                        @Value("${game.broker.mode:simple}") String brokerMode) {
+        this.messagingTemplate = messagingTemplate;
+        this.clientOutboundChannel = clientOutboundChannel;
+        this.capacity = capacity;
+        this.sequenced = !"relay".equalsIgnoreCase(brokerMode);
+    }
+
+    /**
+     * Sequence number of the room's latest broadcast, 0 if there was none or frames
+     * are unsequenced.
+     */
+    public long current(UUID roomId) {
+        RoomLog log = logs.get(roomId);
+        return log == null ? 0 : log.seq;
+    }
+
+    /**
+     * Takes the next sequence number, builds the payload with it, remembers it and
+     * broadcasts it. Numbering and sending happen under the room's lock so the
+     * broker sees the frames in sequence order.
+     */
+    public void publish(UUID roomId, String destination, LongFunction<Object> payload) {
+        if (!sequenced) {
+            messagingTemplate.convertAndSend(destination, payload.apply(0));
+            return;
+        }
+        RoomLog log = log(roomId);
+        log.lock.lock();
+        try {
+            long seq = log.seq + 1;
+            Object body = payload.apply(seq);
+            if (log.entries.length > 0) {
+                log.entries[(int) (seq % log.entries.length)] = new Entry(seq, destination, body);
+            }
+            log.seq = seq;
+            messagingTemplate.convertAndSend(destination, body, Map.of(SEQ_HEADER, String.valueOf(seq)));
+        } finally {
+            log.lock.unlock();
+        }
+    }
+
+    /**
+     * Sends the broadcasts to {@code destination} numbered after {@code afterSeq} to a
+     * single subscription. Returns false, sending nothing, when some of them already fell
+     * out of the buffer (or the number is from before a restart); the caller should then
+     * fall back to a snapshot.
+     */
+    public boolean replay(UUID roomId, String destination, long afterSeq,
+                          String sessionId, String subscriptionId) {
+        if (!sequenced) {
+            return false;
+        }
+        RoomLog log = logs.get(roomId);
+        if (log == null) {
+            return false;
+        }
+        log.lock.lock();
+        try {
+            if (afterSeq > log.seq || log.seq - afterSeq > log.entries.length) {
+                return false;
+            }
+            List<Entry> missed = new ArrayList<>();
+            for (long seq = afterSeq + 1; seq <= log.seq; seq++) {
+                Entry entry = log.entries[(int) (seq % log.entries.length)];
+                if (entry.destination().equals(destination)) {
+                    missed.add(entry);
+                }
+            }
+            // Still under the lock: nothing newer can overtake the replayed frames
+            for (Entry entry : missed) {
+                sendToSubscription(sessionId, subscriptionId, destination, entry.seq(), entry.payload());
+            }
+            return true;
+        } finally {
+            log.lock.unlock();
+        }
+    }
+
+    /**
+     * Sends a frame to one subscription only, bypassing the broker. A seq of 0 marks an
+     * unsequenced frame and gets no header.
+     */
+    public void sendToSubscription(String sessionId, String subscriptionId, String destination,
+                                   long seq, Object payload) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setSessionId(sessionId);
+        headers.setSubscriptionId(subscriptionId);
+        headers.setDestination(destination);
+        if (seq > 0) {
+            headers.setNativeHeader(SEQ_HEADER, String.valueOf(seq));
+        }
+        headers.setLeaveMutable(true);
+        Message<?> message = messagingTemplate.getMessageConverter().toMessage(payload, headers.getMessageHeaders());
+        if (message != null) {
+            clientOutboundChannel.send(message);
+        }
+    }
+
+    /**
+     * Drops the room's buffer once its game is over, keeping the last number so later
+     * broadcasts continue the sequence. Only a client that saw everything can still
+     * resume; any other gets a snapshot.
+     */
+    public void gameFinished(UUID roomId) {
+        RoomLog log = logs.get(roomId);
+        if (log == null) {
+            return;
+        }
+        log.lock.lock();
+        try {
+            log.entries = NO_ENTRIES;
+        } finally {
+            log.lock.unlock();
+        }
+    }
+
+    public void roomClosed(UUID roomId) {
+        logs.remove(roomId);
+    }
+
+    private RoomLog log(UUID roomId) {
+        return logs.computeIfAbsent(roomId, id -> new RoomLog(new Entry[capacity]));
+    }
+
+    private record Entry(long seq, String destination, Object payload) {
+    }
+
+    private static final class RoomLog {
+        private final ReentrantLock lock = new ReentrantLock();
+        // Guarded by lock; empty once the game is over
+        private Entry[] entries;
+        private volatile long seq;
+
+        RoomLog(Entry[] entries) {
+            this.entries = entries;
+        }
+    }
+}
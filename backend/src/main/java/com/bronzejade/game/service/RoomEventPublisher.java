@@ -0,0 +1,26 @@
+package com.bronzejade.game.service;
+
+import com.bronzejade.game.domain.dtos.Event.GameEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Broadcasts game events to everyone subscribed to a room. Events go through the
+ * room's RoomEventLog, so they carry a seq header and can be replayed on reconnect.
+ */
+@Component
+@RequiredArgsConstructor
+public class RoomEventPublisher {
+
+    private final RoomEventLog eventLog;
+
+    public static String roomTopic(Object roomId) {
+        return "/topic/room." + roomId;
+    }
+
+    public void publish(UUID roomId, GameEvent event) {
+        eventLog.publish(roomId, roomTopic(roomId), seq -> event);
+    }
+}
@@ -0,0 +1,281 @@
+package com.bronzejade.game.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * In-process index of room membership: (roomId, userId) -> roomPlayerId.
+ * <p>
+ * Every UUID is stored as two longs in flat open-addressing tables, so an entry costs
+ * six longs and no objects. The table is split into lock stripes; lookups are lock-free
+ * (optimistic StampedLock reads) and only fall back to a read lock under contention.
+ */
+@Component
+public class RoomMembershipIndex {
+
+    private static final int STRIPES = 64;
+    private static final int LONGS_PER_SLOT = 6;
+    private static final byte EMPTY = 0;
+    private static final byte FULL = 1;
+    private static final byte DELETED = 2;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    // Bumped on every removal so callers can tell whether a lookup raced with a leave
+    private final AtomicLong generation = new AtomicLong();
+
+    public RoomMembershipIndex() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Returns the room player id for the member, or null if the pair is not indexed.
+     */
+    public UUID find(UUID roomId, UUID userId) {
+        long rm = roomId.getMostSignificantBits();
+        long rl = roomId.getLeastSignificantBits();
+        long um = userId.getMostSignificantBits();
+        long ul = userId.getLeastSignificantBits();
+        long hash = hash(rm, rl, um, ul);
+        return stripeFor(hash).find(rm, rl, um, ul, hash);
+    }
+
+    public boolean contains(UUID roomId, UUID userId) {
+        return find(roomId, userId) != null;
+    }
+
+    public void put(UUID roomId, UUID userId, UUID roomPlayerId) {
+        long rm = roomId.getMostSignificantBits();
+        long rl = roomId.getLeastSignificantBits();
+        long um = userId.getMostSignificantBits();
+        long ul = userId.getLeastSignificantBits();
+        long hash = hash(rm, rl, um, ul);
+        stripeFor(hash).put(rm, rl, um, ul, roomPlayerId.getMostSignificantBits(),
+                roomPlayerId.getLeastSignificantBits(), hash);
+    }
+
+    /**
+     * Stores the entry only if nothing was removed since {@code expectedGeneration},
+     * so a database answer read before a concurrent leave cannot resurrect the member.
+     */
+    public void putIfGeneration(long expectedGeneration, UUID roomId, UUID userId, UUID roomPlayerId) {
+        if (generation.get() == expectedGeneration) {
+            put(roomId, userId, roomPlayerId);
+        }
+    }
+
+    public void remove(UUID roomId, UUID userId) {
+        generation.incrementAndGet();
+        long rm = roomId.getMostSignificantBits();
+        long rl = roomId.getLeastSignificantBits();
+        long um = userId.getMostSignificantBits();
+        long ul = userId.getLeastSignificantBits();
+        long hash = hash(rm, rl, um, ul);
+        stripeFor(hash).remove(rm, rl, um, ul, hash);
+    }
+
+    /**
+     * Removes every member of the room. Entries are spread over all stripes, so this
+     * scans the whole index; it only runs when a room is deleted.
+     */
+    public void removeRoom(UUID roomId) {
+        generation.incrementAndGet();
+        long rm = roomId.getMostSignificantBits();
+        long rl = roomId.getLeastSignificantBits();
+        for (Stripe stripe : stripes) {
+            stripe.removeRoom(rm, rl);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    private Stripe stripeFor(long hash) {
+        return stripes[(int) (hash >>> 58) & (STRIPES - 1)];
+    }
+
+    private static long hash(long rm, long rl, long um, long ul) {
+        long h = rm * 0x9E3779B97F4A7C15L;
+        h = (h ^ rl) * 0xC2B2AE3D27D4EB4FL;
+        h = (h ^ um) * 0x165667B19E3779F9L;
+        h = (h ^ ul) * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static final class Stripe {
+
+        private final StampedLock lock = new StampedLock();
+        private long[] slots = new long[16 * LONGS_PER_SLOT];
+        private byte[] states = new byte[16];
+        private int size;
+        private int used;
+
+        UUID find(long rm, long rl, long um, long ul, long hash) {
+            long stamp = lock.tryOptimisticRead();
+            UUID result = probe(slots, states, rm, rl, um, ul, hash);
+            if (lock.validate(stamp)) {
+                return result;
+            }
+            stamp = lock.readLock();
+            try {
+                return probe(slots, states, rm, rl, um, ul, hash);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private static UUID probe(long[] slots, byte[] states, long rm, long rl, long um, long ul, long hash) {
+            int mask = states.length - 1;
+            int index = (int) hash & mask;
+            for (int probes = 0; probes < states.length; probes++) {
+                byte state = states[index];
+                if (state == EMPTY) {
+                    return null;
+                }
+                int base = index * LONGS_PER_SLOT;
+                if (state == FULL && base + 5 < slots.length && matches(slots, base, rm, rl, um, ul)) {
+                    return new UUID(slots[base + 4], slots[base + 5]);
+                }
+                index = (index + 1) & mask;
+            }
+            return null;
+        }
+
+        void put(long rm, long rl, long um, long ul, long pm, long pl, long hash) {
+            long stamp = lock.writeLock();
+            try {
+                if ((used + 1) * 4 >= states.length * 3) {
+                    resize(size * 2 >= states.length ? states.length * 2 : states.length);
+                }
+                int mask = states.length - 1;
+                int index = (int) hash & mask;
+                int firstFree = -1;
+                for (int probes = 0; probes < states.length; probes++) {
+                    byte state = states[index];
+                    if (state == EMPTY) {
+                        break;
+                    }
+                    if (state == DELETED) {
+                        if (firstFree < 0) {
+                            firstFree = index;
+                        }
+                    } else if (matches(slots, index * LONGS_PER_SLOT, rm, rl, um, ul)) {
+                        slots[index * LONGS_PER_SLOT + 4] = pm;
+                        slots[index * LONGS_PER_SLOT + 5] = pl;
+                        return;
+                    }
+                    index = (index + 1) & mask;
+                }
+                int target = firstFree >= 0 ? firstFree : index;
+                if (states[target] == EMPTY) {
+                    used++;
+                }
+                write(slots, target * LONGS_PER_SLOT, rm, rl, um, ul, pm, pl);
+                states[target] = FULL;
+                size++;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        void remove(long rm, long rl, long um, long ul, long hash) {
+            long stamp = lock.writeLock();
+            try {
+                int mask = states.length - 1;
+                int index = (int) hash & mask;
+                for (int probes = 0; probes < states.length; probes++) {
+                    byte state = states[index];
+                    if (state == EMPTY) {
+                        return;
+                    }
+                    if (state == FULL && matches(slots, index * LONGS_PER_SLOT, rm, rl, um, ul)) {
+                        states[index] = DELETED;
+                        size--;
+                        return;
+                    }
+                    index = (index + 1) & mask;
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        void removeRoom(long rm, long rl) {
+            long stamp = lock.writeLock();
+            try {
+                for (int i = 0; i < states.length; i++) {
+                    int base = i * LONGS_PER_SLOT;
+                    if (states[i] == FULL && slots[base] == rm && slots[base + 1] == rl) {
+                        states[i] = DELETED;
+                        size--;
+                    }
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        int size() {
+            long stamp = lock.readLock();
+            try {
+                return size;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        // Rehashes live entries into a fresh table, which also clears tombstones
+        private void resize(int capacity) {
+            long[] oldSlots = slots;
+            byte[] oldStates = states;
+            long[] newSlots = new long[capacity * LONGS_PER_SLOT];
+            byte[] newStates = new byte[capacity];
+            int mask = capacity - 1;
+            for (int i = 0; i < oldStates.length; i++) {
+                if (oldStates[i] != FULL) {
+                    continue;
+                }
+                int base = i * LONGS_PER_SLOT;
+                long hash = hash(oldSlots[base], oldSlots[base + 1], oldSlots[base + 2], oldSlots[base + 3]);
+                int index = (int) hash & mask;
+                while (newStates[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                System.arraycopy(oldSlots, base, newSlots, index * LONGS_PER_SLOT, LONGS_PER_SLOT);
+                newStates[index] = FULL;
+            }
+            slots = newSlots;
+            states = newStates;
+            used = size;
+        }
+
+        private static boolean matches(long[] slots, int base, long rm, long rl, long um, long ul) {
+            return slots[base] == rm && slots[base + 1] == rl && slots[base + 2] == um && slots[base + 3] == ul;
+        }
+
+        private static void write(long[] slots, int base, long rm, long rl, long um, long ul, long pm, long pl) {
+            slots[base] = rm;
+            slots[base + 1] = rl;
+            slots[base + 2] = um;
+            slots[base + 3] = ul;
+            slots[base + 4] = pm;
+            slots[base + 5] = pl;
+        }
+    }
+}
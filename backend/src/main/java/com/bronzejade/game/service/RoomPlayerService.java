@@ -1,11 +1,10 @@
 package com.bronzejade.game.service;
 
-import com.bronzejade.game.domain.entities.RoomPlayer;
-import com.bronzejade.game.domain.entities.User;
+import com.bronzejade.game.domain.events.RoomMembershipChangedEvent;
 import com.bronzejade.game.repositories.RoomPlayerRepository;
-import com.bronzejade.game.repositories.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.util.Optional;
 import java.util.UUID;
@@ -14,14 +13,31 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class RoomPlayerService {
     private final RoomPlayerRepository roomPlayerRepository;
-    private final UserRepository userRepository;
+    private final RoomMembershipIndex membershipIndex;
 
     public boolean isInRoom(UUID roomId, UUID userId) {
-        // Get user from database
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        return findRoomPlayerId(roomId, userId).isPresent();
+    }
+
+    public Optional<UUID> findRoomPlayerId(UUID roomId, UUID userId) {
+        UUID roomPlayerId = membershipIndex.find(roomId, userId);
+        if (roomPlayerId != null) {
+            return Optional.of(roomPlayerId);
+        }
+
+        // Not indexed (e.g. after a restart): ask the database once and remember the answer
+        long generation = membershipIndex.generation();
+        Optional<UUID> found = roomPlayerRepository.findIdByRoomIdAndUserId(roomId, userId);
+        found.ifPresent(id -> membershipIndex.putIfGeneration(generation, roomId, userId, id));
+        return found;
+    }
 
-        // Check if user is in the room
-        return roomPlayerRepository.existsByRoomIdAndUser(roomId, user);
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMembershipChanged(RoomMembershipChangedEvent event) {
+        switch (event.type()) {
+            case JOINED -> membershipIndex.put(event.roomId(), event.userId(), event.roomPlayerId());
+            case LEFT -> membershipIndex.remove(event.roomId(), event.userId());
+            case ROOM_CLOSED -> membershipIndex.removeRoom(event.roomId());
+        }
     }
 }
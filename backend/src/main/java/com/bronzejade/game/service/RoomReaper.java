@@ -0,0 +1,168 @@
+package com.bronzejade.game.service;
+
+import com.bronzejade.game.domain.events.RoomMembershipChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Removes rooms nobody will come back to: FINISHED rooms past the archive age are
+ * copied into room_history, and open rooms (WAITING or IN_PROGRESS) that have had no
+ * players for the waiting ttl are just deleted. A game everyone walked out of has no
+ * result worth keeping, so it goes the same way as a lobby nobody started. Emptiness is
+ * timed from the room's last join or leave, so a room somebody is still in is never
+ * reaped however old it is. Deleting a room takes its game state with it through the
+ * cascading foreign keys, and frees its room code.
+ *
+ * Work is done in chunks of a bounded size, each in its own short transaction. Rooms
+ * are claimed with FOR UPDATE SKIP LOCKED, so a row some request is updating right now
+ * is left for the next run instead of waited on, and several nodes can reap at once.
+ */
+@Component
+@ConditionalOnProperty(name = "game.rooms.reaper.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class RoomReaper {
+
+    // Statuses are literals so the planner can match them against the partial indexes
+    private static final String CLAIM_FINISHED = """
+            SELECT id, room_code FROM rooms
+            WHERE status = 'FINISHED' AND finished_at < :cutoff
+            ORDER BY finished_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """;
+    private static final String CLAIM_ABANDONED = """
+            SELECT r.id, r.room_code FROM rooms r
+            WHERE r.status IN ('WAITING', 'IN_PROGRESS') AND r.membership_changed_at < :cutoff
+              AND NOT EXISTS (SELECT 1 FROM room_players rp WHERE rp.room_id = r.id)
+            ORDER BY r.membership_changed_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """;
+    private static final String ARCHIVE = """
+            INSERT INTO room_history (room_id, room_code, host_id, character_set_id, winner_user_id,
+                                      game_state_id, round_number, created_at, started_at, finished_at, archived_at)
+            SELECT r.id, r.room_code, r.host_id, r.character_set_id, gs.winner_id,
+                   gs.id, gs.round_number, r.created_at, r.started_at, r.finished_at, :archivedAt
+            FROM rooms r
+            LEFT JOIN game_state gs ON gs.room_id = r.id
+            WHERE r.id IN (:ids)
+            """;
+    private static final String DELETE = "DELETE FROM rooms WHERE id IN (:ids)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final GameSessionRegistry sessionRegistry;
+    private final RoomStateService roomStateService;
+    private final RoomCodeAllocator roomCodeAllocator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration finishedAge;
+    private final Duration waitingTtl;
+    private final int chunkSize;
+    private final int maxChunks;
+    private final Counter archived;
+    private final Counter purged;
+
+    public RoomReaper(NamedParameterJdbcTemplate jdbcTemplate,
+                      PlatformTransactionManager transactionManager,
+                      GameSessionRegistry sessionRegistry,
+                      RoomStateService roomStateService,
+                      RoomCodeAllocator roomCodeAllocator,
+                      ApplicationEventPublisher eventPublisher,
+                      MeterRegistry meterRegistry,
+                      @Value("${game.rooms.reaper.finished-age:P7D}") Duration finishedAge,
+                      @Value("${game.rooms.reaper.waiting-ttl:PT6H}") Duration waitingTtl,
+                      @Value("${game.rooms.reaper.chunk-size:200}") int chunkSize,
+                      @Value("${game.rooms.reaper.max-chunks:50}") int maxChunks) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.sessionRegistry = sessionRegistry;
+        this.roomStateService = roomStateService;
+        this.roomCodeAllocator = roomCodeAllocator;
+        this.eventPublisher = eventPublisher;
+        this.finishedAge = finishedAge;
+        this.waitingTtl = waitingTtl;
+        this.chunkSize = chunkSize;
+        this.maxChunks = maxChunks;
+        this.archived = Counter.builder("game.rooms.reaped")
+                .description("Rooms removed by the reaper")
+                .tag("reason", "archived")
+                .register(meterRegistry);
+        this.purged = Counter.builder("game.rooms.reaped")
+                .description("Rooms removed by the reaper")
+                .tag("reason", "abandoned")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${game.rooms.reaper.interval:PT5M}",
+            initialDelayString = "${game.rooms.reaper.initial-delay:PT1M}")
+    public void reap() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            int archivedRooms = drain(CLAIM_FINISHED, now.minus(finishedAge), true);
+            int purgedRooms = drain(CLAIM_ABANDONED, now.minus(waitingTtl), false);
+            if (archivedRooms > 0 || purgedRooms > 0) {
+                log.info("Reaped rooms: {} finished archived, {} abandoned deleted", archivedRooms, purgedRooms);
+            }
+        } catch (DataAccessException e) {
+            log.error("Room reaping failed", e);
+        }
+    }
+
+    // Chunks until one comes back short, or maxChunks so a large backlog is spread over runs
+    private int drain(String claim, LocalDateTime cutoff, boolean archive) {
+        int total = 0;
+        for (int chunk = 0; chunk < maxChunks; chunk++) {
+            List<ReapedRoom> rooms = transactionTemplate.execute(tx -> reapChunk(claim, cutoff, archive));
+            rooms.forEach(this::roomGone);
+            total += rooms.size();
+            (archive ? archived : purged).increment(rooms.size());
+            if (rooms.size() < chunkSize) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    private List<ReapedRoom> reapChunk(String claim, LocalDateTime cutoff, boolean archive) {
+        List<ReapedRoom> rooms = jdbcTemplate.query(claim, new MapSqlParameterSource()
+                        .addValue("cutoff", cutoff)
+                        .addValue("limit", chunkSize),
+                (row, i) -> new ReapedRoom(row.getObject(1, UUID.class), row.getString(2)));
+        if (rooms.isEmpty()) {
+            return rooms;
+        }
+        MapSqlParameterSource ids = new MapSqlParameterSource("ids", rooms.stream().map(ReapedRoom::id).toList());
+        if (archive) {
+            jdbcTemplate.update(ARCHIVE, ids.addValue("archivedAt", LocalDateTime.now()));
+        }
+        jdbcTemplate.update(DELETE, ids);
+        return rooms;
+    }
+
+    // Same clean-up as RoomService.deleteRoom, for the in-memory state of this node
+    private void roomGone(ReapedRoom room) {
+        roomCodeAllocator.release(room.code());
+        sessionRegistry.evict(room.id());
+        eventPublisher.publishEvent(RoomMembershipChangedEvent.roomClosed(room.id()));
+        roomStateService.roomClosed(room.id());
+    }
+
+    private record ReapedRoom(UUID id, String code) {
+    }
+}
@@ -1,12 +1,14 @@
 package com.bronzejade.game.service;
 
+import com.bronzejade.game.domain.CharacterSetView;
 import com.bronzejade.game.domain.dtos.Room.CreateRoomRequest;
 import com.bronzejade.game.domain.dtos.User.RoomPlayerDto;
 import com.bronzejade.game.domain.entities.CharacterSet;
-import com.bronzejade.game.domain.entities.Character;
 import com.bronzejade.game.domain.entities.GameState;
 import com.bronzejade.game.domain.entities.RoomPlayer;
 import com.bronzejade.game.domain.entities.User;
+import com.bronzejade.game.domain.events.RoomMembershipChangedEvent;
+import com.bronzejade.game.repositories.CharacterRepository;
 import com.bronzejade.game.repositories.GameStateRepository;
 import com.bronzejade.game.repositories.RoomPlayerRepository;
 import com.bronzejade.game.repositories.RoomRepository;
@@ -15,8 +17,9 @@ import com.bronzejade.game.domain.RoomStatus;
 import com.bronzejade.game.domain.TurnPhase;
 import com.bronzejade.game.repositories.UserRepository;
 import jakarta.persistence.EntityNotFoundException;
-import jakarta.transaction.Transactional;
+import org.springframework.transaction.annotation.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -30,14 +33,19 @@ public class RoomService {
     private final RoomPlayerRepository roomPlayerRepo;
     private final UserRepository userRepo;
     private final GameStateRepository gameStateRepo;
+    private final CharacterRepository characterRepo;
     private final CharacterSetService characterSetService;
     private final RoomPlayerMapper roomPlayerMapper;
+    private final GameSessionRegistry sessionRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RoomCodeAllocator roomCodeAllocator;
 
     @Transactional
     public Room createRoom(CreateRoomRequest createRoomRequest, UUID userId) {
-        CharacterSet characterSet = characterSetService.getCharacterSet(createRoomRequest.getCharacterSetId());
+        CharacterSet characterSet = characterSetService.getReference(createRoomRequest.getCharacterSetId());
 
         Room room = Room.builder()
+                .roomCode(roomCodeAllocator.allocate())
                 .characterSet(characterSet)
                 .maxPlayers(2)
                 .status(RoomStatus.WAITING)
@@ -59,7 +67,8 @@ public class RoomService {
                 .joinedAt(LocalDateTime.now())
                 .build();
 
-        roomPlayerRepo.save(hostPlayer);
+        RoomPlayer savedHostPlayer = roomPlayerRepo.save(hostPlayer);
+        eventPublisher.publishEvent(RoomMembershipChangedEvent.joined(savedRoom.getId(), userId, savedHostPlayer.getId()));
 
         GameState gameState = GameState.builder()
                 .room(savedRoom)
@@ -73,10 +82,12 @@ public class RoomService {
     }
 
     public void deleteRoom(UUID id) {
-        if (!roomRepo.existsById(id)) {
-            throw new EntityNotFoundException("Room not found with id: " + id);
-        }
-        roomRepo.deleteById(id);
+        Room room = roomRepo.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Room not found with id: " + id));
+        roomRepo.delete(room);
+        roomCodeAllocator.release(room.getRoomCode());
+        sessionRegistry.evict(id);
+        eventPublisher.publishEvent(RoomMembershipChangedEvent.roomClosed(id));
     }
 
     @Transactional
@@ -111,7 +122,10 @@ public class RoomService {
                 .joinedAt(LocalDateTime.now())
                 .build();
 
-        roomPlayerRepo.save(player);
+        RoomPlayer savedPlayer = roomPlayerRepo.save(player);
+        room.setMembershipChangedAt(LocalDateTime.now());
+        sessionRegistry.evict(room.getId());
+        eventPublisher.publishEvent(RoomMembershipChangedEvent.joined(room.getId(), userId, savedPlayer.getId()));
         return room;
     }
 
@@ -128,11 +142,16 @@ public class RoomService {
         boolean wasHost = player.isHost();
 
         roomPlayerRepo.delete(player);
+        room.setMembershipChangedAt(LocalDateTime.now());
+        sessionRegistry.evict(roomId);
+        eventPublisher.publishEvent(RoomMembershipChangedEvent.left(roomId, userId));
 
         if (wasHost) {
             List<RoomPlayer> remainingPlayers = roomPlayerRepo.findByRoomId(roomId);
             if (remainingPlayers.isEmpty()) {
                 roomRepo.delete(room);
+                roomCodeAllocator.releaseAfterCommit(room.getRoomCode());
+                eventPublisher.publishEvent(RoomMembershipChangedEvent.roomClosed(roomId));
                 return null;
             } else {
                 RoomPlayer newHost = remainingPlayers.get(0);
@@ -203,6 +222,7 @@ public class RoomService {
 
         room.setStatus(RoomStatus.IN_PROGRESS);
         room.setStartedAt(LocalDateTime.now());
+        sessionRegistry.evict(roomId);
 
         GameState gameState = gameStateRepo.findByRoomId(roomId)
                 .orElseThrow(() -> new EntityNotFoundException("Game state not found"));
@@ -232,13 +252,14 @@ public class RoomService {
         RoomPlayer player = roomPlayerRepo.findByRoomIdAndUser(roomId, user)
                 .orElseThrow(() -> new EntityNotFoundException("Player not found in room"));
 
-        CharacterSet characterSet = room.getCharacterSet();
-        Character character = characterSet.getCharacters().stream()
-                .filter(c -> c.getId().equals(characterId))
-                .findFirst()
-                .orElseThrow(() -> new EntityNotFoundException("Character not found in room's character set"));
+        // Only the set's id is read from the lazy association; the characters come from the cache
+        CharacterSetView characterSet = characterSetService.getView(room.getCharacterSet().getId());
+        if (!characterSet.contains(characterId)) {
+            throw new EntityNotFoundException("Character not found in room's character set");
+        }
 
-        player.setCharacterToGuess(character);
+        player.setCharacterToGuess(characterRepo.getReferenceById(characterId));
+        sessionRegistry.evict(roomId);
         return roomPlayerRepo.save(player);
     }
 
@@ -257,6 +278,7 @@ public class RoomService {
         GameState gameState = gameStateRepo.findByRoomId(roomId)
                 .orElseThrow(() -> new EntityNotFoundException("Game state not found"));
         gameState.setWinnerId(winnerId);
+        sessionRegistry.evict(roomId);
 
         gameStateRepo.save(gameState);
         return roomRepo.save(room);
@@ -267,6 +289,7 @@ public class RoomService {
                 .orElseThrow(() -> new EntityNotFoundException("Room not found with id: " + id));
     }
 
+    @Transactional(readOnly = true)
     public Room getRoomByCode(String roomCode) {
         return roomRepo.findByRoomCode(roomCode.toUpperCase())
                 .orElseThrow(() -> new EntityNotFoundException("Room not found with code: " + roomCode));
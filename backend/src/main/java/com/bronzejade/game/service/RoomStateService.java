@@ -0,0 +1,161 @@
+package com.bronzejade.game.service;
+
+import com.bronzejade.game.domain.GameSession;
+import com.bronzejade.game.domain.RoomStatus;
+import com.bronzejade.game.domain.TurnPhase;
+import com.bronzejade.game.domain.dtos.Event.RoomStateUpdate;
+import com.bronzejade.game.domain.entities.RoomPlayer;
+import com.bronzejade.game.repositories.RoomPlayerRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.LongFunction;
+
+/**
+ * Publishes the /topic/room.{id}.state stream: a snapshot to every new subscriber,
+ * then deltas as the room changes. Frames are numbered by the RoomEventLog; snapshots
+ * carry the number read before the state, so no delta published meanwhile can be
+ * missing from what the client ends up with.
+ */
+@Service
+public class RoomStateService {
+
+    private static final String STATE_SUFFIX = ".state";
+
+    private final RoomEventLog eventLog;
+    private final GameSessionRegistry sessionRegistry;
+    private final RoomPlayerRepository roomPlayerRepo;
+    private final TransactionTemplate primaryTransaction;
+
+    public RoomStateService(RoomEventLog eventLog,
+                            GameSessionRegistry sessionRegistry,
+                            RoomPlayerRepository roomPlayerRepo,
+                            PlatformTransactionManager transactionManager) {
+        this.eventLog = eventLog;
+        this.sessionRegistry = sessionRegistry;
+        this.roomPlayerRepo = roomPlayerRepo;
+        // Not read-only: those may be served by the replica, and this must see the latest writes
+        this.primaryTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    public static String stateTopic(Object roomId) {
+        return RoomEventPublisher.roomTopic(roomId) + STATE_SUFFIX;
+    }
+
+    public RoomStateUpdate.Snapshot snapshot(UUID roomId) {
+        return snapshot(roomId, eventLog.current(roomId));
+    }
+
+    public void playerReady(UUID roomId, UUID userId, boolean ready) {
+        publish(roomId, seq -> new RoomStateUpdate.PlayerReady(seq, userId, ready));
+    }
+
+    public void characterSelected(UUID roomId, UUID userId) {
+        publish(roomId, seq -> new RoomStateUpdate.CharacterSelected(seq, userId));
+    }
+
+    /**
+     * Publishes the session's current turn player, phase and round. The session is
+     * read first and released before publishing, since membershipChanged takes the
+     * two locks the other way round; a room's turn frames already run one at a time
+     * on its inbound lane.
+     */
+    public void turnChanged(UUID roomId) {
+        GameSession session = sessionRegistry.get(roomId);
+        UUID turnUserId;
+        TurnPhase turnPhase;
+        int roundNumber;
+        session.lock();
+        try {
+            turnUserId = turnUserId(session);
+            turnPhase = session.getTurnPhase();
+            roundNumber = session.getRoundNumber();
+        } finally {
+            session.unlock();
+        }
+        publish(roomId, seq -> new RoomStateUpdate.TurnChanged(seq, turnUserId, turnPhase, roundNumber));
+    }
+
+    public void statusChanged(UUID roomId) {
+        GameSession session = sessionRegistry.get(roomId);
+        RoomStatus status;
+        UUID winnerId;
+        session.lock();
+        try {
+            status = session.getStatus();
+            winnerId = session.getWinnerId();
+        } finally {
+            session.unlock();
+        }
+        publish(roomId, seq -> new RoomStateUpdate.StatusChanged(seq, status, winnerId));
+        if (status == RoomStatus.FINISHED) {
+            eventLog.gameFinished(roomId);
+        }
+    }
+
+    /**
+     * Broadcasts a fresh snapshot; used when players come or go, which touches too
+     * many fields to describe as a delta.
+     */
+    public void membershipChanged(UUID roomId) {
+        publish(roomId, seq -> snapshot(roomId, seq));
+    }
+
+    public void roomClosed(UUID roomId) {
+        eventLog.roomClosed(roomId);
+    }
+
+    /**
+     * Called once the broker has registered a subscription to one of the room's topics.
+     * A client resuming from {@code lastSeq} is sent only the broadcasts it missed; when
+     * those are no longer buffered, or the client is new, the state topic gets a snapshot.
+     */
+    public void subscribed(UUID roomId, String destination, Long lastSeq, String sessionId, String subscriptionId) {
+        boolean state = destination.equals(stateTopic(roomId));
+        if (!state && !destination.equals(RoomEventPublisher.roomTopic(roomId))) {
+            return;
+        }
+        if (lastSeq != null && eventLog.replay(roomId, destination, lastSeq, sessionId, subscriptionId)) {
+            return;
+        }
+        if (state) {
+            RoomStateUpdate.Snapshot snapshot = snapshot(roomId);
+            eventLog.sendToSubscription(sessionId, subscriptionId, destination, snapshot.seq(), snapshot);
+        }
+    }
+
+    private RoomStateUpdate.Snapshot snapshot(UUID roomId, long seq) {
+        GameSession session = sessionRegistry.get(roomId);
+        List<RoomStateUpdate.PlayerState> players = primaryTransaction.execute(status ->
+                roomPlayerRepo.findByRoomId(roomId).stream()
+                        .map(RoomStateService::playerState)
+                        .toList());
+        session.lock();
+        try {
+            return new RoomStateUpdate.Snapshot(seq, roomId, session.getStatus(), players, turnUserId(session),
+                    session.getTurnPhase(), session.getRoundNumber(), session.getWinnerId());
+        } finally {
+            session.unlock();
+        }
+    }
+
+    private static RoomStateUpdate.PlayerState playerState(RoomPlayer player) {
+        return new RoomStateUpdate.PlayerState(player.getUser().getId(), player.getUser().getUsername(),
+                player.isHost(), player.isReady(), player.getCharacterToGuess() != null);
+    }
+
+    private static UUID turnUserId(GameSession session) {
+        return session.getPlayersByUserId().values().stream()
+                .filter(p -> p.roomPlayerId().equals(session.getTurnPlayerId()))
+                .map(GameSession.Player::userId)
+                .findFirst()
+                .orElse(null);
+    }
+
+    private void publish(UUID roomId, LongFunction<RoomStateUpdate> update) {
+        eventLog.publish(roomId, stateTopic(roomId), update::apply);
+    }
+}
@@ -0,0 +1,74 @@
+package com.bronzejade.game.benchmarks;
+
+import com.bronzejade.game.security.JwtUtil;
+import com.bronzejade.game.security.TokenIdentity;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares token validation as it used to be (signing key and parser rebuilt per call),
+ * with the shared parser but no cache, and with the verified-token cache warm. Each
+ * call takes the next of a fixed set of tokens, all of which fit in the cache.
+ * <p>
+ * mvn -Pbenchmark test -Dbenchmark.include=JwtValidationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtValidationBenchmark {
+
+    private static final String SECRET = "benchmarkSecretKeyForBenchmarksOnly12345";
+    private static final int TOKENS = 1000;
+
+    private JwtUtil uncached;
+    private JwtUtil cached;
+    private final String[] tokens = new String[TOKENS];
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        uncached = new JwtUtil(SECRET, 3_600_000, 0, Duration.ofMinutes(10), new SimpleMeterRegistry());
+        cached = new JwtUtil(SECRET, 3_600_000, TOKENS * 2, Duration.ofMinutes(10), new SimpleMeterRegistry());
+        for (int i = 0; i < TOKENS; i++) {
+            tokens[i] = i % 2 == 0
+                    ? cached.generateToken(UUID.randomUUID())
+                    : cached.generateGuestToken(UUID.randomUUID(), "guest_" + i);
+            cached.parseToken(tokens[i]);
+        }
+    }
+
+    private String next() {
+        cursor = (cursor + 1) % TOKENS;
+        return tokens[cursor];
+    }
+
+    @Benchmark
+    public UUID rebuiltParser() {
+        Claims claims = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseClaimsJws(next())
+                .getBody();
+        return UUID.fromString(claims.getSubject());
+    }
+
+    @Benchmark
+    public TokenIdentity sharedParser() {
+        return uncached.parseToken(next());
+    }
+
+    @Benchmark
+    public TokenIdentity verifiedCache() {
+        return cached.parseToken(next());
+    }
+}
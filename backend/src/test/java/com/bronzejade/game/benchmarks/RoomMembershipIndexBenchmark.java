@@ -0,0 +1,133 @@
+package com.bronzejade.game.benchmarks;
+
+import com.bronzejade.game.BackendApplication;
+import com.bronzejade.game.domain.RoomStatus;
+import com.bronzejade.game.domain.entities.Character;
+import com.bronzejade.game.domain.entities.CharacterSet;
+import com.bronzejade.game.domain.entities.Room;
+import com.bronzejade.game.domain.entities.RoomPlayer;
+import com.bronzejade.game.domain.entities.User;
+import com.bronzejade.game.repositories.CharacterSetRepository;
+import com.bronzejade.game.repositories.RoomPlayerRepository;
+import com.bronzejade.game.repositories.RoomRepository;
+import com.bronzejade.game.repositories.UserRepository;
+import com.bronzejade.game.service.RoomPlayerService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the membership check used on SUBSCRIBE and game frames:
+ * the old findById + existsByRoomIdAndUser pair, the single id-based fallback
+ * query, and a warm RoomMembershipIndex hit. Runs against the in-memory H2 database.
+ * <p>
+ * mvn -Pbenchmark test -Dbenchmark.include=RoomMembershipIndexBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoomMembershipIndexBenchmark {
+
+    private static final int ROOMS = 500;
+
+    private ConfigurableApplicationContext context;
+    private UserRepository userRepository;
+    private RoomPlayerRepository roomPlayerRepository;
+    private RoomPlayerService roomPlayerService;
+
+    private final UUID[] roomIds = new UUID[ROOMS * 2];
+    private final UUID[] userIds = new UUID[ROOMS * 2];
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(BackendApplication.class)
+                // Command-line arguments, so they override the test application.properties
+                .run(
+                        "--server.port=0",
+                        "--spring.profiles.active=quiet",
+                        "--jwt.secret=benchmarkSecretKeyForBenchmarksOnly12345",
+                        "--jwt.expiration=3600000");
+
+        userRepository = context.getBean(UserRepository.class);
+        roomPlayerRepository = context.getBean(RoomPlayerRepository.class);
+        roomPlayerService = context.getBean(RoomPlayerService.class);
+        RoomRepository roomRepository = context.getBean(RoomRepository.class);
+
+        CharacterSet characterSet = new CharacterSet();
+        characterSet.setName("benchmark set");
+        Character character = new Character();
+        character.setName("bob");
+        character.setImageUrl("bob.png");
+        characterSet.getCharacters().add(character);
+        characterSet = context.getBean(CharacterSetRepository.class).save(characterSet);
+
+        for (int i = 0; i < ROOMS; i++) {
+            User host = userRepository.save(user());
+            User guest = userRepository.save(user());
+
+            Room room = new Room();
+            room.setHost(host);
+            room.setStatus(RoomStatus.WAITING);
+            room.setMaxPlayers(2);
+            room.setCharacterSet(characterSet);
+            room = roomRepository.save(room);
+
+            roomPlayerRepository.save(RoomPlayer.builder().room(room).user(host).host(true).build());
+            roomPlayerRepository.save(RoomPlayer.builder().room(room).user(guest).host(false).build());
+
+            roomIds[i * 2] = room.getId();
+            userIds[i * 2] = host.getId();
+            roomIds[i * 2 + 1] = room.getId();
+            userIds[i * 2 + 1] = guest.getId();
+        }
+
+        // Warm the index the same way production traffic does
+        for (int i = 0; i < roomIds.length; i++) {
+            roomPlayerService.isInRoom(roomIds[i], userIds[i]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private static User user() {
+        return User.builder()
+                .username("bench_" + UUID.randomUUID().toString().substring(0, 12))
+                .email(UUID.randomUUID() + "@bench.test")
+                .password("password")
+                .build();
+    }
+
+    private int next() {
+        cursor = (cursor + 1) % roomIds.length;
+        return cursor;
+    }
+
+    @Benchmark
+    public boolean repositoryFindUserThenExists() {
+        int i = next();
+        User user = userRepository.findById(userIds[i]).orElseThrow();
+        return roomPlayerRepository.existsByRoomIdAndUser(roomIds[i], user);
+    }
+
+    @Benchmark
+    public boolean singleIdQuery() {
+        int i = next();
+        return roomPlayerRepository.findIdByRoomIdAndUserId(roomIds[i], userIds[i]).isPresent();
+    }
+
+    @Benchmark
+    public boolean membershipIndex() {
+        int i = next();
+        return roomPlayerService.isInRoom(roomIds[i], userIds[i]);
+    }
+}
@@ -0,0 +1,72 @@
+package com.bronzejade.game.config;
+
+import com.bronzejade.game.domain.dtos.Event.GameEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventFormatInterceptorTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final EventFormatInterceptor interceptor = new EventFormatInterceptor(objectMapper, "simple");
+
+    @Test
+    void broadcastIsEncodedOncePerFormat() throws Exception {
+        GameEvent event = new GameEvent.ReadyToggled(UUID.randomUUID(), "bob", true);
+        Object payload = new EventPayloadConverter().toMessage(event, null).getPayload();
+        interceptor.negotiate("cbor-1", binaryEndpoint(), "cbor");
+        interceptor.negotiate("cbor-2", binaryEndpoint(), "cbor");
+
+        // The broker gives every subscriber the same payload instance
+        Message<?> json1 = interceptor.preSend(toSession("json-1", payload), null);
+        Message<?> json2 = interceptor.preSend(toSession("json-2", payload), null);
+        Message<?> cbor1 = interceptor.preSend(toSession("cbor-1", payload), null);
+        Message<?> cbor2 = interceptor.preSend(toSession("cbor-2", payload), null);
+
+        assertSame(json1.getPayload(), json2.getPayload());
+        assertSame(cbor1.getPayload(), cbor2.getPayload());
+        assertEquals(event, objectMapper.readValue((byte[]) json1.getPayload(), GameEvent.class));
+        assertEquals(event, new CBORMapper().readValue((byte[]) cbor1.getPayload(), GameEvent.class));
+        assertEquals("cbor", SimpMessageHeaderAccessor.wrap(cbor1).getFirstNativeHeader(EventFormatInterceptor.FORMAT_HEADER));
+        assertNull(SimpMessageHeaderAccessor.wrap(json1).getFirstNativeHeader(EventFormatInterceptor.FORMAT_HEADER));
+    }
+
+    @Test
+    void relayModeNeverNegotiatesCbor() {
+        EventFormatInterceptor relay = new EventFormatInterceptor(objectMapper, "relay");
+        relay.negotiate("cbor-1", binaryEndpoint(), "cbor");
+
+        Object payload = new EventPayloadConverter()
+                .toMessage(new GameEvent.ReadyToggled(UUID.randomUUID(), "bob", true), null).getPayload();
+        Message<?> frame = relay.preSend(toSession("cbor-1", payload), null);
+
+        assertNull(SimpMessageHeaderAccessor.wrap(frame).getFirstNativeHeader(EventFormatInterceptor.FORMAT_HEADER));
+    }
+
+    @Test
+    void stringsAreLeftToTheOtherConverters() {
+        assertNull(new EventPayloadConverter().toMessage("Player is not in the room", null));
+    }
+
+    private Map<String, Object> binaryEndpoint() {
+        Map<String, Object> attributes = new HashMap<>();
+        interceptor.beforeHandshake(null, null, null, attributes);
+        return attributes;
+    }
+
+    private static Message<?> toSession(String sessionId, Object payload) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setSessionId(sessionId);
+        return MessageBuilder.createMessage(payload, headers.getMessageHeaders());
+    }
+}
@@ -0,0 +1,97 @@
+package com.bronzejade.game.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Two H2 databases stand in for primary and replica; each transaction asks which one
+ * it is talking to. The replica's lag is read from a table the test controls.
+ */
+@SpringBootTest(properties = {
+        "game.datasource.replica.url=" + ReplicaRoutingTest.REPLICA_URL,
+        "game.datasource.replica.lag-query=SELECT seconds FROM replica_lag",
+        "game.datasource.replica.max-lag=PT5S"
+})
+class ReplicaRoutingTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:replicadb;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private ReplicaLagMonitor lagMonitor;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeAll
+    static void createReplica() throws SQLException {
+        setReplicaLag(0);
+    }
+
+    @AfterEach
+    void catchUp() throws SQLException {
+        setReplicaLag(0);
+        lagMonitor.check();
+    }
+
+    @Test
+    void readOnlyTransactionsUseTheReplica() {
+        assertEquals("REPLICADB", database(true));
+        assertEquals("TESTDB", database(false));
+    }
+
+    @Test
+    void readsFallBackToThePrimaryWhileTheReplicaLags() throws SQLException {
+        setReplicaLag(60);
+        lagMonitor.check();
+
+        assertEquals("TESTDB", database(true));
+
+        setReplicaLag(1);
+        lagMonitor.check();
+
+        assertEquals("REPLICADB", database(true));
+    }
+
+    @Test
+    void eachPoolHasItsOwnMetrics() {
+        database(true);
+        database(false);
+
+        assertNotNull(meterRegistry.find("hikaricp.connections.max").tag("pool", "primary").gauge());
+        assertNotNull(meterRegistry.find("hikaricp.connections.max").tag("pool", "replica").gauge());
+        assertNotNull(meterRegistry.find("db.replica.lag").gauge());
+    }
+
+    private String database(boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status -> jdbcTemplate.queryForObject("SELECT DATABASE()", String.class));
+    }
+
+    private static void setReplicaLag(int seconds) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(REPLICA_URL, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS replica_lag (seconds INT)");
+            statement.execute("DELETE FROM replica_lag");
+            statement.execute("INSERT INTO replica_lag VALUES (" + seconds + ")");
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.bronzejade.game.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomLaneExecutorTest {
+
+    @Test
+    void framesOfOneRoomRunInOrderOnOneThread() throws InterruptedException {
+        RoomLaneExecutor executor = new RoomLaneExecutor(4, new SimpleMeterRegistry(), false);
+        String roomId = UUID.randomUUID().toString();
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        List<String> threads = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(200);
+
+        for (int i = 0; i < 200; i++) {
+            int seq = i;
+            // Each frame comes from one of several sessions connected to the same room
+            executor.execute(task(frame("session-" + (i % 5), roomId), () -> {
+                order.add(seq);
+                threads.add(Thread.currentThread().getName());
+                done.countDown();
+            }));
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 200; i++) {
+            assertEquals(i, order.get(i));
+        }
+        assertEquals(1, threads.stream().distinct().count());
+        executor.destroy();
+    }
+
+    @Test
+    void roomsSpreadAcrossLanes() {
+        RoomLaneExecutor executor = new RoomLaneExecutor(8, new SimpleMeterRegistry(), false);
+        long usedLanes = IntStream.range(0, 200)
+                .map(i -> executor.laneFor(task(frame("s" + i, UUID.randomUUID().toString()), () -> { })))
+                .distinct()
+                .count();
+
+        assertEquals(8, usedLanes);
+        executor.destroy();
+    }
+
+    @Test
+    void connectFrameUsesRoomHeaderAndSessionIsFallback() {
+        RoomLaneExecutor executor = new RoomLaneExecutor(16, new SimpleMeterRegistry(), false);
+        String roomId = UUID.randomUUID().toString();
+
+        SimpMessageHeaderAccessor connect = SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT);
+        connect.setSessionId("connecting");
+        connect.setNativeHeader("roomId", roomId);
+        Message<byte[]> connectFrame = MessageBuilder.createMessage(new byte[0], connect.getMessageHeaders());
+
+        assertEquals(executor.laneFor(task(frame("other", roomId), () -> { })),
+                executor.laneFor(task(connectFrame, () -> { })));
+        assertEquals(executor.laneFor(task(frame("lonely", null), () -> { })),
+                executor.laneFor(task(frame("lonely", null), () -> { })));
+        executor.destroy();
+    }
+
+    @Test
+    void queueDepthIsTwoGaugesWhateverTheLaneCount() throws InterruptedException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RoomLaneExecutor executor = new RoomLaneExecutor(64, registry, false);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        String busyRoom = UUID.randomUUID().toString();
+
+        executor.execute(task(frame("s", busyRoom), () -> {
+            running.countDown();
+            awaitQuietly(release);
+        }));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 3; i++) {
+            executor.execute(task(frame("s", busyRoom), () -> { }));
+        }
+
+        assertEquals(1, registry.find("ws.inbound.lane.queue.depth").gauges().size());
+        assertEquals(3, registry.get("ws.inbound.lane.queue.depth").gauge().value());
+        assertEquals(3, registry.get("ws.inbound.lane.queue.depth.max").gauge().value());
+        release.countDown();
+        executor.destroy();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Message<byte[]> frame(String sessionId, String roomId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        Map<String, Object> attributes = new HashMap<>();
+        if (roomId != null) {
+            attributes.put("roomId", roomId);
+        }
+        accessor.setSessionAttributes(attributes);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static MessageHandlingRunnable task(Message<?> message, Runnable body) {
+        return new MessageHandlingRunnable() {
+            @Override
+            public Message<?> getMessage() {
+                return message;
+            }
+
+            @Override
+            public MessageHandler getMessageHandler() {
+                return m -> body.run();
+            }
+
+            @Override
+            public void run() {
+                body.run();
+            }
+        };
+    }
+}
@@ -0,0 +1,190 @@
+package com.bronzejade.game.controllers;
+
+import com.bronzejade.game.BackendApplication;
+import com.bronzejade.game.domain.dtos.Event.GameEvent;
+import com.bronzejade.game.domain.RoomStatus;
+import com.bronzejade.game.domain.entities.Character;
+import com.bronzejade.game.domain.entities.CharacterSet;
+import com.bronzejade.game.domain.entities.Room;
+import com.bronzejade.game.domain.entities.RoomPlayer;
+import com.bronzejade.game.domain.entities.User;
+import com.bronzejade.game.repositories.CharacterSetRepository;
+import com.bronzejade.game.repositories.RoomPlayerRepository;
+import com.bronzejade.game.repositories.RoomRepository;
+import com.bronzejade.game.repositories.UserRepository;
+import com.bronzejade.game.security.JwtUtil;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.ServerSocket;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs two backend nodes against one database and one STOMP broker (embedded in node A)
+ * and checks that a room frame sent through one node reaches a player connected to the other.
+ */
+public class BrokerRelayIntegrationTest {
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+    private static RoomPlayer host;
+    private static RoomPlayer guest;
+
+    @BeforeAll
+    static void startNodes() throws IOException {
+        String brokerPort = String.valueOf(freePort());
+        String database = "jdbc:h2:mem:relay-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+
+        nodeA = node(database, brokerPort, "create-drop", "true");
+        nodeB = node(database, brokerPort, "none", "false");
+
+        seedRoom();
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        if (nodeB != null) {
+            nodeB.close();
+        }
+        if (nodeA != null) {
+            nodeA.close();
+        }
+    }
+
+    @Test
+    void roomFramesCrossNodes() throws Exception {
+        BlockingQueue<GameEvent> guestInbox = new LinkedBlockingQueue<>();
+        BlockingQueue<GameEvent> hostInbox = new LinkedBlockingQueue<>();
+
+        StompSession hostSession = connect(nodeA, host);
+        StompSession guestSession = connect(nodeB, guest);
+        subscribe(hostSession, hostInbox);
+        subscribe(guestSession, guestInbox);
+
+        // Give the broker a moment to register both subscriptions
+        Thread.sleep(500);
+
+        hostSession.send("/app/join", "");
+        GameEvent hostJoined = new GameEvent.PlayerJoined(host.getUser().getId(), host.getUser().getUsername());
+        assertEquals(hostJoined, guestInbox.poll(10, SECONDS));
+        assertEquals(hostJoined, hostInbox.poll(10, SECONDS));
+
+        guestSession.send("/app/join", "");
+        GameEvent guestJoined = new GameEvent.PlayerJoined(guest.getUser().getId(), guest.getUser().getUsername());
+        assertEquals(guestJoined, hostInbox.poll(10, SECONDS));
+        assertEquals(guestJoined, guestInbox.poll(10, SECONDS));
+    }
+
+    private static ConfigurableApplicationContext node(String database, String brokerPort,
+                                                       String ddlAuto, String embeddedBroker) {
+        return new SpringApplicationBuilder(BackendApplication.class)
+                // Command-line arguments, so they override the test application.properties
+                .run(
+                        "--server.port=0",
+                        "--spring.profiles.active=quiet",
+                        "--spring.datasource.url=" + database,
+                        "--spring.jpa.hibernate.ddl-auto=" + ddlAuto,
+                        "--jwt.secret=testSecretKeyForTestingPurposesOnly12345",
+                        "--jwt.expiration=3600000",
+                        "--game.broker.mode=relay",
+                        "--game.broker.relay.port=" + brokerPort,
+                        "--game.broker.embedded.enabled=" + embeddedBroker,
+                        "--game.broker.embedded.port=" + brokerPort);
+    }
+
+    private static void seedRoom() {
+        UserRepository userRepository = nodeA.getBean(UserRepository.class);
+        RoomPlayerRepository roomPlayerRepository = nodeA.getBean(RoomPlayerRepository.class);
+
+        Character character = new Character();
+        character.setName("bob");
+        character.setImageUrl("bob.png");
+        CharacterSet characterSet = new CharacterSet();
+        characterSet.setName("relay set");
+        characterSet.getCharacters().add(character);
+        characterSet = nodeA.getBean(CharacterSetRepository.class).save(characterSet);
+
+        User hostUser = userRepository.save(user());
+        User guestUser = userRepository.save(user());
+
+        Room room = new Room();
+        room.setHost(hostUser);
+        room.setStatus(RoomStatus.WAITING);
+        room.setMaxPlayers(2);
+        room.setCharacterSet(characterSet);
+        room = nodeA.getBean(RoomRepository.class).save(room);
+
+        host = roomPlayerRepository.save(RoomPlayer.builder().room(room).user(hostUser).host(true).build());
+        guest = roomPlayerRepository.save(RoomPlayer.builder().room(room).user(guestUser).host(false).build());
+    }
+
+    private static User user() {
+        return User.builder()
+                .username("relay_" + UUID.randomUUID().toString().substring(0, 8))
+                .email(UUID.randomUUID() + "@test.com")
+                .password("password")
+                .build();
+    }
+
+    private static StompSession connect(ConfigurableApplicationContext node, RoomPlayer player) throws Exception {
+        WebSocketStompClient client = new WebSocketStompClient(new SockJsClient(
+                List.of(new WebSocketTransport(new StandardWebSocketClient()))));
+        client.setMessageConverter(new MappingJackson2MessageConverter());
+
+        int port = ((WebServerApplicationContext) node).getWebServer().getPort();
+        String token = node.getBean(JwtUtil.class).generateToken(player.getUser().getId());
+        String url = String.format("ws://localhost:%d/ws?token=%s", port,
+                URLEncoder.encode(token, StandardCharsets.UTF_8));
+
+        StompHeaders connectHeaders = new StompHeaders();
+        connectHeaders.add("roomId", String.valueOf(player.getRoom().getId()));
+
+        return client.connectAsync(url, new WebSocketHttpHeaders(), connectHeaders,
+                new StompSessionHandlerAdapter() {}).get(10, SECONDS);
+    }
+
+    private static void subscribe(StompSession session, BlockingQueue<GameEvent> inbox) {
+        session.subscribe("/topic/room." + host.getRoom().getId(), new StompFrameHandler() {
+
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return GameEvent.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                inbox.add((GameEvent) payload);
+            }
+        });
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.bronzejade.game.controllers;
+
+import com.bronzejade.game.mapper.CharacterSetMapper;
+import com.bronzejade.game.service.AuthService;
+import com.bronzejade.game.service.CharacterSetCatalog;
+import com.bronzejade.game.service.CharacterSetService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class CharacterSetControllerTest {
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private CharacterSetService characterSetService;
+
+    @Mock
+    private CharacterSetMapper characterSetMapper;
+
+    @Mock
+    private AuthService authService;
+
+    @InjectMocks
+    private CharacterSetController characterSetController;
+
+    private final CharacterSetCatalog.Snapshot catalog = new CharacterSetCatalog.Snapshot(
+            "[{\"name\":\"Classic\",\"characters\":[]}]".getBytes(StandardCharsets.UTF_8), "abc123", 0L);
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(characterSetController).build();
+        when(characterSetService.getCatalog()).thenReturn(catalog);
+    }
+
+    @Test
+    void getAllCharacterSets_ShouldServeCatalogWithEtag() throws Exception {
+        mockMvc.perform(get("/api/character-sets"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"abc123\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+                .andExpect(jsonPath("$[0].name").value("Classic"));
+    }
+
+    @Test
+    void getAllCharacterSets_ShouldReturnNotModified_WhenEtagMatches() throws Exception {
+        mockMvc.perform(get("/api/character-sets").header(HttpHeaders.IF_NONE_MATCH, "\"abc123\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"abc123\""))
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void getAllCharacterSets_ShouldServeCatalog_WhenEtagIsStale() throws Exception {
+        mockMvc.perform(get("/api/character-sets").header(HttpHeaders.IF_NONE_MATCH, "\"old\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("Classic"));
+    }
+}
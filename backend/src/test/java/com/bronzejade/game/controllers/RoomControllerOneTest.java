@@ -12,6 +12,7 @@ import com.bronzejade.game.domain.entities.User;
 import com.bronzejade.game.mapper.RoomMapper;
 import com.bronzejade.game.service.AuthService;
 import com.bronzejade.game.service.RoomService;
+import com.bronzejade.game.service.RoomStateService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -41,6 +42,9 @@ class RoomControllerOneTest {
     @Mock
     private RoomService roomService;
 
+    @Mock
+    private RoomStateService roomStateService;
+
     @Mock
     private RoomMapper roomMapper;
 
@@ -11,6 +11,7 @@ import com.bronzejade.game.mapper.RoomMapper;
 import com.bronzejade.game.mapper.RoomPlayerMapper;
 import com.bronzejade.game.service.AuthService;
 import com.bronzejade.game.service.RoomService;
+import com.bronzejade.game.service.RoomStateService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -39,6 +40,9 @@ class RoomControllerTwoTest {
     @Mock
     private RoomService roomService;
 
+    @Mock
+    private RoomStateService roomStateService;
+
     @Mock
     private RoomMapper roomMapper;
 
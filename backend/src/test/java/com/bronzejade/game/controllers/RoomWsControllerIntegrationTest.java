@@ -2,17 +2,26 @@ package com.bronzejade.game.controllers;
 
 import com.bronzejade.game.domain.RoomStatus;
 import com.bronzejade.game.domain.TurnPhase;
-import com.bronzejade.game.domain.dtos.Room.MessageDto;
+import com.bronzejade.game.domain.dtos.Event.GameEvent;
+import com.bronzejade.game.domain.dtos.Event.RoomStateUpdate;
+import com.bronzejade.game.domain.events.RoomMembershipChangedEvent;
 import com.bronzejade.game.domain.entities.*;
 import com.bronzejade.game.domain.entities.Character;
 import com.bronzejade.game.security.JwtUtil;
+import com.bronzejade.game.service.GameStateWriteBehind;
+import com.bronzejade.game.service.RoomEventLog;
 import com.bronzejade.game.repositories.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.ApplicationEventPublisher;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.springframework.messaging.converter.ByteArrayMessageConverter;
+import org.springframework.messaging.converter.CompositeMessageConverter;
 import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.StringMessageConverter;
 import org.springframework.messaging.simp.stomp.StompFrameHandler;
 import org.springframework.messaging.simp.stomp.StompHeaders;
 import org.springframework.messaging.simp.stomp.StompSession;
@@ -26,13 +35,23 @@ import org.springframework.web.socket.sockjs.client.WebSocketTransport;
 import java.lang.reflect.Type;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @TestPropertySource(properties = {
@@ -62,16 +81,23 @@ public class RoomWsControllerIntegrationTest {
     private GameStateRepository gameStateRepository;
 
     @Autowired
-    private GameActionRepository gameActionRepository;
+    private GameHistoryEventRepository gameHistoryEventRepository;
 
     @Autowired
     private UserRepository userRepository; // Add this
     @Autowired
     private JwtUtil jwtUtil;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private GameStateWriteBehind writeBehind;
 
     private String getWsPath() {
-        RoomPlayer player = roomPlayerRepository.findAll().get(0);
-        String token = jwtUtil.generateToken(player.getUser().getId());
+        return getWsPath(roomPlayerRepository.findAll().get(0).getUser());
+    }
+
+    private String getWsPath(User user) {
+        String token = jwtUtil.generateToken(user.getId());
         String encodedToken = URLEncoder.encode(token, StandardCharsets.UTF_8);
         return String.format("ws://localhost:%d/ws", port) + "?token=" + encodedToken;
     }
@@ -115,16 +141,7 @@ public class RoomWsControllerIntegrationTest {
         GameState gameState = new GameState();
         gameState.setRoom(room);
         gameState.setTurnPhase(TurnPhase.ASKING);
-        GameState savedGameState = gameStateRepository.save(gameState);
-
-        createGameAction(savedGameState);
-    }
-
-    private void createGameAction(GameState gameState) {
-        GameAction gameAction = new GameAction();
-        gameAction.setGameState(gameState);
-        gameAction.setQuestion("Are they young?");
-        gameActionRepository.save(gameAction);
+        gameStateRepository.save(gameState);
     }
 
     private void createRoomPlayers() {
@@ -163,7 +180,7 @@ public class RoomWsControllerIntegrationTest {
         characterSetRepository.deleteAll();
         characterRepository.deleteAll();
         gameStateRepository.deleteAll();
-        gameActionRepository.deleteAll();
+        gameHistoryEventRepository.deleteAll();
         userRepository.deleteAll(); // Add this
 
         createRoomPlayers();
@@ -175,7 +192,7 @@ public class RoomWsControllerIntegrationTest {
     void joinRoom() throws Exception {
         RoomPlayer player = roomPlayerRepository.findAll().get(0);
 
-        BlockingQueue<String> blockingQueue = new ArrayBlockingQueue<>(1);
+        BlockingQueue<GameEvent> blockingQueue = new ArrayBlockingQueue<>(1);
 
         webSocketStompClient.setMessageConverter(new MappingJackson2MessageConverter());
 
@@ -197,31 +214,75 @@ public class RoomWsControllerIntegrationTest {
 
             @Override
             public Type getPayloadType(StompHeaders headers) {
-                return MessageDto.class;
+                return GameEvent.class;
             }
 
             @Override
             public void handleFrame(StompHeaders headers, Object payload) {
-                MessageDto messageDto = (MessageDto) payload;
-                blockingQueue.add(messageDto.getMessage());
+                blockingQueue.add((GameEvent) payload);
             }
         });
 
         session.send("/app/join", "");
 
-        // Updated expected message format
-        String expectedMessage = player.getUser().getUsername() + " has joined room";
+        GameEvent expectedEvent = new GameEvent.PlayerJoined(player.getUser().getId(), player.getUser().getUsername());
 
         await()
                 .atMost(1, SECONDS)
-                .untilAsserted(() -> assertEquals(expectedMessage, blockingQueue.poll()));
+                .untilAsserted(() -> assertEquals(expectedEvent, blockingQueue.poll()));
+    }
+
+    @Test
+    void joinRoomWithCborEvents() throws Exception {
+        RoomPlayer player = roomPlayerRepository.findAll().get(0);
+
+        BlockingQueue<byte[]> blockingQueue = new ArrayBlockingQueue<>(1);
+        BlockingQueue<String> formats = new ArrayBlockingQueue<>(1);
+
+        // CBOR needs binary frames, so this goes to the plain WebSocket endpoint instead of SockJS
+        WebSocketStompClient binaryClient = new WebSocketStompClient(new StandardWebSocketClient());
+        binaryClient.setMessageConverter(new ByteArrayMessageConverter());
+
+        StompHeaders connectHeaders = new StompHeaders();
+        connectHeaders.add("roomId", String.valueOf(player.getRoom().getId()));
+        connectHeaders.add("event-format", "cbor");
+
+        StompSession session = binaryClient
+                .connectAsync(
+                        getWsPath().replace("/ws?", "/ws-native?"),
+                        new WebSocketHttpHeaders(),
+                        connectHeaders,
+                        new StompSessionHandlerAdapter() {}
+                )
+                .get(5, SECONDS);
+
+        session.subscribe("/topic/room." + player.getRoom().getId(), new StompFrameHandler() {
+
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return byte[].class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                formats.add(String.valueOf(headers.getFirst("event-format")));
+                blockingQueue.add((byte[]) payload);
+            }
+        });
+
+        session.send("/app/join", new byte[0]);
+
+        byte[] frame = blockingQueue.poll(5, SECONDS);
+        assertEquals("cbor", formats.poll());
+        assertEquals(new GameEvent.PlayerJoined(player.getUser().getId(), player.getUser().getUsername()),
+                new CBORMapper().readValue(frame, GameEvent.class));
     }
 
     @Test
     void toggleReady() throws Exception {
         RoomPlayer player = roomPlayerRepository.findAll().get(0);
 
-        BlockingQueue<String> blockingQueue = new ArrayBlockingQueue<>(1);
+        BlockingQueue<GameEvent> blockingQueue = new ArrayBlockingQueue<>(1);
 
         webSocketStompClient.setMessageConverter(new MappingJackson2MessageConverter());
 
@@ -242,24 +303,41 @@ public class RoomWsControllerIntegrationTest {
 
             @Override
             public Type getPayloadType(StompHeaders headers) {
-                return MessageDto.class;
+                return GameEvent.class;
             }
 
             @Override
             public void handleFrame(StompHeaders headers, Object payload) {
-                MessageDto messageDto = (MessageDto) payload;
-                blockingQueue.add(messageDto.getMessage());
+                blockingQueue.add((GameEvent) payload);
             }
         });
 
         session.send("/app/ready", "");
 
-        // Updated expected message format
-        String expectedMessage = player.getUser().getUsername() + " is ready";
+        GameEvent expectedEvent = new GameEvent.ReadyToggled(player.getUser().getId(), player.getUser().getUsername(), true);
 
         await()
                 .atMost(1, SECONDS)
-                .untilAsserted(() -> assertEquals(expectedMessage, blockingQueue.poll()));
+                .untilAsserted(() -> assertEquals(expectedEvent, blockingQueue.poll()));
+    }
+
+    @Test
+    void frameAfterMembershipChangeResolvesIdentityAgain() throws Exception {
+        RoomPlayer player = roomPlayerRepository.findAll().get(0);
+        UUID roomId = player.getRoom().getId();
+
+        webSocketStompClient.setMessageConverter(new MappingJackson2MessageConverter());
+
+        BlockingQueue<GameEvent> eventQueue = new ArrayBlockingQueue<>(4);
+        StompSession session = connect(roomId, null);
+        subscribe(session, "/topic/room." + roomId, GameEvent.class, eventQueue);
+
+        // Drops the identity cached for the session, as leaving and rejoining the room would
+        eventPublisher.publishEvent(RoomMembershipChangedEvent.left(roomId, player.getUser().getId()));
+        session.send("/app/ready", "");
+
+        assertEquals(new GameEvent.ReadyToggled(player.getUser().getId(), player.getUser().getUsername(), true),
+                eventQueue.poll(5, SECONDS));
     }
 
     @Test
@@ -268,7 +346,7 @@ public class RoomWsControllerIntegrationTest {
         player.setReady(true);
         roomPlayerRepository.save(player);
 
-        BlockingQueue<String> blockingQueue = new ArrayBlockingQueue<>(1);
+        BlockingQueue<GameEvent> blockingQueue = new ArrayBlockingQueue<>(1);
 
         webSocketStompClient.setMessageConverter(new MappingJackson2MessageConverter());
 
@@ -289,24 +367,22 @@ public class RoomWsControllerIntegrationTest {
 
             @Override
             public Type getPayloadType(StompHeaders headers) {
-                return MessageDto.class;
+                return GameEvent.class;
             }
 
             @Override
             public void handleFrame(StompHeaders headers, Object payload) {
-                MessageDto messageDto = (MessageDto) payload;
-                blockingQueue.add(messageDto.getMessage());
+                blockingQueue.add((GameEvent) payload);
             }
         });
 
         session.send("/app/ready", "");
 
-        // Updated expected message format
-        String expectedMessage = player.getUser().getUsername() + " is not ready";
+        GameEvent expectedEvent = new GameEvent.ReadyToggled(player.getUser().getId(), player.getUser().getUsername(), false);
 
         await()
                 .atMost(1, SECONDS)
-                .untilAsserted(() -> assertEquals(expectedMessage, blockingQueue.poll()));
+                .untilAsserted(() -> assertEquals(expectedEvent, blockingQueue.poll()));
     }
 
     // Update other test methods similarly...
@@ -323,7 +399,7 @@ public class RoomWsControllerIntegrationTest {
         gameState.setTurnPlayer(player);
         gameStateRepository.save(gameState);
 
-        BlockingQueue<String> blockingQueue = new ArrayBlockingQueue<>(1);
+        BlockingQueue<GameEvent> blockingQueue = new ArrayBlockingQueue<>(1);
 
         webSocketStompClient.setMessageConverter(new MappingJackson2MessageConverter());
 
@@ -344,24 +420,290 @@ public class RoomWsControllerIntegrationTest {
 
             @Override
             public Type getPayloadType(StompHeaders headers) {
-                return MessageDto.class;
+                return GameEvent.class;
             }
 
             @Override
             public void handleFrame(StompHeaders headers, Object payload) {
-                MessageDto messageDto = (MessageDto) payload;
-                blockingQueue.add(messageDto.getMessage());
+                blockingQueue.add((GameEvent) payload);
             }
         });
 
         String question = "Are they young?";
         session.send("/app/question", question);
 
-        // Updated expected message format
-        String expectedMessage = player.getUser().getUsername() + ": " + question;
+        GameEvent expectedEvent = new GameEvent.QuestionAsked(player.getUser().getId(), player.getUser().getUsername(), question);
 
         await()
                 .atMost(1, SECONDS)
-                .untilAsserted(() -> assertEquals(expectedMessage, blockingQueue.poll()));
+                .untilAsserted(() -> assertEquals(expectedEvent, blockingQueue.poll()));
+    }
+
+    @Test
+    void stateStreamSendsSnapshotThenDeltas() throws Exception {
+        RoomPlayer player = roomPlayerRepository.findAll().get(0);
+        UUID roomId = player.getRoom().getId();
+
+        BlockingQueue<RoomStateUpdate> stateQueue = new ArrayBlockingQueue<>(4);
+        BlockingQueue<RoomStateUpdate> replyQueue = new ArrayBlockingQueue<>(1);
+
+        webSocketStompClient.setMessageConverter(new MappingJackson2MessageConverter());
+
+        StompHeaders connectHeaders = new StompHeaders();
+        connectHeaders.add("roomId", String.valueOf(roomId));
+
+        StompSession session = webSocketStompClient
+                .connectAsync(
+                        getWsPath(),
+                        new WebSocketHttpHeaders(),
+                        connectHeaders,
+                        new StompSessionHandlerAdapter() {}
+                )
+                .get(1, SECONDS);
+
+        session.subscribe("/user/queue/state", new StompFrameHandler() {
+
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return RoomStateUpdate.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                replyQueue.add((RoomStateUpdate) payload);
+            }
+        });
+
+        session.subscribe("/topic/room." + roomId + ".state", new StompFrameHandler() {
+
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return RoomStateUpdate.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                stateQueue.add((RoomStateUpdate) payload);
+            }
+        });
+
+        RoomStateUpdate.Snapshot snapshot = assertInstanceOf(RoomStateUpdate.Snapshot.class, stateQueue.poll(5, SECONDS));
+        assertEquals(RoomStatus.WAITING, snapshot.status());
+        assertEquals(2, snapshot.players().size());
+        assertTrue(snapshot.players().stream().allMatch(RoomStateUpdate.PlayerState::characterSelected));
+
+        session.send("/app/ready", "");
+
+        // The ReadyToggled room event takes the number in between
+        RoomStateUpdate.PlayerReady delta = assertInstanceOf(RoomStateUpdate.PlayerReady.class, stateQueue.poll(5, SECONDS));
+        assertEquals(snapshot.seq() + 2, delta.seq());
+        assertEquals(player.getUser().getId(), delta.userId());
+        assertTrue(delta.ready());
+
+        session.send("/app/state", "");
+
+        RoomStateUpdate.Snapshot reply = assertInstanceOf(RoomStateUpdate.Snapshot.class, replyQueue.poll(5, SECONDS));
+        assertEquals(delta.seq(), reply.seq());
+        assertTrue(reply.players().stream()
+                .filter(p -> p.userId().equals(player.getUser().getId()))
+                .allMatch(RoomStateUpdate.PlayerState::ready));
+    }
+
+    @Test
+    void reconnectReplaysMissedBroadcasts() throws Exception {
+        RoomPlayer player = roomPlayerRepository.findAll().get(0);
+        UUID roomId = player.getRoom().getId();
+
+        webSocketStompClient.setMessageConverter(new MappingJackson2MessageConverter());
+
+        BlockingQueue<RoomStateUpdate> stateQueue = new ArrayBlockingQueue<>(4);
+        StompSession first = connect(roomId, null);
+        subscribe(first, "/topic/room." + roomId + ".state", RoomStateUpdate.class, stateQueue);
+        long seenSeq = stateQueue.poll(5, SECONDS).seq();
+
+        // Broadcasts the client misses while its socket is gone
+        first.disconnect();
+        StompSession other = connect(roomId, null);
+        other.send("/app/ready", "");
+        other.send("/app/ready", "");
+        await().atMost(5, SECONDS).until(() -> !roomPlayerRepository.findById(player.getId()).get().isReady());
+
+        BlockingQueue<GameEvent> eventQueue = new ArrayBlockingQueue<>(4);
+        StompSession resumed = connect(roomId, seenSeq);
+        subscribe(resumed, "/topic/room." + roomId, GameEvent.class, eventQueue);
+        subscribe(resumed, "/topic/room." + roomId + ".state", RoomStateUpdate.class, stateQueue);
+
+        String userName = player.getUser().getUsername();
+        assertEquals(new GameEvent.ReadyToggled(player.getUser().getId(), userName, true), eventQueue.poll(5, SECONDS));
+        assertEquals(new GameEvent.ReadyToggled(player.getUser().getId(), userName, false), eventQueue.poll(5, SECONDS));
+        assertEquals(new RoomStateUpdate.PlayerReady(seenSeq + 2, player.getUser().getId(), true), stateQueue.poll(5, SECONDS));
+        assertEquals(new RoomStateUpdate.PlayerReady(seenSeq + 4, player.getUser().getId(), false), stateQueue.poll(5, SECONDS));
+
+        // A sequence the server never issued (e.g. from before a restart) falls back to a snapshot
+        StompSession stale = connect(roomId, seenSeq + 1000);
+        subscribe(stale, "/topic/room." + roomId + ".state", RoomStateUpdate.class, stateQueue);
+        RoomStateUpdate.Snapshot snapshot = assertInstanceOf(RoomStateUpdate.Snapshot.class, stateQueue.poll(5, SECONDS));
+        assertEquals(seenSeq + 4, snapshot.seq());
+    }
+
+    /**
+     * Both players fire /question, /answer and /guess frames at once, most of them out of
+     * turn. Every frame goes through the room's inbound lane, the per-session identity and
+     * the broadcast path, so the broadcasts have to read as one legal game: each accepted
+     * move made by the right player, followed straight away by the turn it led to.
+     */
+    @Test
+    void conflictingTurnFramesFromTwoSessionsBroadcastOneLegalGame() throws Exception {
+        Room room = roomRepository.findAll().get(0);
+        room.setStatus(RoomStatus.IN_PROGRESS);
+        roomRepository.save(room);
+        List<RoomPlayer> players = roomPlayerRepository.findByRoomId(room.getId());
+        RoomPlayer host = players.stream().filter(RoomPlayer::isHost).findFirst().orElseThrow();
+        RoomPlayer guest = players.stream().filter(p -> !p.isHost()).findFirst().orElseThrow();
+        GameState gameState = gameStateRepository.findAll().get(0);
+        gameState.setTurnPlayer(host);
+        gameState.setRoundNumber(1);
+        gameStateRepository.save(gameState);
+        // Both players hold bob, so guessing charlie is always wrong and only passes the turn
+        String wrongGuess = characterRepository.findByName("charlie").getId().toString();
+
+        webSocketStompClient.setMessageConverter(new CompositeMessageConverter(
+                List.of(new StringMessageConverter(), new MappingJackson2MessageConverter())));
+        Map<Long, Object> broadcasts = new ConcurrentSkipListMap<>();
+        AtomicInteger rejected = new AtomicInteger();
+        StompSession[] sessions = new StompSession[2];
+        User[] users = {host.getUser(), guest.getUser()};
+        for (int i = 0; i < 2; i++) {
+            sessions[i] = connect(room.getId(), null, users[i]);
+            sessions[i].subscribe("/user/queue/errors", new StompFrameHandler() {
+
+                @Override
+                public Type getPayloadType(StompHeaders headers) {
+                    return String.class;
+                }
+
+                @Override
+                public void handleFrame(StompHeaders headers, Object payload) {
+                    rejected.incrementAndGet();
+                }
+            });
+        }
+        // One session records the room's broadcasts, keyed by the shared sequence number
+        recordSequenced(sessions[0], "/topic/room." + room.getId(), GameEvent.class, broadcasts);
+        recordSequenced(sessions[0], "/topic/room." + room.getId() + ".state", RoomStateUpdate.class, broadcasts);
+        // The snapshot (unsequenced, as nothing was broadcast yet) shows the subscriptions are in
+        await().atMost(5, SECONDS).until(() -> broadcasts.containsKey(0L));
+        broadcasts.remove(0L);
+
+        int framesPerSession = 60;
+        ExecutorService senders = Executors.newFixedThreadPool(2);
+        List<Future<?>> sent = new ArrayList<>();
+        for (StompSession session : sessions) {
+            sent.add(senders.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < framesPerSession; i++) {
+                    switch (random.nextInt(3)) {
+                        case 0 -> session.send("/app/question", "Tall?");
+                        case 1 -> session.send("/app/answer", "No");
+                        default -> session.send("/app/guess", wrongGuess);
+                    }
+                }
+            }));
+        }
+        for (Future<?> sender : sent) {
+            sender.get(10, SECONDS);
+        }
+        senders.shutdown();
+
+        // An accepted frame broadcasts its event and the turn it led to, a refused one an error
+        await().atMost(30, SECONDS).until(() -> broadcasts.size() / 2 + rejected.get() == 2 * framesPerSession);
+        assertTrue(rejected.get() > 0, "no frame was ever out of turn");
+
+        UUID turnUser = host.getUser().getId();
+        UUID otherUser = guest.getUser().getId();
+        TurnPhase phase = TurnPhase.ASKING;
+        int round = 1;
+        int answers = 0;
+        List<Long> seqs = new ArrayList<>(broadcasts.keySet());
+        assertEquals(seqs.get(0) + seqs.size() - 1, seqs.get(seqs.size() - 1), "gap in the sequence");
+        for (int i = 0; i < seqs.size(); i += 2) {
+            GameEvent event = assertInstanceOf(GameEvent.class, broadcasts.get(seqs.get(i)));
+            if (event instanceof GameEvent.QuestionAsked asked) {
+                assertEquals(TurnPhase.ASKING, phase);
+                assertEquals(turnUser, asked.userId());
+                phase = TurnPhase.ANSWERING;
+            } else if (event instanceof GameEvent.AnswerGiven answer) {
+                assertEquals(TurnPhase.ANSWERING, phase);
+                assertEquals(otherUser, answer.userId());
+                otherUser = turnUser;
+                turnUser = answer.userId();
+                phase = TurnPhase.ASKING;
+                round++;
+                answers++;
+            } else if (event instanceof GameEvent.GuessResult guess) {
+                assertEquals(TurnPhase.ASKING, phase);
+                assertEquals(turnUser, guess.userId());
+                turnUser = otherUser;
+                otherUser = guess.userId();
+            } else {
+                throw new AssertionError("unexpected event " + event);
+            }
+            assertEquals(new RoomStateUpdate.TurnChanged(seqs.get(i + 1), turnUser, phase, round),
+                    broadcasts.get(seqs.get(i + 1)));
+        }
+
+        writeBehind.flush();
+        GameState persisted = gameStateRepository.findById(gameState.getId()).orElseThrow();
+        assertEquals(1 + answers, persisted.getRoundNumber());
+        assertEquals(phase, persisted.getTurnPhase());
+        assertEquals(turnUser.equals(host.getUser().getId()) ? host.getId() : guest.getId(),
+                persisted.getTurnPlayer().getId());
+    }
+
+    private StompSession connect(UUID roomId, Long lastSeq) throws Exception {
+        return connect(roomId, lastSeq, roomPlayerRepository.findAll().get(0).getUser());
+    }
+
+    private StompSession connect(UUID roomId, Long lastSeq, User user) throws Exception {
+        StompHeaders connectHeaders = new StompHeaders();
+        connectHeaders.add("roomId", String.valueOf(roomId));
+        if (lastSeq != null) {
+            connectHeaders.add("last-seq", String.valueOf(lastSeq));
+        }
+        return webSocketStompClient
+                .connectAsync(getWsPath(user), new WebSocketHttpHeaders(), connectHeaders, new StompSessionHandlerAdapter() {})
+                .get(5, SECONDS);
+    }
+
+    private static <T> void subscribe(StompSession session, String destination, Class<T> type, BlockingQueue<T> queue) {
+        session.subscribe(destination, new StompFrameHandler() {
+
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return type;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                queue.add(type.cast(payload));
+            }
+        });
+    }
+
+    private static <T> void recordSequenced(StompSession session, String destination, Class<T> type,
+                                            Map<Long, Object> frames) {
+        session.subscribe(destination, new StompFrameHandler() {
+
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return type;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                String seq = headers.getFirst(RoomEventLog.SEQ_HEADER);
+                frames.put(seq == null ? 0L : Long.parseLong(seq), payload);
+            }
+        });
     }
 }
@@ -0,0 +1,337 @@
+package com.bronzejade.game.loadtest;
+
+import com.bronzejade.game.BackendApplication;
+import com.bronzejade.game.domain.dtos.Character.CharacterDto;
+import com.bronzejade.game.domain.dtos.Character.CharacterSetDto;
+import com.bronzejade.game.domain.dtos.Character.CreateCharacterRequest;
+import com.bronzejade.game.domain.dtos.Character.CreateCharacterSetRequest;
+import com.bronzejade.game.domain.dtos.Character.SelectCharacterRequest;
+import com.bronzejade.game.domain.dtos.Event.GameEvent;
+import com.bronzejade.game.domain.dtos.Room.CreateRoomRequest;
+import com.bronzejade.game.domain.dtos.Room.RoomDto;
+import com.bronzejade.game.domain.dtos.User.AuthResponse;
+import com.bronzejade.game.domain.dtos.User.RegisterRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.messaging.converter.CompositeMessageConverter;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.StringMessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import java.lang.reflect.Type;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Plays whole games end to end to size nodes: every simulated room has two players that
+ * create, join and select over REST, then connect through the SockJS endpoint (the same
+ * client setup as RoomWsControllerIntegrationTest) and ready, start, ask, answer and
+ * guess over STOMP. Latency is recorded per REST route and per @MessageMapping
+ * destination; for STOMP it runs from SEND until the matching room broadcast comes back.
+ * <p>
+ * By default a node with H2 is started in-process. Point -Dload.base-url at a running
+ * server (e.g. one backed by Postgres) to measure that instead.
+ * <p>
+ * mvn -Pload test -Dtest=GameFlowLoadTest [-Dload.games=200] [-Dload.concurrency=50] [-Dload.rounds=3]
+ * [-Dload.base-url=http://localhost:8080]
+ */
+@Tag("load")
+@Slf4j
+public class GameFlowLoadTest {
+
+    private static final int GAMES = Integer.getInteger("load.games", 200);
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 50);
+    private static final int ROUNDS = Integer.getInteger("load.rounds", 3);
+    private static final String BASE_URL = System.getProperty("load.base-url");
+    private static final long REPLY_TIMEOUT_MS = Long.getLong("load.reply-timeout-ms", 30_000);
+    private static final String PASSWORD = "Load!Test1";
+
+    private final Map<String, Histogram> latencies = new LinkedHashMap<>();
+    private final AtomicInteger finishedGames = new AtomicInteger();
+    private final ConcurrentLinkedQueue<String> failures = new ConcurrentLinkedQueue<>();
+
+    private RestClient rest;
+    private WebSocketStompClient stompClient;
+    private String wsUrl;
+
+    @Test
+    void playConcurrentGames() throws Exception {
+        for (String destination : List.of("POST /api/rooms", "POST /api/rooms/join/{code}",
+                "POST /api/rooms/{id}/select-character", "/app/join", "/app/ready", "/app/start",
+                "/app/question", "/app/answer", "/app/guess")) {
+            latencies.put(destination, new ConcurrentHistogram(TimeUnit.SECONDS.toMicros(60), 3));
+        }
+
+        ConfigurableApplicationContext node = BASE_URL == null ? startNode() : null;
+        String baseUrl = node == null ? BASE_URL
+                : "http://localhost:" + ((WebServerApplicationContext) node).getWebServer().getPort();
+        rest = RestClient.builder().baseUrl(baseUrl).requestFactory(new JdkClientHttpRequestFactory()).build();
+        wsUrl = baseUrl.replaceFirst("^http", "ws") + "/ws";
+        stompClient = new WebSocketStompClient(new SockJsClient(
+                List.of(new WebSocketTransport(new StandardWebSocketClient()))));
+        // Errors come back as plain text, room events as JSON
+        stompClient.setMessageConverter(new CompositeMessageConverter(
+                List.of(new StringMessageConverter(), new MappingJackson2MessageConverter())));
+
+        ExecutorService workers = Executors.newFixedThreadPool(CONCURRENCY);
+        try {
+            // Users are registered up front (password hashing is not what we measure)
+            // and every worker reuses its own pair for all of its games
+            BlockingQueue<AuthResponse[]> pairs = new LinkedBlockingQueue<>();
+            for (int i = 0; i < CONCURRENCY; i++) {
+                pairs.add(new AuthResponse[]{register(), register()});
+            }
+            CharacterSetDto characterSet = createCharacterSet(pairs.peek()[0]);
+
+            List<Callable<Void>> games = new ArrayList<>();
+            for (int i = 0; i < GAMES; i++) {
+                games.add(() -> {
+                    AuthResponse[] pair = pairs.take();
+                    try {
+                        playGame(pair[0], pair[1], characterSet);
+                        finishedGames.incrementAndGet();
+                    } catch (Exception e) {
+                        failures.add(e.getClass().getSimpleName() + ": " + e.getMessage());
+                    } finally {
+                        pairs.add(pair);
+                    }
+                    return null;
+                });
+            }
+
+            long start = System.nanoTime();
+            for (Future<Void> game : workers.invokeAll(games)) {
+                game.get();
+            }
+            report((System.nanoTime() - start) / 1e9);
+        } finally {
+            workers.shutdownNow();
+            if (node != null) {
+                node.close();
+            }
+        }
+
+        assertTrue(finishedGames.get() > 0, "no game finished: " + failures.peek());
+    }
+
+    private void playGame(AuthResponse host, AuthResponse guest, CharacterSetDto characterSet) throws Exception {
+        RoomDto room = timed("POST /api/rooms", () -> rest.post().uri("/api/rooms")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + host.getToken())
+                .body(CreateRoomRequest.builder().characterSetId(characterSet.getId()).build())
+                .retrieve().body(RoomDto.class));
+        timed("POST /api/rooms/join/{code}", () -> rest.post().uri("/api/rooms/join/{code}", room.getRoomCode())
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + guest.getToken())
+                .retrieve().toBodilessEntity());
+
+        // Each player picks the character the other one has to guess
+        List<CharacterDto> characters = new ArrayList<>(characterSet.getCharacters());
+        Map<UUID, UUID> secretOf = Map.of(host.getUserId(), characters.get(0).getId(),
+                guest.getUserId(), characters.get(1).getId());
+        for (AuthResponse player : List.of(host, guest)) {
+            timed("POST /api/rooms/{id}/select-character", () -> rest.post()
+                    .uri("/api/rooms/{id}/select-character", room.getId())
+                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + player.getToken())
+                    .body(SelectCharacterRequest.builder().characterId(secretOf.get(player.getUserId())).build())
+                    .retrieve().toBodilessEntity());
+        }
+
+        PlayerConnection hostConnection = connect(host, room);
+        PlayerConnection guestConnection = connect(guest, room);
+        try {
+            for (PlayerConnection player : List.of(hostConnection, guestConnection)) {
+                player.send("/app/join", "", e -> e instanceof GameEvent.PlayerJoined j && player.owns(j.userId()));
+                player.send("/app/ready", "", e -> e instanceof GameEvent.ReadyToggled r && player.owns(r.userId()));
+            }
+            GameEvent.GameStarted started = (GameEvent.GameStarted) hostConnection.send("/app/start", "",
+                    e -> e instanceof GameEvent.GameStarted);
+
+            PlayerConnection asker = hostConnection.owns(started.turnUserId()) ? hostConnection : guestConnection;
+            PlayerConnection answerer = asker == hostConnection ? guestConnection : hostConnection;
+            for (int round = 1; round <= ROUNDS; round++) {
+                String question = "Round " + round + " " + asker.userId + "?";
+                asker.send("/app/question", question,
+                        e -> e instanceof GameEvent.QuestionAsked q && q.question().equals(question));
+                String answer = "Yes " + round + " " + answerer.userId;
+                answerer.send("/app/answer", answer,
+                        e -> e instanceof GameEvent.AnswerGiven a && a.answer().equals(answer));
+                // Whoever answered asks next
+                PlayerConnection previous = asker;
+                asker = answerer;
+                answerer = previous;
+            }
+
+            GameEvent.GuessResult result = (GameEvent.GuessResult) asker.send("/app/guess",
+                    secretOf.get(answerer.userId).toString(), e -> e instanceof GameEvent.GuessResult);
+            if (!result.gameEnded()) {
+                throw new IllegalStateException("Correct guess did not end the game in room " + room.getId());
+            }
+        } finally {
+            hostConnection.session.disconnect();
+            guestConnection.session.disconnect();
+        }
+    }
+
+    private PlayerConnection connect(AuthResponse player, RoomDto room) throws Exception {
+        StompHeaders connectHeaders = new StompHeaders();
+        connectHeaders.add("roomId", String.valueOf(room.getId()));
+        StompSession session = stompClient.connectAsync(
+                wsUrl + "?token=" + URLEncoder.encode(player.getToken(), StandardCharsets.UTF_8),
+                new WebSocketHttpHeaders(), connectHeaders, new StompSessionHandlerAdapter() {}
+        ).get(REPLY_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+
+        PlayerConnection connection = new PlayerConnection(player.getUserId(), session);
+        session.subscribe("/topic/room." + room.getId(), new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return GameEvent.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                connection.events.add((GameEvent) payload);
+            }
+        });
+        session.subscribe("/user/queue/errors", new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return String.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                connection.errors.add(String.valueOf(payload));
+            }
+        });
+        return connection;
+    }
+
+    private final class PlayerConnection {
+        private final UUID userId;
+        private final StompSession session;
+        private final BlockingQueue<GameEvent> events = new LinkedBlockingQueue<>();
+        private final BlockingQueue<String> errors = new LinkedBlockingQueue<>();
+
+        PlayerConnection(UUID userId, StompSession session) {
+            this.userId = userId;
+            this.session = session;
+        }
+
+        boolean owns(UUID userId) {
+            return this.userId.equals(userId);
+        }
+
+        // Sends a frame and waits for the broadcast it causes; broadcasts of other frames are skipped
+        GameEvent send(String destination, String payload, Predicate<GameEvent> reply) throws Exception {
+            long start = System.nanoTime();
+            session.send(destination, payload);
+            long deadline = start + TimeUnit.MILLISECONDS.toNanos(REPLY_TIMEOUT_MS);
+            while (System.nanoTime() < deadline) {
+                String error = errors.poll();
+                if (error != null) {
+                    throw new IllegalStateException(destination + " failed: " + error);
+                }
+                GameEvent event = events.poll(10, TimeUnit.MILLISECONDS);
+                if (event != null && reply.test(event)) {
+                    record(destination, start);
+                    return event;
+                }
+            }
+            throw new TimeoutException("No reply to " + destination + " within " + REPLY_TIMEOUT_MS + " ms");
+        }
+    }
+
+    private <T> T timed(String destination, Callable<T> call) throws Exception {
+        long start = System.nanoTime();
+        T result = call.call();
+        record(destination, start);
+        return result;
+    }
+
+    private void record(String destination, long start) {
+        latencies.get(destination).recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+    }
+
+    private AuthResponse register() {
+        String name = "load_" + UUID.randomUUID().toString().substring(0, 12);
+        RegisterRequest request = new RegisterRequest();
+        request.setUsername(name);
+        request.setEmail(name + "@load.test");
+        request.setPassword(PASSWORD);
+        return rest.post().uri("/api/auth/register").body(request).retrieve().body(AuthResponse.class);
+    }
+
+    private CharacterSetDto createCharacterSet(AuthResponse owner) {
+        return rest.post().uri("/api/character-sets")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + owner.getToken())
+                .body(CreateCharacterSetRequest.builder()
+                        .name("load set")
+                        .isPublic(false)
+                        .characters(List.of(
+                                CreateCharacterRequest.builder().name("bob").imageUrl("bob.png").build(),
+                                CreateCharacterRequest.builder().name("charlie").imageUrl("charlie.png").build()))
+                        .build())
+                .retrieve().body(CharacterSetDto.class);
+    }
+
+    private void report(double seconds) {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("%d/%d games finished in %.1f s (%.1f games/s, concurrency %d, %d rounds)",
+                finishedGames.get(), GAMES, seconds, finishedGames.get() / seconds, CONCURRENCY, ROUNDS));
+        lines.add(String.format("%-38s %7s %9s %9s %9s %9s %9s", "destination", "count", "per s",
+                "p50 ms", "p99 ms", "p999 ms", "max ms"));
+        latencies.forEach((destination, histogram) -> lines.add(String.format("%-38s %7d %9.1f %9.1f %9.1f %9.1f %9.1f",
+                destination, histogram.getTotalCount(), histogram.getTotalCount() / seconds,
+                histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getValueAtPercentile(99.9) / 1000.0, histogram.getMaxValue() / 1000.0)));
+        if (!failures.isEmpty()) {
+            lines.add(failures.size() + " games failed, first: " + failures.peek());
+        }
+        log.info("Game flow load test{}{}", System.lineSeparator(), String.join(System.lineSeparator(), lines));
+    }
+
+    private static ConfigurableApplicationContext startNode() {
+        return new SpringApplicationBuilder(BackendApplication.class)
+                // Command-line arguments, so they override the test application.properties
+                .run(
+                        "--server.port=0",
+                        "--spring.profiles.active=quiet",
+                        "--spring.datasource.url=jdbc:h2:mem:load-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                        "--jwt.secret=loadTestSecretKeyForLoadTestingOnly12345",
+                        "--jwt.expiration=3600000");
+    }
+}
@@ -0,0 +1,219 @@
+package com.bronzejade.game.loadtest;
+
+import com.bronzejade.game.BackendApplication;
+import com.bronzejade.game.domain.RoomStatus;
+import com.bronzejade.game.domain.dtos.Event.GameEvent;
+import com.bronzejade.game.domain.entities.Character;
+import com.bronzejade.game.domain.entities.CharacterSet;
+import com.bronzejade.game.domain.entities.Room;
+import com.bronzejade.game.domain.entities.RoomPlayer;
+import com.bronzejade.game.domain.entities.User;
+import com.bronzejade.game.repositories.CharacterSetRepository;
+import com.bronzejade.game.repositories.RoomPlayerRepository;
+import com.bronzejade.game.repositories.RoomRepository;
+import com.bronzejade.game.repositories.UserRepository;
+import com.bronzejade.game.security.JwtUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares how many rooms one node sustains at a fixed p99 with platform-thread pools
+ * versus virtual threads (spring.threads.virtual.enabled). Each room's host toggles ready
+ * at a steady pace; a toggle is a JDBC transaction, and its latency is measured from SEND
+ * to the room broadcast arriving back. The room count is stepped up until p99 exceeds the
+ * target. The virtual-thread run is skipped on JVMs older than 21.
+ * <p>
+ * mvn -Pload test -Dtest=ThreadingModeLoadTest [-Dload.rooms=25,50,100,200,400] [-Dload.p99-target-ms=100]
+ */
+@Tag("load")
+@Slf4j
+public class ThreadingModeLoadTest {
+
+    private static final int[] ROOM_STEPS = Arrays.stream(System.getProperty("load.rooms", "25,50,100,200,400")
+            .split(",")).mapToInt(step -> Integer.parseInt(step.trim())).toArray();
+    private static final long P99_TARGET_MS = Long.getLong("load.p99-target-ms", 100);
+    private static final int FRAMES_PER_ROOM = Integer.getInteger("load.frames-per-room", 20);
+    private static final long FRAME_INTERVAL_MS = Long.getLong("load.frame-interval-ms", 50);
+    private static final String DB_POOL_SIZE = System.getProperty("load.db-pool-size", "10");
+
+    @Test
+    void roomsPerNodeAtFixedP99() throws Exception {
+        List<String> report = new ArrayList<>();
+        report.add(String.format("%-9s %6s %9s %9s %10s", "mode", "rooms", "p50 ms", "p99 ms", "frames/s"));
+
+        int platformRooms = run(false, report);
+        int virtualRooms = Runtime.version().feature() >= 21 ? run(true, report) : -1;
+
+        report.add("");
+        report.add("rooms per node at p99 <= " + P99_TARGET_MS + " ms: platform=" + platformRooms
+                + ", virtual=" + (virtualRooms < 0 ? "skipped (needs Java 21+)" : virtualRooms));
+        log.info("Threading mode load test{}{}", System.lineSeparator(), String.join(System.lineSeparator(), report));
+
+        assertTrue(platformRooms >= ROOM_STEPS[0], "platform threads did not sustain " + ROOM_STEPS[0]
+                + " rooms at p99 <= " + P99_TARGET_MS + " ms");
+    }
+
+    // Returns the largest room count whose p99 stayed within the target
+    private int run(boolean virtualThreads, List<String> report) throws Exception {
+        int sustained = 0;
+        try (ConfigurableApplicationContext node = startNode(virtualThreads)) {
+            // Warm-up pass so JIT compilation does not land in the first measured step
+            drive(node, ROOM_STEPS[0]);
+            for (int rooms : ROOM_STEPS) {
+                Histogram latencies = drive(node, rooms);
+                double seconds = FRAMES_PER_ROOM * FRAME_INTERVAL_MS / 1000.0;
+                long p99 = TimeUnit.MICROSECONDS.toMillis(latencies.getValueAtPercentile(99));
+                report.add(String.format("%-9s %6d %9.1f %9d %10.0f", virtualThreads ? "virtual" : "platform", rooms,
+                        latencies.getValueAtPercentile(50) / 1000.0, p99, latencies.getTotalCount() / seconds));
+                if (p99 > P99_TARGET_MS) {
+                    break;
+                }
+                sustained = rooms;
+            }
+        }
+        return sustained;
+    }
+
+    private static ConfigurableApplicationContext startNode(boolean virtualThreads) {
+        return new SpringApplicationBuilder(BackendApplication.class)
+                // Command-line arguments, so they override the test application.properties
+                .run(
+                        "--server.port=0",
+                        "--spring.profiles.active=quiet",
+                        "--spring.datasource.url=jdbc:h2:mem:load-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.hikari.maximum-pool-size=" + DB_POOL_SIZE,
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--jwt.secret=loadTestSecretKeyForLoadTestingOnly12345",
+                        "--jwt.expiration=3600000");
+    }
+
+    private Histogram drive(ConfigurableApplicationContext node, int rooms) throws Exception {
+        Histogram latencies = new ConcurrentHistogram(TimeUnit.SECONDS.toMicros(30), 3);
+        CountDownLatch received = new CountDownLatch(rooms * FRAMES_PER_ROOM);
+
+        WebSocketStompClient client = new WebSocketStompClient(new StandardWebSocketClient());
+        client.setMessageConverter(new MappingJackson2MessageConverter());
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(4);
+        scheduler.initialize();
+
+        List<StompSession> sessions = new ArrayList<>();
+        try {
+            for (RoomPlayer host : seedRooms(node, rooms)) {
+                Queue<Long> sentAt = new ConcurrentLinkedQueue<>();
+                StompSession session = connect(client, node, host);
+                session.subscribe("/topic/room." + host.getRoom().getId(), new StompFrameHandler() {
+                    @Override
+                    public Type getPayloadType(StompHeaders headers) {
+                        return GameEvent.class;
+                    }
+
+                    @Override
+                    public void handleFrame(StompHeaders headers, Object payload) {
+                        // Frames of one room are answered in order, so the oldest send matches
+                        Long start = sentAt.poll();
+                        if (start != null) {
+                            latencies.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                            received.countDown();
+                        }
+                    }
+                });
+                sessions.add(session);
+
+                // Spread room start times over one interval so load is steady rather than bursty
+                long offset = (long) (Math.random() * FRAME_INTERVAL_MS);
+                for (int frame = 0; frame < FRAMES_PER_ROOM; frame++) {
+                    scheduler.schedule(() -> {
+                        sentAt.add(System.nanoTime());
+                        session.send("/app/ready", "");
+                    }, Instant.now().plusMillis(500 + offset + frame * FRAME_INTERVAL_MS));
+                }
+            }
+            // A lost broadcast would leave the histogram short and make the step look faster than it was
+            assertTrue(received.await(FRAMES_PER_ROOM * FRAME_INTERVAL_MS + 30_000, TimeUnit.MILLISECONDS),
+                    received.getCount() + " of " + rooms * FRAMES_PER_ROOM + " frames never came back ("
+                            + rooms + " rooms)");
+        } finally {
+            sessions.forEach(StompSession::disconnect);
+            scheduler.shutdown();
+        }
+        return latencies;
+    }
+
+    private static List<RoomPlayer> seedRooms(ConfigurableApplicationContext node, int rooms) {
+        UserRepository userRepository = node.getBean(UserRepository.class);
+        RoomRepository roomRepository = node.getBean(RoomRepository.class);
+        RoomPlayerRepository roomPlayerRepository = node.getBean(RoomPlayerRepository.class);
+
+        Character character = new Character();
+        character.setName("bob");
+        character.setImageUrl("bob.png");
+        CharacterSet characterSet = new CharacterSet();
+        characterSet.setName("load set");
+        characterSet.getCharacters().add(character);
+        characterSet = node.getBean(CharacterSetRepository.class).save(characterSet);
+        Character chosen = characterSet.getCharacters().iterator().next();
+
+        List<RoomPlayer> hosts = new ArrayList<>();
+        for (int i = 0; i < rooms; i++) {
+            User user = userRepository.save(User.builder()
+                    .username("load_" + UUID.randomUUID().toString().substring(0, 12))
+                    .email(UUID.randomUUID() + "@load.test")
+                    .password("password")
+                    .build());
+            Room room = new Room();
+            room.setHost(user);
+            room.setStatus(RoomStatus.WAITING);
+            room.setMaxPlayers(2);
+            room.setCharacterSet(characterSet);
+            room = roomRepository.save(room);
+            hosts.add(roomPlayerRepository.save(RoomPlayer.builder()
+                    .room(room).user(user).host(true).characterToGuess(chosen).build()));
+        }
+        return hosts;
+    }
+
+    private static StompSession connect(WebSocketStompClient client, ConfigurableApplicationContext node,
+                                        RoomPlayer player) throws Exception {
+        int port = ((WebServerApplicationContext) node).getWebServer().getPort();
+        String token = node.getBean(JwtUtil.class).generateToken(player.getUser().getId());
+        // Raw WebSocket transport of the SockJS endpoint, skipping the SockJS info round trip
+        String url = String.format("ws://localhost:%d/ws/websocket?token=%s", port,
+                URLEncoder.encode(token, StandardCharsets.UTF_8));
+
+        StompHeaders connectHeaders = new StompHeaders();
+        connectHeaders.add("roomId", String.valueOf(player.getRoom().getId()));
+        return client.connectAsync(url, new WebSocketHttpHeaders(), connectHeaders,
+                new StompSessionHandlerAdapter() {}).get(10, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,228 @@
+package com.bronzejade.game.repositories;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Plan regression suite for the hot queries of the repositories package. Needs a Postgres
+ * migrated with database-migrations (e.g. the docker-compose postgres + database-migrations
+ * services), so it only runs when pointed at one:
+ *
+ *   mvn test -Dtest=QueryPlanTest -Dexplain.url=jdbc:postgresql://localhost:5432/game \
+ *       -Dexplain.user=postgres -Dexplain.password=...
+ *
+ * Everything runs in one transaction that is rolled back: some thousand rooms are seeded
+ * and analyzed, sequential scans are priced out (so a seq scan in a plan means no index
+ * can serve the query at all, not that the table is small) and each query is EXPLAINed.
+ * The SQL mirrors what Hibernate generates for the repository methods named below.
+ */
+@EnabledIfSystemProperty(named = "explain.url", matches = ".+")
+class QueryPlanTest {
+
+    private static final int ROOMS = 2000;
+    private static final int ROUNDS = 5;
+    // Seeded ids are md5-derived so the queries can name them without reading them back
+    private static final String ROOM = "md5('r42')::uuid";
+    private static final String USER = "md5('u84')::uuid";
+    private static final String GAME_STATE = "md5('g42')::uuid";
+
+    private static Connection connection;
+
+    @BeforeAll
+    static void seed() throws SQLException {
+        connection = DriverManager.getConnection(System.getProperty("explain.url"),
+                System.getProperty("explain.user", "postgres"), System.getProperty("explain.password", ""));
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("""
+                    INSERT INTO users (id, email, username, password)
+                    SELECT md5('u' || i)::uuid, 'plan' || i || '@example.com', 'plan_' || i, 'x'
+                    FROM generate_series(1, %1$d * 2 + 1) i
+                    """.formatted(ROOMS));
+            // Guests that never got into a room, so only GuestReaper looks at them
+            statement.execute("""
+                    INSERT INTO users (id, username, password, is_guest, last_active_at)
+                    SELECT md5('guest' || i)::uuid, 'guest_' || i, '', true, now() - i * interval '1 minute'
+                    FROM generate_series(1, %1$d) i
+                    """.formatted(ROOMS));
+            statement.execute("""
+                    INSERT INTO character_sets (id, name, created_by, is_public, created_at)
+                    SELECT md5('s' || i)::uuid, 'set ' || i, 'plan', i % 10 = 0, now()
+                    FROM generate_series(1, 500) i
+                    """);
+            statement.execute("""
+                    INSERT INTO characters (id, name, image_url)
+                    SELECT md5('c' || i)::uuid, 'character ' || i, 'c.png' FROM generate_series(1, 2000) i
+                    """);
+            statement.execute("""
+                    INSERT INTO character_set_characters (character_set_id, character_id)
+                    SELECT md5('s' || (i % 500 + 1))::uuid, md5('c' || i)::uuid FROM generate_series(1, 2000) i
+                    """);
+            // A third of the rooms open, the rest finished, as in a long-running deployment
+            statement.execute("""
+                    INSERT INTO rooms (id, room_code, host_id, status, max_players, character_set_id, created_at,
+                                       finished_at)
+                    SELECT md5('r' || i)::uuid, 'z' || lpad(to_hex(i), 5, '0'), md5('u' || (i * 2))::uuid,
+                           CASE WHEN i %% 6 = 0 THEN 'WAITING' WHEN i %% 6 = 1 THEN 'IN_PROGRESS' ELSE 'FINISHED' END,
+                           2, md5('s' || (i %% 500 + 1))::uuid, now() - i * interval '1 minute',
+                           CASE WHEN i %% 6 > 1 THEN now() - i * interval '1 minute' + interval '30 seconds' END
+                    FROM generate_series(1, %1$d) i
+                    """.formatted(ROOMS));
+            statement.execute("""
+                    INSERT INTO room_players (id, room_id, user_id, is_host, is_ready, joined_at)
+                    SELECT md5('p' || i || '-' || seat)::uuid, md5('r' || i)::uuid, md5('u' || (i * 2 + seat))::uuid,
+                           seat = 0, true, now()
+                    FROM generate_series(1, %1$d) i, generate_series(0, 1) seat
+                    """.formatted(ROOMS));
+            statement.execute("""
+                    INSERT INTO game_state (id, room_id, turn_player_id, round_number, turn_phase)
+                    SELECT md5('g' || i)::uuid, md5('r' || i)::uuid, md5('p' || i || '-0')::uuid, %2$d, 'ANSWERING'
+                    FROM generate_series(1, %1$d) i
+                    """.formatted(ROOMS, ROUNDS));
+            // Lands in the current month's partition, which V11 created
+            statement.execute("""
+                    INSERT INTO game_event (id, room_id, game_state_id, round_number, type, player_id, text, created_at)
+                    SELECT md5('e' || i || '-' || r || type)::uuid, md5('r' || i)::uuid, md5('g' || i)::uuid, r, type,
+                           md5('p' || i || '-' || (r %% 2))::uuid, 'Tall?', now()
+                    FROM generate_series(1, %1$d) i, generate_series(1, %2$d) r,
+                         unnest(ARRAY['QUESTION', 'ANSWER', 'TURN_CHANGE']) type
+                    """.formatted(ROOMS, ROUNDS));
+            statement.execute("ANALYZE users, character_sets, characters, character_set_characters, "
+                    + "rooms, room_players, game_state, game_event");
+            statement.execute("SET LOCAL enable_seqscan = off");
+        }
+    }
+
+    @AfterAll
+    static void rollback() throws SQLException {
+        if (connection != null) {
+            connection.rollback();
+            connection.close();
+        }
+    }
+
+    static Stream<Arguments> hotQueries() {
+        return Stream.of(
+                Arguments.of("RoomRepository.findByRoomCode",
+                        "SELECT * FROM rooms WHERE room_code = 'z0002a'"),
+                Arguments.of("RoomPlayerRepository.findByRoomId",
+                        "SELECT * FROM room_players WHERE room_id = " + ROOM),
+                Arguments.of("RoomPlayerRepository.countByRoomId",
+                        "SELECT count(*) FROM room_players WHERE room_id = " + ROOM),
+                Arguments.of("RoomPlayerRepository.findByRoomIdAndUser",
+                        "SELECT * FROM room_players WHERE room_id = " + ROOM + " AND user_id = " + USER),
+                Arguments.of("RoomPlayerRepository.findIdByRoomIdAndUserId",
+                        "SELECT id FROM room_players WHERE room_id = " + ROOM + " AND user_id = " + USER),
+                Arguments.of("GameStateRepository.findByRoomId",
+                        "SELECT * FROM game_state WHERE room_id = " + ROOM),
+                Arguments.of("GameStateRepository.findGameContext", """
+                        SELECT r.status, gs.id, gs.turn_player_id, gs.turn_phase, gs.round_number, gs.winner_id,
+                               q.id, rp.id, rp.user_id, rp.character_to_guess_id
+                        FROM game_state gs
+                        JOIN rooms r ON r.id = gs.room_id
+                        LEFT JOIN room_players rp ON rp.room_id = r.id
+                        LEFT JOIN game_event q ON q.game_state_id = gs.id AND q.round_number = gs.round_number
+                            AND q.type = 'QUESTION' AND gs.turn_phase = 'ANSWERING'
+                        WHERE r.id = %s
+                        """.formatted(ROOM)),
+                Arguments.of("GameStateRepository.compareAndSetTurn", """
+                        UPDATE game_state
+                        SET turn_player_id = turn_player_id, turn_phase = 'ASKING', round_number = 6,
+                            version = version + 1
+                        WHERE id = %s AND winner_id IS NULL
+                          AND turn_player_id = md5('p42-0')::uuid AND turn_phase = 'ANSWERING'
+                          AND COALESCE(round_number, 0) = 5
+                        """.formatted(GAME_STATE)),
+                Arguments.of("CharacterRepository.findByName",
+                        "SELECT * FROM characters WHERE name = 'character 7'"),
+                Arguments.of("CharacterSetRepository.findPublicWithCharacters", """
+                        SELECT s.*, c.*
+                        FROM character_sets s
+                        LEFT JOIN character_set_characters sc ON sc.character_set_id = s.id
+                        LEFT JOIN characters c ON c.id = sc.character_id
+                        WHERE s.is_public = true
+                        """),
+                Arguments.of("CharacterSetRepository.findPublicSummaries", """
+                        SELECT s.id, s.name, s.created_by, s.created_at,
+                               (SELECT count(*) FROM character_set_characters sc WHERE sc.character_set_id = s.id),
+                               (SELECT min(c.image_url) FROM character_set_characters sc
+                                JOIN characters c ON c.id = sc.character_id WHERE sc.character_set_id = s.id)
+                        FROM character_sets s
+                        WHERE s.is_public = true
+                        ORDER BY s.created_at DESC, s.id DESC
+                        LIMIT 21
+                        """),
+                Arguments.of("CharacterSetRepository.findPublicSummariesAfter", """
+                        SELECT s.id, s.name, s.created_by, s.created_at
+                        FROM character_sets s
+                        WHERE s.is_public = true AND (s.created_at, s.id) < (now(), md5('s40')::uuid)
+                        ORDER BY s.created_at DESC, s.id DESC
+                        LIMIT 21
+                        """),
+                Arguments.of("UserRepository.findByUsername",
+                        "SELECT * FROM users WHERE username = 'plan_84'"),
+                Arguments.of("UserRepository.findByEmail",
+                        "SELECT * FROM users WHERE email = 'plan84@example.com'"),
+                Arguments.of("RoomReaper abandoned rooms", """
+                        SELECT r.id FROM rooms r
+                        WHERE r.status IN ('WAITING', 'IN_PROGRESS')
+                          AND r.membership_changed_at < now() - interval '1 hour'
+                          AND NOT EXISTS (SELECT 1 FROM room_players rp WHERE rp.room_id = r.id)
+                        ORDER BY r.membership_changed_at LIMIT 200 FOR UPDATE SKIP LOCKED
+                        """),
+                Arguments.of("RoomReaper finished rooms", """
+                        SELECT id FROM rooms WHERE status = 'FINISHED' AND finished_at < now() - interval '7 days'
+                        ORDER BY finished_at LIMIT 200 FOR UPDATE SKIP LOCKED
+                        """),
+                Arguments.of("GuestReaper idle guests", """
+                        SELECT u.id FROM users u
+                        WHERE u.is_guest AND u.last_active_at < now() - interval '1 day'
+                          AND NOT EXISTS (SELECT 1 FROM room_players rp WHERE rp.user_id = u.id)
+                          AND NOT EXISTS (SELECT 1 FROM rooms r WHERE r.host_id = u.id)
+                        ORDER BY u.last_active_at LIMIT 500 FOR UPDATE SKIP LOCKED
+                        """),
+                Arguments.of("room delete cascade into game_state",
+                        "SELECT id FROM game_state WHERE turn_player_id = md5('p42-0')::uuid")
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("hotQueries")
+    void usesAnIndex(String name, String sql) throws Exception {
+        JsonNode plan;
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("EXPLAIN (FORMAT JSON) " + sql)) {
+            result.next();
+            plan = new ObjectMapper().readTree(result.getString(1)).get(0).get("Plan");
+        }
+        List<String> seqScans = new ArrayList<>();
+        collectSeqScans(plan, seqScans);
+        assertTrue(seqScans.isEmpty(), name + " scans " + seqScans + " sequentially:\n" + plan.toPrettyString());
+    }
+
+    private static void collectSeqScans(JsonNode node, List<String> seqScans) {
+        if ("Seq Scan".equals(node.path("Node Type").asText())) {
+            seqScans.add(node.path("Relation Name").asText());
+        }
+        for (JsonNode child : node.path("Plans")) {
+            collectSeqScans(child, seqScans);
+        }
+    }
+}
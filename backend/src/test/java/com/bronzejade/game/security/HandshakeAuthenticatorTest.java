@@ -0,0 +1,72 @@
+package com.bronzejade.game.security;
+
+import com.bronzejade.game.domain.entities.User;
+import com.bronzejade.game.repositories.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class HandshakeAuthenticatorTest {
+
+    @Autowired
+    private HandshakeAuthenticator authenticator;
+    @Autowired
+    private JwtUtil jwtUtil;
+    @Autowired
+    private TokenDenyList denyList;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void aTokenWithClaimsNeedsNoUsersRow() {
+        UUID userId = UUID.randomUUID();
+        double before = handshakes("claims");
+
+        Optional<PlayerPrincipal> principal = authenticator.authenticate(jwtUtil.generateToken(userId, "claims_player"));
+
+        assertEquals(Optional.of(new PlayerPrincipal(userId, "claims_player")), principal);
+        assertEquals(userId.toString(), principal.get().getName());
+        assertEquals(1, handshakes("claims") - before);
+    }
+
+    @Test
+    void anIdOnlyTokenIsResolvedWithOneLookup() {
+        User user = userRepository.save(User.builder()
+                .username("handshake_" + UUID.randomUUID().toString().substring(0, 8))
+                .email(UUID.randomUUID() + "@test.com")
+                .password("password")
+                .build());
+        double before = handshakes("database");
+
+        Optional<PlayerPrincipal> principal = authenticator.authenticate(jwtUtil.generateToken(user.getId()));
+
+        assertEquals(Optional.of(new PlayerPrincipal(user.getId(), user.getUsername())), principal);
+        assertEquals(1, handshakes("database") - before);
+    }
+
+    @Test
+    void missingInvalidRevokedAndOrphanedTokensAreRejected() {
+        String revoked = jwtUtil.generateToken(UUID.randomUUID(), "revoked_player");
+        TokenIdentity identity = jwtUtil.parseToken(revoked);
+        denyList.revoke(identity.tokenId(), identity.expiresAt());
+
+        assertTrue(authenticator.authenticate(null).isEmpty());
+        assertTrue(authenticator.authenticate("not.a.token").isEmpty());
+        assertTrue(authenticator.authenticate(revoked).isEmpty());
+        assertTrue(authenticator.authenticate(jwtUtil.generateToken(UUID.randomUUID())).isEmpty());
+    }
+
+    private double handshakes(String outcome) {
+        return meterRegistry.get("game.ws.handshakes").tag("outcome", outcome).counter().count();
+    }
+}
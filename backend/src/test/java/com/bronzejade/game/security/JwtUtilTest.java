@@ -0,0 +1,62 @@
+package com.bronzejade.game.security;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilTest {
+
+    private static final String SECRET = "testSecretKeyForJwtUtilTestOnly12345";
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final JwtUtil jwtUtil = new JwtUtil(SECRET, 60_000, 100, Duration.ofMinutes(10), meterRegistry);
+
+    @Test
+    void aRepeatedTokenIsServedFromTheCache() {
+        UUID userId = UUID.randomUUID();
+        String token = jwtUtil.generateToken(userId);
+
+        TokenIdentity identity = jwtUtil.parseToken(token);
+        assertEquals(userId, identity.userId());
+        assertEquals(identity, jwtUtil.parseToken(token));
+
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "verifiedTokens").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void aTamperedTokenIsRejectedEvenAfterTheOriginalWasCached() {
+        String token = jwtUtil.generateGuestToken(UUID.randomUUID(), "guest_1");
+        jwtUtil.parseToken(token);
+        String tampered = token.substring(0, token.length() - 2)
+                + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThrows(JwtException.class, () -> jwtUtil.parseToken(tampered));
+    }
+
+    @Test
+    void tokensOfAnotherKeyAreRejected() {
+        JwtUtil other = new JwtUtil("anotherSecretKeyForJwtUtilTestOnly1234", 60_000, 100,
+                Duration.ofMinutes(10), new SimpleMeterRegistry());
+
+        assertThrows(JwtException.class, () -> jwtUtil.parseToken(other.generateToken(UUID.randomUUID())));
+    }
+
+    @Test
+    void anExpiredTokenIsNotServedFromTheCache() throws InterruptedException {
+        JwtUtil shortLived = new JwtUtil(SECRET, 1_000, 100, Duration.ofMinutes(10), new SimpleMeterRegistry());
+        String token = shortLived.generateToken(UUID.randomUUID());
+        shortLived.parseToken(token);
+
+        Thread.sleep(1_100);
+
+        assertThrows(ExpiredJwtException.class, () -> shortLived.parseToken(token));
+    }
+}
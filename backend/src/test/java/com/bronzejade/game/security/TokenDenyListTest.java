@@ -0,0 +1,95 @@
+package com.bronzejade.game.security;
+
+import com.bronzejade.game.service.AuthService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class TokenDenyListTest {
+
+    @Autowired
+    private AuthService authService;
+    @Autowired
+    private JwtUtil jwtUtil;
+    @Autowired
+    private TokenDenyList denyList;
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void aLoggedOutTokenIsRejectedWithoutAUsersRow() {
+        UUID userId = UUID.randomUUID();
+        String token = jwtUtil.generateToken(userId, "stateless_user");
+        String otherSession = jwtUtil.generateToken(userId, "stateless_user");
+        assertTrue(authService.validateToken(token));
+
+        authService.logout(token);
+
+        assertFalse(authService.validateToken(token));
+        assertTrue(authService.validateToken(otherSession));
+    }
+
+    @Test
+    void aStatelessPrincipalIsResolvedFromItsClaims() {
+        UUID userId = UUID.randomUUID();
+        TokenIdentity identity = jwtUtil.parseToken(jwtUtil.generateToken(userId, "claims_user"));
+
+        assertEquals("claims_user",
+                authService.getUserFromPrincipal(ApiUserDetails.fromToken(identity)).getUsername());
+    }
+
+    @Test
+    void revocationsOfAnotherNodeArriveOnSync() {
+        TokenDenyList otherNode = new TokenDenyList(namedJdbcTemplate, 1000);
+        otherNode.sync();
+        UUID tokenId = UUID.randomUUID();
+
+        denyList.revoke(tokenId, Instant.now().plusSeconds(3600));
+
+        assertTrue(denyList.isRevoked(tokenId));
+        assertFalse(otherNode.isRevoked(tokenId));
+        otherNode.sync();
+        assertTrue(otherNode.isRevoked(tokenId));
+    }
+
+    @Test
+    void expiredRevocationsAreDropped() {
+        UUID tokenId = UUID.randomUUID();
+        denyList.revoke(tokenId, Instant.now().minusSeconds(1));
+
+        denyList.sync();
+
+        assertFalse(denyList.isRevoked(tokenId));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM revoked_tokens WHERE jti = ?", Integer.class, tokenId));
+    }
+
+    @Test
+    void theBloomFilterHasNoFalseNegativesAndFewFalsePositives() {
+        TokenDenyList.BloomFilter filter = new TokenDenyList.BloomFilter(10_000);
+        for (int i = 0; i < 10_000; i++) {
+            UUID id = UUID.randomUUID();
+            filter.put(id);
+            assertTrue(filter.mightContain(id));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain(UUID.randomUUID())) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+}
@@ -0,0 +1,101 @@
+package com.bronzejade.game.service;
+
+import com.bronzejade.game.domain.dtos.Character.CharacterSetPageDto;
+import com.bronzejade.game.domain.dtos.Character.CharacterSetSummaryDto;
+import com.bronzejade.game.domain.entities.Character;
+import com.bronzejade.game.domain.entities.CharacterSet;
+import com.bronzejade.game.repositories.CharacterSetRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Walks the public set summaries page by page. Other tests share the database, so the
+ * assertions only look at the sets created here.
+ */
+@SpringBootTest
+class CharacterSetSummaryPagingTest {
+
+    @Autowired
+    private CharacterSetService characterSetService;
+    @Autowired
+    private CharacterSetRepository characterSetRepository;
+
+    private final List<UUID> publicSets = new ArrayList<>();
+    private UUID privateSet;
+
+    @BeforeEach
+    void setup() {
+        for (int i = 0; i < 5; i++) {
+            publicSets.add(createSet("paging " + i, true, i + 1).getId());
+        }
+        privateSet = createSet("paging private", false, 2).getId();
+    }
+
+    @Test
+    void pagesCoverEveryPublicSetOnceNewestFirst() {
+        List<CharacterSetSummaryDto> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            CharacterSetPageDto page = characterSetService.getPublicSummaries(cursor, 2);
+            assertTrue(page.getItems().size() <= 2);
+            seen.addAll(page.getItems());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null && pages < 10_000);
+        assertNull(cursor);
+
+        Set<UUID> ids = new HashSet<>();
+        // Ties on createdAt are broken by id in the database's UUID order, which UUID.compareTo does not share
+        for (int i = 1; i < seen.size(); i++) {
+            assertFalse(seen.get(i).getCreatedAt().isAfter(seen.get(i - 1).getCreatedAt()), "page order broken at " + i);
+        }
+        seen.forEach(summary -> assertTrue(ids.add(summary.getId()), "set listed twice"));
+        assertTrue(ids.containsAll(publicSets));
+        assertFalse(ids.contains(privateSet));
+
+        Map<UUID, CharacterSetSummaryDto> byId = seen.stream()
+                .collect(Collectors.toMap(CharacterSetSummaryDto::getId, Function.identity()));
+        for (int i = 0; i < publicSets.size(); i++) {
+            CharacterSetSummaryDto summary = byId.get(publicSets.get(i));
+            assertEquals("paging " + i, summary.getName());
+            assertEquals(i + 1, summary.getCharacterCount());
+            assertEquals("a.png", summary.getCoverImageUrl());
+        }
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> characterSetService.getPublicSummaries("not-a-cursor", 2));
+    }
+
+    private CharacterSet createSet(String name, boolean isPublic, int characters) {
+        CharacterSet set = new CharacterSet();
+        set.setName(name);
+        set.setIsPublic(isPublic);
+        for (int i = 0; i < characters; i++) {
+            Character character = new Character();
+            character.setName("paging_" + UUID.randomUUID());
+            character.setImageUrl((char) ('a' + i) + ".png");
+            set.getCharacters().add(character);
+        }
+        return characterSetRepository.save(set);
+    }
+}
@@ -0,0 +1,43 @@
+package com.bronzejade.game.service;
+
+import com.bronzejade.game.domain.entities.Character;
+import com.bronzejade.game.domain.entities.CharacterSet;
+import com.bronzejade.game.domain.entities.User;
+import com.bronzejade.game.repositories.CharacterSetRepository;
+import com.bronzejade.game.repositories.UserRepository;
+
+import java.util.UUID;
+
+/**
+ * Rows the service tests build their scenarios on. Names get a random suffix, since
+ * the tests share one database and never clean up each other's rows.
+ */
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    static User user(UserRepository userRepository, String prefix) {
+        return userRepository.save(User.builder()
+                .username(prefix + "_" + UUID.randomUUID().toString().substring(0, 8))
+                .email(UUID.randomUUID() + "@test.com")
+                .password("password")
+                .build());
+    }
+
+    static CharacterSet characterSet(CharacterSetRepository characterSetRepository, String prefix) {
+        return characterSet(characterSetRepository, prefix, 1);
+    }
+
+    static CharacterSet characterSet(CharacterSetRepository characterSetRepository, String prefix, int characters) {
+        CharacterSet characterSet = new CharacterSet();
+        characterSet.setName(prefix + " set");
+        for (int i = 0; i < characters; i++) {
+            Character character = new Character();
+            character.setName(prefix + "_" + UUID.randomUUID());
+            character.setImageUrl(prefix + ".png");
+            characterSet.getCharacters().add(character);
+        }
+        return characterSetRepository.save(characterSet);
+    }
+}
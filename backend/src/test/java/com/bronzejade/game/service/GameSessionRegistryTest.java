@@ -0,0 +1,260 @@
+package com.bronzejade.game.service;
+
+import com.bronzejade.game.domain.GameSession;
+import com.bronzejade.game.domain.RoomStatus;
+import com.bronzejade.game.domain.TurnPhase;
+import com.bronzejade.game.domain.dtos.Character.GuessCharacterResponse;
+import com.bronzejade.game.domain.entities.Character;
+import com.bronzejade.game.domain.entities.CharacterSet;
+import com.bronzejade.game.domain.entities.GameHistoryEvent;
+import com.bronzejade.game.domain.entities.GameState;
+import com.bronzejade.game.domain.entities.Room;
+import com.bronzejade.game.domain.entities.RoomPlayer;
+import com.bronzejade.game.domain.entities.User;
+import com.bronzejade.game.repositories.CharacterSetRepository;
+import com.bronzejade.game.repositories.GameHistoryEventRepository;
+import com.bronzejade.game.repositories.GameStateRepository;
+import com.bronzejade.game.repositories.RoomPlayerRepository;
+import com.bronzejade.game.repositories.RoomRepository;
+import com.bronzejade.game.repositories.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityNotFoundException;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Counts the statements Hibernate prepares per game operation: loading a session is the
+ * game context query alone once its character set is cached, and a turn played against
+ * a loaded session is its compare-and-set update alone. Also plays one room from two
+ * registries, standing in for two nodes, to check that conflicting turns fail instead
+ * of both applying. The same race sent as STOMP frames, through the inbound lane and
+ * the broadcasts, is covered by RoomWsControllerIntegrationTest.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class GameSessionRegistryTest {
+
+    @Autowired
+    private GameSessionRegistry sessionRegistry;
+    @Autowired
+    private GameStateService gameStateService;
+    @Autowired
+    private GuessCharacterService guessCharacterService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CharacterSetRepository characterSetRepository;
+    @Autowired
+    private RoomRepository roomRepository;
+    @Autowired
+    private RoomPlayerRepository roomPlayerRepository;
+    @Autowired
+    private GameStateRepository gameStateRepository;
+    @Autowired
+    private GameHistoryEventRepository gameHistoryEventRepository;
+    @Autowired
+    private CharacterSetService characterSetService;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private GameStateWriteBehind writeBehind;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Room room;
+    private GameState gameState;
+    private RoomPlayer host;
+    private RoomPlayer guest;
+    private Character hostCharacter;
+    private Character guestCharacter;
+    // Held by nobody, so guessing it is always wrong and only passes the turn
+    private Character unusedCharacter;
+
+    @BeforeEach
+    void setup() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        CharacterSet characterSet = Fixtures.characterSet(characterSetRepository, "stats", 3);
+        Iterator<Character> characters = characterSet.getCharacters().iterator();
+        hostCharacter = characters.next();
+        guestCharacter = characters.next();
+        unusedCharacter = characters.next();
+
+        User hostUser = Fixtures.user(userRepository, "stats");
+        User guestUser = Fixtures.user(userRepository, "stats");
+        room = new Room();
+        room.setHost(hostUser);
+        room.setMaxPlayers(2);
+        room.setCharacterSet(characterSet);
+        room = roomRepository.save(room);
+        room.setStatus(RoomStatus.IN_PROGRESS);
+        room = roomRepository.save(room);
+
+        // Each player holds the character the other one has to guess
+        host = roomPlayerRepository.save(RoomPlayer.builder()
+                .room(room).user(hostUser).host(true).characterToGuess(guestCharacter).build());
+        guest = roomPlayerRepository.save(RoomPlayer.builder()
+                .room(room).user(guestUser).characterToGuess(hostCharacter).build());
+
+        gameState = gameStateRepository.save(GameState.builder()
+                .room(room).turnPlayer(host).turnPhase(TurnPhase.ASKING).roundNumber(1).build());
+    }
+
+    @Test
+    void loadingASessionTakesOneStatementOnceTheSetIsCached() {
+        load();
+        double hits = characterSetHits();
+
+        GameSession session = load();
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(hits + 1, characterSetHits());
+        assertEquals(gameState.getId(), session.getGameStateId());
+        assertEquals(RoomStatus.IN_PROGRESS, session.getStatus());
+        assertEquals(host.getId(), session.getTurnPlayerId());
+        assertEquals(2, session.getPlayersByUserId().size());
+        assertEquals(hostCharacter.getId(), session.getPlayersByUserId().get(guest.getUser().getId()).characterId());
+        assertEquals(3, session.getCharacterSet().size());
+    }
+
+    @Test
+    void pendingQuestionIsPartOfTheContextQuery() {
+        GameHistoryEvent question = gameHistoryEventRepository.save(GameHistoryEvent.builder()
+                .id(UUID.randomUUID()).roomId(room.getId()).gameStateId(gameState.getId()).roundNumber(1)
+                .type(GameHistoryEvent.Type.QUESTION).playerId(host.getId()).text("Tall?")
+                .createdAt(LocalDateTime.now()).build());
+        gameState.setTurnPhase(TurnPhase.ANSWERING);
+        gameStateRepository.save(gameState);
+        characterSetService.getView(room.getCharacterSet().getId());
+
+        GameSession session = load();
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(TurnPhase.ANSWERING, session.getTurnPhase());
+        assertEquals(question.getId(), session.getCurrentActionId());
+    }
+
+    @Test
+    void turnsOnALoadedSessionOnlyWriteTheTransition() {
+        load();
+        statistics.clear();
+
+        gameStateService.submitQuestion("Tall?", room.getId(), host.getUser().getId());
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        gameStateService.submitAnswer("No", room.getId(), guest.getUser().getId());
+        assertEquals(2, statistics.getPrepareStatementCount());
+
+        GuessCharacterResponse response =
+                guessCharacterService.guessCharacter(room.getId(), guest.getUser().getId(), guestCharacter.getId());
+        assertEquals(3, statistics.getPrepareStatementCount());
+        assertTrue(response.isGameEnded());
+    }
+
+    @Test
+    void conflictingTurnsFromTwoNodesApplyAtMostOnce() throws Exception {
+        GameSessionRegistry otherRegistry = new GameSessionRegistry(gameStateRepository, characterSetService,
+                writeBehind, transactionManager);
+        GameStateService[] turnServices = {gameStateService, new GameStateService(otherRegistry, writeBehind)};
+        GuessCharacterService[] guessServices =
+                {guessCharacterService, new GuessCharacterService(otherRegistry, writeBehind)};
+        UUID[] users = {host.getUser().getId(), guest.getUser().getId()};
+
+        AtomicInteger questions = new AtomicInteger();
+        AtomicInteger answers = new AtomicInteger();
+        AtomicInteger guesses = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            workers.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 150; i++) {
+                    int node = random.nextInt(2);
+                    UUID user = users[random.nextInt(2)];
+                    try {
+                        switch (random.nextInt(3)) {
+                            case 0 -> {
+                                turnServices[node].submitQuestion("Tall?", room.getId(), user);
+                                questions.incrementAndGet();
+                            }
+                            case 1 -> {
+                                turnServices[node].submitAnswer("No", room.getId(), user);
+                                answers.incrementAndGet();
+                            }
+                            default -> {
+                                guessServices[node].guessCharacter(room.getId(), user, unusedCharacter.getId());
+                                guesses.incrementAndGet();
+                            }
+                        }
+                    } catch (OptimisticLockingFailureException e) {
+                        conflicts.incrementAndGet();
+                    } catch (IllegalArgumentException | EntityNotFoundException e) {
+                        // Not this user's turn as far as that node knows
+                    }
+                }
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        writeBehind.flush();
+
+        assertTrue(conflicts.get() > 0, "the two nodes never raced");
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT round_number, version FROM game_state WHERE id = ?", gameState.getId());
+        assertEquals(1 + answers.get(), ((Number) row.get("round_number")).intValue());
+        // One version per applied transition, on top of the one the insert left
+        assertEquals(gameState.getVersion() + questions.get() + answers.get() + guesses.get(),
+                ((Number) row.get("version")).longValue());
+        Map<GameHistoryEvent.Type, Long> events = gameHistoryEventRepository.findByGameStateIdOrderByCreatedAt(gameState.getId())
+                .stream()
+                .collect(Collectors.groupingBy(GameHistoryEvent::getType, Collectors.counting()));
+        assertEquals(questions.get(), events.getOrDefault(GameHistoryEvent.Type.QUESTION, 0L).intValue());
+        assertEquals(answers.get(), events.getOrDefault(GameHistoryEvent.Type.ANSWER, 0L).intValue());
+        assertEquals(guesses.get(), events.getOrDefault(GameHistoryEvent.Type.GUESS, 0L).intValue());
+        assertEquals(questions.get() + answers.get() + guesses.get(),
+                events.getOrDefault(GameHistoryEvent.Type.TURN_CHANGE, 0L).intValue());
+    }
+
+    private GameSession load() {
+        sessionRegistry.evict(room.getId());
+        statistics.clear();
+        return sessionRegistry.get(room.getId());
+    }
+
+    private double characterSetHits() {
+        return meterRegistry.get("cache.gets").tag("cache", "characterSets").tag("result", "hit")
+                .functionCounter().count();
+    }
+}
@@ -0,0 +1,85 @@
+package com.bronzejade.game.service;
+
+import com.bronzejade.game.domain.GameSession;
+import com.bronzejade.game.domain.TurnPhase;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GameStateWriteBehindTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private GameStateWriteBehind writeBehind;
+    private GameSession session;
+
+    @BeforeEach
+    void setup() {
+        writeBehind = new GameStateWriteBehind(jdbcTemplate, transactionManager, meterRegistry, 500, 3);
+        session = new GameSession(UUID.randomUUID(), UUID.randomUUID(), Map.of(), null);
+        session.setTurnPhase(TurnPhase.ASKING);
+    }
+
+    @Test
+    void writesStayQueuedWhileTheDatabaseIsUnavailable() {
+        writeBehind.turnChanged(session);
+        writeBehind.turnChanged(session);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new CannotGetJdbcConnectionException("Connection refused"))
+                .thenReturn(new int[]{1, 1});
+
+        writeBehind.flush();
+        assertEquals(2.0, pendingWrites());
+
+        writeBehind.flush();
+        assertEquals(0.0, pendingWrites());
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), argThat((List<Object[]> rows) -> rows.size() == 2));
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+    }
+
+    @Test
+    void rejectedWriteIsRetriedOnLaterFlushesThenDroppedAndCounted() {
+        writeBehind.turnChanged(session);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new DataIntegrityViolationException("no partition of relation \"game_event\" found for row"));
+        when(jdbcTemplate.update(anyString(), any(Object[].class)))
+                .thenThrow(new DataIntegrityViolationException("no partition of relation \"game_event\" found for row"));
+
+        writeBehind.flush();
+        writeBehind.flush();
+        assertEquals(1.0, pendingWrites());
+        assertEquals(0.0, meterRegistry.get("game.session.writes.dropped").counter().count());
+
+        writeBehind.flush();
+        assertEquals(0.0, pendingWrites());
+        assertEquals(1.0, meterRegistry.get("game.session.writes.dropped").counter().count());
+        verify(jdbcTemplate, times(3)).update(anyString(), any(Object[].class));
+    }
+
+    private double pendingWrites() {
+        return meterRegistry.get("game.session.writes.pending").gauge().value();
+    }
+}
@@ -0,0 +1,106 @@
+package com.bronzejade.game.service;
+
+import com.bronzejade.game.domain.dtos.Room.CreateRoomRequest;
+import com.bronzejade.game.domain.dtos.User.AuthResponse;
+import com.bronzejade.game.domain.entities.Room;
+import com.bronzejade.game.domain.entities.User;
+import com.bronzejade.game.repositories.CharacterSetRepository;
+import com.bronzejade.game.repositories.RoomRepository;
+import com.bronzejade.game.repositories.UserRepository;
+import com.bronzejade.game.security.ApiUserDetails;
+import com.bronzejade.game.security.JwtUtil;
+import com.bronzejade.game.security.TokenIdentity;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class GuestIdentityTest {
+
+    @Autowired
+    private AuthService authService;
+    @Autowired
+    private JwtUtil jwtUtil;
+    @Autowired
+    private RoomService roomService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoomRepository roomRepository;
+    @Autowired
+    private CharacterSetRepository characterSetRepository;
+
+    @Test
+    void aGuestTokenIsValidWithoutAUsersRow() {
+        AuthResponse guest = authService.createGuestUser();
+
+        assertFalse(userRepository.existsById(guest.getUserId()));
+        assertTrue(authService.validateToken(guest.getToken()));
+        TokenIdentity identity = jwtUtil.parseToken(guest.getToken());
+        assertTrue(identity.guest());
+        assertEquals(guest.getUserId(), identity.userId());
+        assertEquals(guest.getUsername(), identity.name());
+        assertTrue(ApiUserDetails.fromToken(identity).getAuthorities().contains(ApiUserDetails.GUEST));
+    }
+
+    @Test
+    void theRowIsCreatedOnceUnderTheTokensId() {
+        ApiUserDetails guest = principalOf(authService.createGuestUser().getToken());
+
+        assertNull(authService.ensurePersisted(guest));
+        assertNull(authService.ensurePersisted(guest));
+
+        User user = userRepository.findById(guest.getId()).orElseThrow();
+        assertEquals(guest.getUsername(), user.getUsername());
+        assertEquals(guest.getUsername(), authService.getUsername(guest.getId()));
+    }
+
+    @Test
+    void aTakenNameFallsBackToTheFullIdAndTheTokenIsReissuedWithIt() {
+        ApiUserDetails guest = principalOf(authService.createGuestUser().getToken());
+        userRepository.save(User.builder()
+                .username(guest.getUsername())
+                .email(UUID.randomUUID() + "@test.com")
+                .password("password")
+                .build());
+
+        String reissued = authService.ensurePersisted(guest);
+
+        String fallback = "guest_" + guest.getId();
+        assertEquals(fallback, authService.getUsername(guest.getId()));
+        ApiUserDetails renamed = principalOf(reissued);
+        assertEquals(guest.getId(), renamed.getId());
+        assertEquals(fallback, renamed.getUsername());
+        assertEquals(fallback, authService.getUserFromPrincipal(renamed).getUsername());
+        // The old token is still told about the new name; the new one needs nothing
+        assertEquals(fallback, principalOf(authService.ensurePersisted(guest)).getUsername());
+        assertNull(authService.ensurePersisted(renamed));
+    }
+
+    @Test
+    void aPersistedGuestCanCreateAndJoinRooms() {
+        ApiUserDetails host = principalOf(authService.createGuestUser().getToken());
+        ApiUserDetails player = principalOf(authService.createGuestUser().getToken());
+        CreateRoomRequest request = new CreateRoomRequest();
+        request.setCharacterSetId(Fixtures.characterSet(characterSetRepository, "guest").getId());
+
+        authService.ensurePersisted(host);
+        Room room = roomService.createRoom(request, host.getId());
+        authService.ensurePersisted(player);
+        roomService.joinRoom(room.getRoomCode(), player.getId());
+
+        assertEquals(host.getId(), roomRepository.findById(room.getId()).orElseThrow().getHost().getId());
+    }
+
+    // The principal JwtAuthFilter builds for the token
+    private ApiUserDetails principalOf(String token) {
+        return ApiUserDetails.fromToken(jwtUtil.parseToken(token));
+    }
+}
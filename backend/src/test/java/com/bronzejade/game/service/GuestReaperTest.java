@@ -0,0 +1,124 @@
+package com.bronzejade.game.service;
+
+import com.bronzejade.game.domain.entities.Room;
+import com.bronzejade.game.domain.entities.RoomPlayer;
+import com.bronzejade.game.domain.entities.User;
+import com.bronzejade.game.repositories.CharacterSetRepository;
+import com.bronzejade.game.repositories.RoomPlayerRepository;
+import com.bronzejade.game.repositories.RoomRepository;
+import com.bronzejade.game.repositories.UserRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "game.users.guest-reaper.chunk-size=2")
+class GuestReaperTest {
+
+    @Autowired
+    private GuestReaper guestReaper;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoomRepository roomRepository;
+    @Autowired
+    private RoomPlayerRepository roomPlayerRepository;
+    @Autowired
+    private CharacterSetRepository characterSetRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void idleGuestsAreDeletedInChunksAndCounted() {
+        UUID[] idle = new UUID[5];
+        for (int i = 0; i < idle.length; i++) {
+            idle[i] = createGuest(LocalDateTime.now().minusDays(3));
+        }
+        DistributionSummary reaped = meterRegistry.get("game.users.guests.reaped").summary();
+        double before = reaped.totalAmount();
+
+        guestReaper.reap();
+
+        for (UUID guest : idle) {
+            assertFalse(userRepository.existsById(guest));
+        }
+        assertTrue(reaped.totalAmount() - before >= idle.length);
+    }
+
+    @Test
+    void activeGuestsAndRegisteredUsersAreKept() {
+        UUID active = createGuest(LocalDateTime.now().minusMinutes(5));
+        User registered = userRepository.save(User.builder()
+                .username("reaped_" + UUID.randomUUID().toString().substring(0, 8))
+                .email(UUID.randomUUID() + "@test.com")
+                .password("password")
+                .build());
+        jdbcTemplate.update("UPDATE users SET created_at = ? WHERE id = ?",
+                LocalDateTime.now().minusDays(30), registered.getId());
+
+        guestReaper.reap();
+
+        assertTrue(userRepository.existsById(active));
+        assertTrue(userRepository.existsById(registered.getId()));
+    }
+
+    @Test
+    void idleGuestsStillInARoomAreKept() {
+        UUID host = createGuest(LocalDateTime.now().minusDays(3));
+        UUID player = createGuest(LocalDateTime.now().minusDays(3));
+        Room room = roomRepository.save(Room.builder()
+                .host(userRepository.getReferenceById(host)).maxPlayers(2).characterSet(Fixtures.characterSet(characterSetRepository, "guest_reaper")).build());
+        roomPlayerRepository.save(RoomPlayer.builder().room(room).user(userRepository.getReferenceById(player)).build());
+
+        guestReaper.reap();
+
+        assertTrue(userRepository.existsById(host));
+        assertTrue(userRepository.existsById(player));
+        assertEquals(1, roomPlayerRepository.findByRoomId(room.getId()).size());
+    }
+
+    @Test
+    void guestsLockedByAnotherTransactionAreSkipped() throws Exception {
+        UUID locked = createGuest(LocalDateTime.now().minusDays(3));
+        UUID free = createGuest(LocalDateTime.now().minusDays(3));
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement lock = connection.prepareStatement("SELECT id FROM users WHERE id = ? FOR UPDATE")) {
+                lock.setObject(1, locked);
+                lock.executeQuery().close();
+            }
+
+            guestReaper.reap();
+
+            assertTrue(userRepository.existsById(locked));
+            assertFalse(userRepository.existsById(free));
+            connection.rollback();
+        }
+
+        guestReaper.reap();
+        assertFalse(userRepository.existsById(locked));
+    }
+
+    private UUID createGuest(LocalDateTime lastActive) {
+        UUID id = UUID.randomUUID();
+        userRepository.insertGuest(id, "guest_" + id, lastActive);
+        return id;
+    }
+}
@@ -0,0 +1,143 @@
+package com.bronzejade.game.service;
+
+import com.bronzejade.game.domain.entities.Room;
+import com.bronzejade.game.repositories.CharacterSetRepository;
+import com.bronzejade.game.repositories.RoomRepository;
+import com.bronzejade.game.repositories.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Uses allocators whose node share of the code space is only four codes (node 0 of
+ * 2^28 nodes), so which codes are free is known exactly. Their pool of one is below
+ * the refill threshold, so after the first code, which the initial refill loads the
+ * taken codes for, every code comes from allocate itself.
+ */
+@SpringBootTest
+class RoomCodeAllocatorTest {
+
+    private static final int NODES = RoomCodeAllocator.CODE_SPACE / 4;
+    private static final Set<String> SHARE = Set.of(
+            RoomCodeAllocator.codeOf(0), RoomCodeAllocator.codeOf(NODES),
+            RoomCodeAllocator.codeOf(2 * NODES), RoomCodeAllocator.codeOf(3 * NODES));
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private RoomCodeAllocator roomCodeAllocator;
+    @Autowired
+    private RoomRepository roomRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CharacterSetRepository characterSetRepository;
+
+    private RoomCodeAllocator allocator;
+
+    @BeforeEach
+    void setup() {
+        allocator = new RoomCodeAllocator(jdbcTemplate, new SimpleMeterRegistry(), 1, 0, NODES,
+                "simple", Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void cleanup() {
+        allocator.shutdown();
+        SHARE.forEach(code -> roomRepository.findByRoomCode(code).ifPresent(roomRepository::delete));
+    }
+
+    @Test
+    void codesRoundTripThroughTheirIndex() {
+        for (int index : new int[]{0, 1, 31, 32, 123_456_789, RoomCodeAllocator.CODE_SPACE - 1}) {
+            String code = RoomCodeAllocator.codeOf(index);
+            assertEquals(6, code.length());
+            assertEquals(index, RoomCodeAllocator.indexOf(code));
+        }
+        assertEquals(-1, RoomCodeAllocator.indexOf("ABCDE0"));
+        assertEquals(-1, RoomCodeAllocator.indexOf("ABC"));
+    }
+
+    @Test
+    void codesTakenInTheDatabaseAreNeverHandedOut() {
+        String free = RoomCodeAllocator.codeOf(3 * NODES);
+        SHARE.stream().filter(code -> !code.equals(free)).forEach(this::createRoom);
+
+        assertEquals(free, allocator.allocate());
+    }
+
+    @Test
+    void everyCodeIsHandedOutOnceUntilReleased() {
+        Set<String> allocated = new HashSet<>();
+        for (int i = 0; i < SHARE.size(); i++) {
+            assertTrue(allocated.add(allocator.allocate()));
+        }
+        assertEquals(SHARE, allocated);
+        assertThrows(IllegalStateException.class, allocator::allocate);
+
+        String released = RoomCodeAllocator.codeOf(NODES);
+        allocator.release(released);
+
+        assertFalse(allocator.isUsed(released));
+        assertEquals(released, allocator.allocate());
+    }
+
+    @Test
+    void aRolledBackAllocationIsReleased() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        String code = transaction.execute(status -> {
+            status.setRollbackOnly();
+            return allocator.allocate();
+        });
+
+        assertFalse(allocator.isUsed(code));
+    }
+
+    @Test
+    void nodeSettingsOutOfRangeAreRejected() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Duration timeout = Duration.ofSeconds(5);
+        assertThrows(IllegalArgumentException.class,
+                () -> new RoomCodeAllocator(jdbcTemplate, registry, 1, 0, 0, "simple", timeout));
+        assertThrows(IllegalArgumentException.class,
+                () -> new RoomCodeAllocator(jdbcTemplate, registry, 1, 2, 2, "simple", timeout));
+        assertThrows(IllegalArgumentException.class,
+                () -> new RoomCodeAllocator(jdbcTemplate, registry, 1, -1, 2, "simple", timeout));
+    }
+
+    @Test
+    void theSharedAllocatorHandsOutDistinctCodes() {
+        Set<String> codes = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            String code = roomCodeAllocator.allocate();
+            assertTrue(RoomCodeAllocator.indexOf(code) >= 0);
+            assertTrue(codes.add(code));
+        }
+    }
+
+    private void createRoom(String code) {
+        roomRepository.save(Room.builder()
+                .roomCode(code)
+                .host(Fixtures.user(userRepository, "codes"))
+                .maxPlayers(2)
+                .characterSet(Fixtures.characterSet(characterSetRepository, "codes"))
+                .build());
+    }
+}
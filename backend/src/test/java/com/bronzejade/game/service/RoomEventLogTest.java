@@ -0,0 +1,120 @@
+package com.bronzejade.game.service;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RoomEventLogTest {
+
+    private static final String EVENTS = "/topic/room.1";
+    private static final String STATE = "/topic/room.1.state";
+
+    private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+    private final MessageChannel outbound = mock(MessageChannel.class);
+    private final RoomEventLog eventLog = new RoomEventLog(messagingTemplate, outbound, 4, "simple");
+    private final UUID roomId = UUID.randomUUID();
+
+    RoomEventLogTest() {
+        when(messagingTemplate.getMessageConverter()).thenReturn(new MappingJackson2MessageConverter());
+    }
+
+    @Test
+    void numbersBroadcastsAcrossDestinations() {
+        eventLog.publish(roomId, EVENTS, seq -> "event " + seq);
+        eventLog.publish(roomId, STATE, seq -> "state " + seq);
+
+        verify(messagingTemplate).convertAndSend(EVENTS, "event 1", Map.of(RoomEventLog.SEQ_HEADER, "1"));
+        verify(messagingTemplate).convertAndSend(STATE, "state 2", Map.of(RoomEventLog.SEQ_HEADER, "2"));
+        assertEquals(2, eventLog.current(roomId));
+        assertEquals(0, eventLog.current(UUID.randomUUID()));
+    }
+
+    @Test
+    void replaysOnlyMissedFramesOfTheDestination() {
+        for (int i = 0; i < 4; i++) {
+            String destination = i % 2 == 0 ? EVENTS : STATE;
+            eventLog.publish(roomId, destination, seq -> "frame " + seq);
+        }
+
+        assertTrue(eventLog.replay(roomId, STATE, 1, "session", "sub"));
+
+        ArgumentCaptor<Message<?>> sent = ArgumentCaptor.forClass(Message.class);
+        verify(outbound, times(2)).send(sent.capture());
+        List<String> seqs = sent.getAllValues().stream()
+                .map(m -> SimpMessageHeaderAccessor.wrap(m).getFirstNativeHeader(RoomEventLog.SEQ_HEADER))
+                .toList();
+        assertEquals(List.of("2", "4"), seqs);
+        assertEquals("sub", SimpMessageHeaderAccessor.getSubscriptionId(sent.getValue().getHeaders()));
+    }
+
+    @Test
+    void refusesToReplayWhatFellOutOfTheBuffer() {
+        for (int i = 0; i < 6; i++) {
+            eventLog.publish(roomId, EVENTS, seq -> "frame " + seq);
+        }
+
+        // Frames 3..6 are buffered, so a client that saw 2 can resume but one that saw 1 cannot
+        assertFalse(eventLog.replay(roomId, EVENTS, 1, "session", "sub"));
+        assertFalse(eventLog.replay(roomId, EVENTS, 7, "session", "sub"));
+        verify(outbound, never()).send(any());
+
+        assertTrue(eventLog.replay(roomId, EVENTS, 2, "session", "sub"));
+        verify(outbound, times(4)).send(any());
+    }
+
+    @Test
+    void forgetsClosedRooms() {
+        eventLog.publish(roomId, EVENTS, seq -> "frame");
+        eventLog.roomClosed(roomId);
+
+        assertEquals(0, eventLog.current(roomId));
+        verify(messagingTemplate).convertAndSend(eq(EVENTS), eq((Object) "frame"), any(Map.class));
+    }
+
+    @Test
+    void finishedGamesKeepOnlyTheirLastNumber() {
+        eventLog.publish(roomId, EVENTS, seq -> "frame " + seq);
+        eventLog.publish(roomId, STATE, seq -> "finished " + seq);
+        eventLog.gameFinished(roomId);
+
+        assertEquals(2, eventLog.current(roomId));
+        assertFalse(eventLog.replay(roomId, STATE, 1, "session", "sub"));
+        assertTrue(eventLog.replay(roomId, STATE, 2, "session", "sub"));
+        verify(outbound, never()).send(any());
+
+        eventLog.publish(roomId, STATE, seq -> "left " + seq);
+        verify(messagingTemplate).convertAndSend(STATE, "left 3", Map.of(RoomEventLog.SEQ_HEADER, "3"));
+        assertFalse(eventLog.replay(roomId, STATE, 2, "session", "sub"));
+    }
+
+    @Test
+    void relayModeSendsUnsequencedFramesAndNeverReplays() {
+        RoomEventLog relayLog = new RoomEventLog(messagingTemplate, outbound, 4, "relay");
+
+        relayLog.publish(roomId, EVENTS, seq -> "event " + seq);
+
+        verify(messagingTemplate).convertAndSend(EVENTS, (Object) "event 0");
+        assertEquals(0, relayLog.current(roomId));
+        assertFalse(relayLog.replay(roomId, EVENTS, 0, "session", "sub"));
+        verify(outbound, never()).send(any());
+    }
+}
@@ -0,0 +1,96 @@
+package com.bronzejade.game.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomMembershipIndexTest {
+
+    @Test
+    void putFindAndRemove() {
+        RoomMembershipIndex index = new RoomMembershipIndex();
+        UUID roomId = UUID.randomUUID();
+        UUID userId = UUID.randomUUID();
+        UUID playerId = UUID.randomUUID();
+
+        assertNull(index.find(roomId, userId));
+
+        index.put(roomId, userId, playerId);
+        assertEquals(playerId, index.find(roomId, userId));
+        assertFalse(index.contains(roomId, UUID.randomUUID()));
+
+        index.remove(roomId, userId);
+        assertNull(index.find(roomId, userId));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void removeRoomDropsEveryMember() {
+        RoomMembershipIndex index = new RoomMembershipIndex();
+        UUID roomId = UUID.randomUUID();
+        UUID otherRoomId = UUID.randomUUID();
+        UUID host = UUID.randomUUID();
+        UUID guest = UUID.randomUUID();
+
+        index.put(roomId, host, UUID.randomUUID());
+        index.put(roomId, guest, UUID.randomUUID());
+        index.put(otherRoomId, host, UUID.randomUUID());
+
+        index.removeRoom(roomId);
+
+        assertFalse(index.contains(roomId, host));
+        assertFalse(index.contains(roomId, guest));
+        assertTrue(index.contains(otherRoomId, host));
+    }
+
+    @Test
+    void staleDatabaseAnswerIsNotCachedAfterRemoval() {
+        RoomMembershipIndex index = new RoomMembershipIndex();
+        UUID roomId = UUID.randomUUID();
+        UUID userId = UUID.randomUUID();
+
+        long generation = index.generation();
+        index.remove(roomId, userId);
+        index.putIfGeneration(generation, roomId, userId, UUID.randomUUID());
+
+        assertFalse(index.contains(roomId, userId));
+    }
+
+    @Test
+    void survivesConcurrentWritersAndGrowth() throws Exception {
+        RoomMembershipIndex index = new RoomMembershipIndex();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        List<UUID[]> entries = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            entries.add(new UUID[]{UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID()});
+        }
+
+        for (int t = 0; t < 8; t++) {
+            int offset = t;
+            futures.add(executor.submit(() -> {
+                for (int i = offset; i < entries.size(); i += 8) {
+                    UUID[] e = entries.get(i);
+                    index.put(e[0], e[1], e[2]);
+                    assertEquals(e[2], index.find(e[0], e[1]));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(entries.size(), index.size());
+        for (UUID[] e : entries) {
+            assertEquals(e[2], index.find(e[0], e[1]));
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.bronzejade.game.service;
+
+import com.bronzejade.game.domain.RoomStatus;
+import com.bronzejade.game.domain.TurnPhase;
+import com.bronzejade.game.domain.entities.CharacterSet;
+import com.bronzejade.game.domain.entities.GameState;
+import com.bronzejade.game.domain.entities.Room;
+import com.bronzejade.game.domain.entities.RoomPlayer;
+import com.bronzejade.game.domain.entities.User;
+import com.bronzejade.game.repositories.CharacterSetRepository;
+import com.bronzejade.game.repositories.GameStateRepository;
+import com.bronzejade.game.repositories.RoomPlayerRepository;
+import com.bronzejade.game.repositories.RoomRepository;
+import com.bronzejade.game.repositories.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "game.rooms.reaper.chunk-size=2")
+class RoomReaperTest {
+
+    @Autowired
+    private RoomReaper roomReaper;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CharacterSetRepository characterSetRepository;
+    @Autowired
+    private RoomRepository roomRepository;
+    @Autowired
+    private RoomPlayerRepository roomPlayerRepository;
+    @Autowired
+    private GameStateRepository gameStateRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private DataSource dataSource;
+
+    private CharacterSet characterSet;
+
+    @BeforeEach
+    void setup() {
+        characterSet = Fixtures.characterSet(characterSetRepository, "reaper");
+    }
+
+    @Test
+    void oldFinishedRoomsAreArchivedWithTheirWinner() {
+        Room room = createRoom(RoomStatus.FINISHED, LocalDateTime.now().minusDays(30));
+        RoomPlayer winner = roomPlayerRepository.findByRoomId(room.getId()).get(0);
+        jdbcTemplate.update("UPDATE game_state SET winner_id = ?, round_number = 7 WHERE room_id = ?",
+                winner.getUser().getId(), room.getId());
+
+        roomReaper.reap();
+
+        assertFalse(roomRepository.existsById(room.getId()));
+        assertTrue(roomPlayerRepository.findByRoomId(room.getId()).isEmpty());
+        assertTrue(gameStateRepository.findByRoomId(room.getId()).isEmpty());
+        Map<String, Object> history = jdbcTemplate.queryForMap(
+                "SELECT room_code, winner_user_id, round_number FROM room_history WHERE room_id = ?", room.getId());
+        assertEquals(room.getRoomCode(), history.get("room_code"));
+        assertEquals(winner.getUser().getId(), history.get("winner_user_id"));
+        assertEquals(7, ((Number) history.get("round_number")).intValue());
+    }
+
+    @Test
+    void abandonedWaitingRoomsAreDeletedInChunksWithoutHistory() {
+        Room[] abandoned = new Room[5];
+        for (int i = 0; i < abandoned.length; i++) {
+            abandoned[i] = createEmptyRoom(RoomStatus.WAITING, LocalDateTime.now().minusDays(2));
+        }
+
+        roomReaper.reap();
+
+        for (Room room : abandoned) {
+            assertFalse(roomRepository.existsById(room.getId()));
+            assertEquals(0, jdbcTemplate.queryForObject(
+                    "SELECT count(*) FROM room_history WHERE room_id = ?", Integer.class, room.getId()));
+        }
+    }
+
+    @Test
+    void gamesEveryoneLeftAreDeleted() {
+        Room abandoned = createEmptyRoom(RoomStatus.IN_PROGRESS, LocalDateTime.now().minusDays(2));
+
+        roomReaper.reap();
+
+        assertFalse(roomRepository.existsById(abandoned.getId()));
+    }
+
+    @Test
+    void oldRoomsWithPlayersAreKept() {
+        // What leaveRoom leaves behind when the opponent walks out of a long game
+        Room occupied = createRoom(RoomStatus.WAITING, LocalDateTime.now().minusDays(2));
+        Room longGame = createRoom(RoomStatus.IN_PROGRESS, LocalDateTime.now().minusDays(2));
+
+        roomReaper.reap();
+
+        assertTrue(roomRepository.existsById(occupied.getId()));
+        assertTrue(roomRepository.existsById(longGame.getId()));
+    }
+
+    @Test
+    void emptyRoomsAreTimedFromTheLastLeave() {
+        Room justLeft = createEmptyRoom(RoomStatus.WAITING, LocalDateTime.now().minusDays(2));
+        jdbcTemplate.update("UPDATE rooms SET membership_changed_at = ? WHERE id = ?",
+                LocalDateTime.now().minusMinutes(5), justLeft.getId());
+
+        roomReaper.reap();
+
+        assertTrue(roomRepository.existsById(justLeft.getId()));
+    }
+
+    @Test
+    void recentAndRunningRoomsAreKept() {
+        Room recentlyFinished = createRoom(RoomStatus.FINISHED, LocalDateTime.now().minusHours(1));
+        Room recentlyOpened = createRoom(RoomStatus.WAITING, LocalDateTime.now().minusMinutes(5));
+        Room oldButRunning = createRoom(RoomStatus.IN_PROGRESS, LocalDateTime.now().minusDays(30));
+
+        roomReaper.reap();
+
+        assertTrue(roomRepository.existsById(recentlyFinished.getId()));
+        assertTrue(roomRepository.existsById(recentlyOpened.getId()));
+        assertTrue(roomRepository.existsById(oldButRunning.getId()));
+    }
+
+    @Test
+    void roomsLockedByAnotherTransactionAreSkipped() throws Exception {
+        Room locked = createEmptyRoom(RoomStatus.WAITING, LocalDateTime.now().minusDays(2));
+        Room free = createEmptyRoom(RoomStatus.WAITING, LocalDateTime.now().minusDays(2));
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement lock = connection.prepareStatement("SELECT id FROM rooms WHERE id = ? FOR UPDATE")) {
+                lock.setObject(1, locked.getId());
+                lock.executeQuery().close();
+            }
+
+            roomReaper.reap();
+
+            assertTrue(roomRepository.existsById(locked.getId()));
+            assertFalse(roomRepository.existsById(free.getId()));
+            connection.rollback();
+        }
+
+        roomReaper.reap();
+        assertFalse(roomRepository.existsById(locked.getId()));
+    }
+
+    // Status and timestamps go straight to the table: the entity sets its own on insert
+    private Room createRoom(RoomStatus status, LocalDateTime at) {
+        User host = Fixtures.user(userRepository, "reaper");
+        Room room = new Room();
+        room.setHost(host);
+        room.setMaxPlayers(2);
+        room.setCharacterSet(characterSet);
+        room = roomRepository.save(room);
+        RoomPlayer player = roomPlayerRepository.save(RoomPlayer.builder().room(room).user(host).host(true).build());
+        gameStateRepository.save(GameState.builder()
+                .room(room).turnPlayer(player).turnPhase(TurnPhase.ASKING).roundNumber(1).build());
+        jdbcTemplate.update(
+                "UPDATE rooms SET status = ?, created_at = ?, membership_changed_at = ?, finished_at = ? WHERE id = ?",
+                status.name(), at, at, status == RoomStatus.FINISHED ? at : null, room.getId());
+        return room;
+    }
+
+    // Deletes the player rows directly, so membership_changed_at keeps the given time
+    private Room createEmptyRoom(RoomStatus status, LocalDateTime at) {
+        Room room = createRoom(status, at);
+        jdbcTemplate.update("DELETE FROM room_players WHERE room_id = ?", room.getId());
+        return room;
+    }
+}
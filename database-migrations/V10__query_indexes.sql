@@ -0,0 +1,51 @@
+-- Indexes for the lookups made by the repositories package. Checked against seeded
+-- data by QueryPlanTest (backend, run with -Dexplain.url=...).
+
+-- A user sits in a room at most once, but nothing enforced it so far: fold duplicate seats
+-- into one first. The host's seat is kept if there is one, else the earliest, and the
+-- game rows pointing at a dropped seat are moved over to the kept one.
+CREATE TEMPORARY TABLE room_player_duplicates AS
+SELECT id, kept_id
+FROM (SELECT id, first_value(id) OVER (PARTITION BY room_id, user_id ORDER BY is_host DESC, joined_at, id) AS kept_id
+      FROM room_players
+      WHERE user_id IS NOT NULL) seats
+WHERE id <> kept_id;
+
+UPDATE game_state gs SET turn_player_id = d.kept_id
+FROM room_player_duplicates d WHERE gs.turn_player_id = d.id;
+UPDATE game_action ga SET asking_player_id = d.kept_id
+FROM room_player_duplicates d WHERE ga.asking_player_id = d.id;
+UPDATE game_action ga SET answering_player_id = d.kept_id
+FROM room_player_duplicates d WHERE ga.answering_player_id = d.id;
+
+DELETE FROM room_players rp USING room_player_duplicates d WHERE rp.id = d.id;
+DROP TABLE room_player_duplicates;
+
+-- RoomPlayerRepository: findByRoomId, countByRoomId, findByRoomIdAndUser,
+-- existsByRoomIdAndUser, findIdByRoomIdAndUserId.
+CREATE UNIQUE INDEX IF NOT EXISTS uq_room_players_room_user ON room_players (room_id, user_id);
+
+-- One game per room: of duplicate game states the most advanced (highest version) is kept
+DELETE FROM game_state gs
+USING (SELECT id, row_number() OVER (PARTITION BY room_id ORDER BY version DESC, id) AS game_rank
+       FROM game_state) ranked
+WHERE gs.id = ranked.id AND ranked.game_rank > 1;
+
+-- GameStateRepository: findByRoomId, existsByRoomId, findGameContext.
+CREATE UNIQUE INDEX IF NOT EXISTS uq_game_state_room_id ON game_state (room_id);
+
+-- Deleting a room cascades through room_players into this foreign key. game_action gets
+-- no indexes here: V11 replaces it with game_event and drops it.
+CREATE INDEX IF NOT EXISTS idx_game_state_turn_player ON game_state (turn_player_id)
+    WHERE turn_player_id IS NOT NULL;
+
+-- Rooms still open, by status and age; finished rooms are the bulk of the table and never looked up this way
+CREATE INDEX IF NOT EXISTS idx_rooms_open_status_created ON rooms (status, created_at)
+    WHERE status IN ('WAITING', 'IN_PROGRESS');
+
+-- Public sets: CharacterSetRepository.findPublicWithCharacters (the catalog) and findPublicSummaries
+-- (the lobby list). V12 replaces this with a (created_at, id) keyset index for the latter.
+CREATE INDEX IF NOT EXISTS idx_character_sets_public ON character_sets (created_at) WHERE is_public;
+
+-- CharacterRepository.findByName
+CREATE INDEX IF NOT EXISTS idx_characters_name ON characters (name);
@@ -0,0 +1,60 @@
+-- Game history as immutable events in an append-only table, range-partitioned by month
+-- so old months can be dropped as whole partitions. Replaces the mutable game_action rows.
+CREATE TABLE game_event (
+    id UUID NOT NULL,
+    room_id UUID NOT NULL,
+    game_state_id UUID NOT NULL,
+    round_number INT NOT NULL,
+    type VARCHAR(20) NOT NULL,
+    player_id UUID,
+    text TEXT,
+    target_id UUID,
+    created_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- Created on every partition: the pending question lookup of the game context query
+CREATE INDEX idx_game_event_state_round ON game_event (game_state_id, round_number);
+
+-- Creates the partition holding the given month, e.g. game_event_2025_01; no-op if it exists
+CREATE OR REPLACE FUNCTION create_game_event_partition(month DATE) RETURNS VOID AS $$
+DECLARE
+    first_day DATE := date_trunc('month', month);
+BEGIN
+    EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF game_event FOR VALUES FROM (%L) TO (%L)',
+                   'game_event_' || to_char(first_day, 'YYYY_MM'), first_day, first_day + INTERVAL '1 month');
+END;
+$$ LANGUAGE plpgsql;
+
+-- Partitions from the oldest room up to two months ahead; the backend creates later ones
+DO $$
+DECLARE
+    month TIMESTAMP;
+BEGIN
+    FOR month IN
+        SELECT generate_series(date_trunc('month', COALESCE((SELECT min(created_at) FROM rooms), now())),
+                               date_trunc('month', now()) + INTERVAL '2 months',
+                               INTERVAL '1 month')
+    LOOP
+        PERFORM create_game_event_partition(month::DATE);
+    END LOOP;
+END;
+$$;
+
+-- Carry the existing history over; game_action rows have no timestamp of their own
+INSERT INTO game_event (id, room_id, game_state_id, round_number, type, player_id, text, created_at)
+SELECT ga.id, gs.room_id, ga.game_state_id, ga.round_number, 'QUESTION', ga.asking_player_id, ga.question,
+       COALESCE(r.started_at, r.created_at)
+FROM game_action ga
+JOIN game_state gs ON gs.id = ga.game_state_id
+JOIN rooms r ON r.id = gs.room_id;
+
+INSERT INTO game_event (id, room_id, game_state_id, round_number, type, player_id, text, target_id, created_at)
+SELECT gen_random_uuid(), gs.room_id, ga.game_state_id, ga.round_number, 'ANSWER', ga.answering_player_id, ga.answer,
+       ga.id, COALESCE(r.started_at, r.created_at)
+FROM game_action ga
+JOIN game_state gs ON gs.id = ga.game_state_id
+JOIN rooms r ON r.id = gs.room_id
+WHERE ga.answer IS NOT NULL;
+
+DROP TABLE game_action;
@@ -0,0 +1,7 @@
+-- Keyset pagination of public character sets (CharacterSetRepository.findPublicSummaries*):
+-- ORDER BY created_at DESC, id DESC bounded by (created_at, id) < (?, ?) reads straight off
+-- this index. It supersedes the created_at-only index from V10.
+CREATE INDEX IF NOT EXISTS idx_character_sets_public_keyset
+    ON character_sets (created_at DESC, id DESC) WHERE is_public;
+
+DROP INDEX IF EXISTS idx_character_sets_public;
@@ -0,0 +1,21 @@
+-- Finished rooms archived by RoomReaper: one row per room in place of the room, its
+-- players and its game state (deleted through the ON DELETE CASCADE foreign keys).
+CREATE TABLE IF NOT EXISTS room_history (
+    room_id          UUID PRIMARY KEY,
+    room_code        VARCHAR(6) NOT NULL,
+    host_id          UUID,
+    character_set_id UUID,
+    winner_user_id   UUID,
+    game_state_id    UUID,
+    round_number     INT,
+    created_at       TIMESTAMP NOT NULL,
+    started_at       TIMESTAMP,
+    finished_at      TIMESTAMP,
+    archived_at      TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_room_history_finished_at ON room_history (finished_at);
+
+-- The reaper's chunk queries: finished rooms by finish time (the open rooms by age are
+-- already covered by idx_rooms_open_status_created from V10)
+CREATE INDEX IF NOT EXISTS idx_rooms_finished_at ON rooms (finished_at) WHERE status = 'FINISHED';
@@ -0,0 +1,10 @@
+-- Guests get a users row only once they create or join a room; GuestReaper deletes the
+-- ones idle for longer than game.users.guest-reaper.max-idle.
+ALTER TABLE users ADD COLUMN IF NOT EXISTS is_guest BOOLEAN NOT NULL DEFAULT FALSE;
+ALTER TABLE users ADD COLUMN IF NOT EXISTS last_active_at TIMESTAMP;
+
+-- Guests created before this migration: no email and an empty password
+UPDATE users SET is_guest = TRUE, last_active_at = created_at
+WHERE email IS NULL AND password = '';
+
+CREATE INDEX IF NOT EXISTS idx_users_guest_last_active ON users (last_active_at) WHERE is_guest;
@@ -0,0 +1,10 @@
+-- Tokens revoked by logout, by jti. Nodes poll by revoked_at for other nodes' logouts;
+-- expired rows are deleted by expires_at.
+CREATE TABLE IF NOT EXISTS revoked_tokens (
+    jti        UUID PRIMARY KEY,
+    expires_at TIMESTAMP NOT NULL,
+    revoked_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_revoked_tokens_revoked_at ON revoked_tokens (revoked_at);
+CREATE INDEX IF NOT EXISTS idx_revoked_tokens_expires_at ON revoked_tokens (expires_at);
@@ -0,0 +1,32 @@
+-- Catch-all partition: an event for a month without a partition (e.g. maintenance did not
+-- run in time) is kept here instead of failing its insert and being lost
+CREATE TABLE IF NOT EXISTS game_event_default PARTITION OF game_event DEFAULT;
+
+-- Creates the partition holding the given month, e.g. game_event_2025_01; no-op if it exists.
+-- Rows of that month already in the default partition are moved into the new partition.
+CREATE OR REPLACE FUNCTION create_game_event_partition(month DATE) RETURNS VOID AS $$
+DECLARE
+    first_day DATE := date_trunc('month', month);
+    next_month DATE := date_trunc('month', month) + INTERVAL '1 month';
+    partition_name TEXT := 'game_event_' || to_char(date_trunc('month', month), 'YYYY_MM');
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN;
+    END IF;
+
+    IF NOT EXISTS (SELECT 1 FROM game_event_default WHERE created_at >= first_day AND created_at < next_month) THEN
+        EXECUTE format('CREATE TABLE %I PARTITION OF game_event FOR VALUES FROM (%L) TO (%L)',
+                       partition_name, first_day, next_month);
+        RETURN;
+    END IF;
+
+    -- The default partition would violate the new bounds, so build the partition on its own,
+    -- move the rows over and attach it. Attaching rescans the default partition: a row that
+    -- arrived meanwhile makes it fail, and the next maintenance run tries again.
+    EXECUTE format('CREATE TABLE %I (LIKE game_event INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', partition_name);
+    EXECUTE format('WITH moved AS (DELETE FROM game_event_default WHERE created_at >= %L AND created_at < %L RETURNING *) '
+                   'INSERT INTO %I SELECT * FROM moved', first_day, next_month, partition_name);
+    EXECUTE format('ALTER TABLE game_event ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, first_day, next_month);
+END;
+$$ LANGUAGE plpgsql;
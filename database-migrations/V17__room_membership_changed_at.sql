@@ -0,0 +1,14 @@
+-- When a player last joined or left a room. RoomReaper deletes open rooms that have had
+-- no players for its waiting ttl, counted from here rather than from created_at, so a
+-- long-running lobby or game someone is still in is never taken for abandoned.
+ALTER TABLE rooms ADD COLUMN IF NOT EXISTS membership_changed_at TIMESTAMP NOT NULL DEFAULT now();
+
+-- Departures were never recorded, so the latest join (or the start) is the best guess
+UPDATE rooms r
+SET membership_changed_at = GREATEST(r.created_at, COALESCE(r.started_at, r.created_at),
+                                     COALESCE((SELECT max(rp.joined_at) FROM room_players rp WHERE rp.room_id = r.id),
+                                              r.created_at));
+
+-- The reaper's abandoned-room chunks, in place of V10's status/created_at index for them
+CREATE INDEX IF NOT EXISTS idx_rooms_open_membership_changed ON rooms (membership_changed_at)
+    WHERE status IN ('WAITING', 'IN_PROGRESS');
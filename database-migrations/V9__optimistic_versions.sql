@@ -0,0 +1,4 @@
+-- Version counters for optimistic concurrency: JPA checks them through @Version and
+-- turn transitions compare-and-set game_state directly
+ALTER TABLE game_state ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE rooms ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -94,21 +94,29 @@ class _OnlineGameScreenState extends State<OnlineGameScreen> {
           final Map<String, dynamic> jsonData = json.decode(message);
           debugPrint("Successfully parsed JSON: ${jsonData.keys}");
 
-          if (jsonData.containsKey("gameEnded")) {
-            if (jsonData["gameEnded"] == true) {
-              debugPrint("Game over detected");
-              _handleGameover(jsonData);
-            } else {
-              _handleIncorrectGuess(jsonData);
-            }
-          } else if (jsonData.containsKey("message")) {
-            debugPrint("Message DTO detected: ${jsonData["message"]}");
-            _handleMessageDto(jsonData["message"]);
+          switch (jsonData["type"]) {
+            case "GuessResult":
+              if (jsonData["gameEnded"] == true) {
+                debugPrint("Game over detected");
+                _handleGameover(jsonData);
+              } else {
+                _handleIncorrectGuess(jsonData);
+              }
+              break;
+            case "QuestionAsked":
+              _handleQuestionAsked(
+                jsonData["displayName"],
+                jsonData["question"],
+              );
+              break;
+            case "AnswerGiven":
+              _handleAnswerGiven(jsonData["displayName"], jsonData["answer"]);
+              break;
+            default:
+              debugPrint("Room event: ${jsonData["type"]}");
           }
         } catch (e) {
-          debugPrint("Failed to parse as JSON: $e");
-          debugPrint("Treating as plain text message");
-          _handleMessageDto(message);
+          debugPrint("Failed to parse room event: $e");
         }
       },
       onError: (error) {
@@ -135,92 +143,67 @@ class _OnlineGameScreenState extends State<OnlineGameScreen> {
     debugPrint("Websocket listeners set up successfully");
   }
 
-  String _extractPlayerName(String message) {
-    final colonIndex = message.indexOf(":");
-    if (colonIndex != -1) {
-      return message.substring(0, colonIndex).trim();
-    }
-    return "Unknown";
-  }
-
-  void _handleMessageDto(String messageText) {
-    if (messageText.contains("joined")) {
-      debugPrint("Player joined: $messageText");
-    } else if (messageText.contains("ready") ||
-        messageText.contains("not ready")) {
-      debugPrint("Ready status changed: $messageText");
-    } else if (messageText.contains(" asked: ")) {
-      final parts = messageText.split(" asked: ");
-      if (parts.length < 2) return;
+  void _handleQuestionAsked(String questionerName, String question) {
+    final isMyQuestion = questionerName == widget.playerName;
 
-      final questionerName = _extractPlayerName(parts[0]);
-      final question = parts[1];
-
-      final isMyQuestion = questionerName == widget.playerName;
+    debugPrint(
+      "questionerName: $questionerName, playerName: ${widget.playerName}",
+    );
 
-      debugPrint(
-        "questionerName: $questionerName, playerName: ${widget.playerName}",
-      );
+    if (!isMyQuestion && _opponentPlayerName == null) {
+      _opponentPlayerName = questionerName;
+    }
 
-      if (!isMyQuestion && _opponentPlayerName == null) {
-        _opponentPlayerName = questionerName;
-      }
+    if (!mounted) return;
 
-      if (!mounted) return;
+    setState(() {
+      _currentQuestion = question;
+      _currentQuestionerName = questionerName;
+      _currentPhase = TurnPhase.answering;
+    });
+  }
 
-      setState(() {
-        _currentQuestion = question;
-        _currentQuestionerName = questionerName;
-        _currentPhase = TurnPhase.answering;
-      });
-    } else if (messageText.contains(" answered: ")) {
-      final parts = messageText.split(" answered: ");
-      if (parts.length < 2) return;
+  void _handleAnswerGiven(String answererName, String answer) {
+    final isMyAnswer = answererName == widget.playerName;
 
-      final answererName = _extractPlayerName(parts[0]);
-      final answer = parts[1];
+    if (!isMyAnswer && _opponentPlayerName == null) {
+      _opponentPlayerName = answererName;
+    }
 
-      final isMyAnswer = answererName == widget.playerName;
+    if (!mounted) return;
 
-      if (!isMyAnswer && _opponentPlayerName == null) {
-        _opponentPlayerName = answererName;
+    setState(() {
+      if (_currentQuestion != null && _currentQuestionerName != null) {
+        final isQuestionerMe = _currentQuestionerName == widget.playerName;
+
+        _qaHistory.add({
+          "question": _currentQuestion!,
+          "questionerName": _currentQuestionerName!,
+          "isMyQuestion": isQuestionerMe.toString(),
+          "answer": answer,
+          "answererName": answererName,
+          "isMyAnswer": isMyAnswer.toString(),
+        });
+
+        _currentQuestion = null;
+        _currentQuestionerName = null;
       }
 
-      if (!mounted) return;
-
-      setState(() {
-        if (_currentQuestion != null && _currentQuestionerName != null) {
-          final isQuestionerMe = _currentQuestionerName == widget.playerName;
-
-          _qaHistory.add({
-            "question": _currentQuestion!,
-            "questionerName": _currentQuestionerName!,
-            "isMyQuestion": isQuestionerMe.toString(),
-            "answer": answer,
-            "answererName": answererName,
-            "isMyAnswer": isMyAnswer.toString(),
-          });
-
-          _currentQuestion = null;
-          _currentQuestionerName = null;
-        }
+      _gameState.switchTurn();
+      _currentPhase = TurnPhase.asking;
+      _waitingForAnswer = false;
+      _isMessageLogExpanded = true;
+    });
 
-        _gameState.switchTurn();
-        _currentPhase = TurnPhase.asking;
-        _waitingForAnswer = false;
-        _isMessageLogExpanded = true;
-      });
-
-      WidgetsBinding.instance.addPostFrameCallback((_) {
-        if (_scrollController.hasClients) {
-          _scrollController.animateTo(
-            _scrollController.position.maxScrollExtent,
-            duration: const Duration(milliseconds: 300),
-            curve: Curves.easeOut,
-          );
-        }
-      });
-    }
+    WidgetsBinding.instance.addPostFrameCallback((_) {
+      if (_scrollController.hasClients) {
+        _scrollController.animateTo(
+          _scrollController.position.maxScrollExtent,
+          duration: const Duration(milliseconds: 300),
+          curve: Curves.easeOut,
+        );
+      }
+    });
   }
 
   void _sendAnswer(String answer) {
@@ -279,7 +262,7 @@ class _OnlineGameScreenState extends State<OnlineGameScreen> {
           ),
           content: Text(
             isWinner
-                ? response["message"]
+                ? "Correct! You've won the game!"
                 : "Winner is Guest#${winnerId.substring(0, 6)}",
             style: TextStyle(
               color: Theme.of(context).colorScheme.primary,
@@ -411,7 +394,10 @@ class _OnlineGameScreenState extends State<OnlineGameScreen> {
             "Opponent guessed ${response["guessedCharacterName"]} and was wrong",
             textAlign: TextAlign.center,
           )
-        : Text(response["message"], textAlign: TextAlign.center);
+        : const Text(
+            "Wrong guess! Turn passes to opponent.",
+            textAlign: TextAlign.center,
+          );
 
     ScaffoldMessenger.of(context).showSnackBar(
       SnackBar(
@@ -80,16 +80,13 @@ class _OnlineLobbyScreenState extends State<OnlineLobbyScreen> {
       try {
         final Map<String, dynamic> jsonData = json.decode(message);
 
-        if (jsonData.containsKey("turnPlayer")) {
+        if (jsonData["type"] == "GameStarted") {
           debugPrint("[Lobby] Game starting, navigating to game screen");
           _navigateToGame(jsonData);
-        } else if (jsonData.containsKey("message")) {
-          final messageText = jsonData["message"];
-          if (messageText.contains("joined") && _messages.length > 1) {
-            setState(() {
-              _isMessageLogExpanded = true;
-            });
-          }
+        } else if (jsonData["type"] == "PlayerJoined" && _messages.length > 1) {
+          setState(() {
+            _isMessageLogExpanded = true;
+          });
         }
       } catch (e) {
         if (message.contains("started")) {
@@ -216,6 +213,21 @@ class _OnlineLobbyScreenState extends State<OnlineLobbyScreen> {
     }
   }
 
+  // Room events are typed; the lobby log renders them as text
+  String? _describeRoomEvent(Map<String, dynamic> event) {
+    final name = event["displayName"];
+    switch (event["type"]) {
+      case "PlayerJoined":
+        return "$name has joined room";
+      case "ReadyToggled":
+        return event["ready"] == true ? "$name is ready" : "$name is not ready";
+      case "GameStarted":
+        return "The game has been started";
+      default:
+        return null;
+    }
+  }
+
   void _navigateToGame(Map<String, dynamic>? startGameResponse) {
     _messageSubsciption?.cancel();
     _errorSubscription?.cancel();
@@ -224,10 +236,9 @@ class _OnlineLobbyScreenState extends State<OnlineLobbyScreen> {
     bool isMyTurnInitially = false;
 
     if (startGameResponse != null &&
-        startGameResponse.containsKey("turnPlayer")) {
-      final turnPlayerData = startGameResponse["turnPlayer"];
-      final turnPlayerId = turnPlayerData["userId"];
-      isMyTurnInitially = turnPlayerId == widget.playerId;
+        startGameResponse.containsKey("turnUserId")) {
+      final turnUserId = startGameResponse["turnUserId"];
+      isMyTurnInitially = turnUserId == widget.playerId;
     }
 
     AudioManager().playGameStart();
@@ -591,9 +602,9 @@ class _OnlineLobbyScreenState extends State<OnlineLobbyScreen> {
                                   try {
                                     final Map<String, dynamic> jsonData = json
                                         .decode(rawMessage);
-                                    if (jsonData.containsKey("message")) {
-                                      displayMessage = jsonData["message"];
-                                    }
+                                    displayMessage =
+                                        _describeRoomEvent(jsonData) ??
+                                        rawMessage;
                                   } catch (e) {
                                     displayMessage = rawMessage;
                                   }
@@ -22,6 +22,14 @@ class ApiService {
     return headers;
   }
 
+  // Guests may get a new token when they first create or join a room
+  static Future<void> _adoptRefreshedToken(http.Response response) async {
+    final token = response.headers["x-refreshed-token"];
+    if (token != null && token.isNotEmpty) {
+      await AuthService.replaceToken(token);
+    }
+  }
+
   static Future<List<CharacterSet>> getCharacterSets() async {
     try {
       final headers = await _getHeaders();
@@ -171,6 +179,7 @@ class ApiService {
       );
 
       if (response.statusCode == 200) {
+        await _adoptRefreshedToken(response);
         return Room.fromJson(json.decode(response.body));
       } else {
         throw Exception("Failed to create room: ${response.statusCode}");
@@ -190,6 +199,7 @@ class ApiService {
       );
 
       if (response.statusCode == 200) {
+        await _adoptRefreshedToken(response);
         return Room.fromJson(json.decode(response.body));
       } else {
         throw Exception('Failed to join room: ${response.statusCode}');
@@ -1,3 +1,5 @@
+import 'dart:convert';
+
 import 'package:shared_preferences/shared_preferences.dart';
 
 class AuthService {
@@ -19,6 +21,18 @@ class AuthService {
     await prefs.setBool(_isGuestKey, isGuest);
   }
 
+  // A guest token re-issued by the server under the guest's persisted name
+  static Future<void> replaceToken(String token) async {
+    final claims = json.decode(
+      utf8.decode(base64Url.decode(base64Url.normalize(token.split(".")[1]))),
+    );
+    final prefs = await SharedPreferences.getInstance();
+    await prefs.setString(_tokenKey, token);
+    if (claims["name"] != null) {
+      await prefs.setString(_usernameKey, claims["name"]);
+    }
+  }
+
   static Future<String?> getToken() async {
     final prefs = await SharedPreferences.getInstance();
     return prefs.getString(_tokenKey);
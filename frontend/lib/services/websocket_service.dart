@@ -1,4 +1,5 @@
 import 'dart:async';
+import 'dart:convert';
 
 import 'package:flutter/foundation.dart';
 import 'package:guess_who/services/auth_service.dart';
@@ -21,13 +22,24 @@ class WebsocketService {
   final _messageController = StreamController<String>.broadcast();
   final _errorController = StreamController<String>.broadcast();
   final _connectionController = StreamController<bool>.broadcast();
+  final _stateController = StreamController<Map<String, dynamic>>.broadcast();
 
   StompUnsubscribe? _roomSubscription;
   StompUnsubscribe? _errorSubscription;
+  StompUnsubscribe? _stateSubscription;
+  StompUnsubscribe? _stateReplySubscription;
+
+  // Sequence of the last state frame applied; null until the first snapshot
+  int? _stateSeq;
+  // Highest sequence seen on either room topic, sent as "last-seq" when reconnecting
+  int? _lastSeq;
+  int? _lastEventSeq;
+  final List<Map<String, dynamic>> _pendingDeltas = [];
 
   Stream<String> get messageStream => _messageController.stream;
   Stream<String> get errorStream => _errorController.stream;
   Stream<bool> get connectionStream => _connectionController.stream;
+  Stream<Map<String, dynamic>> get stateStream => _stateController.stream;
 
   bool get isConnected => _isConnected;
   String get playerId => _playerId ?? "undefined";
@@ -44,6 +56,76 @@ class WebsocketService {
     }
   }
 
+  void _addToStateStream(Map<String, dynamic> update) {
+    if (!_stateController.isClosed) {
+      _stateController.sink.add(update);
+    }
+  }
+
+  // Room events and state frames share one sequence; a gap in it triggers a resync
+  void _trackSeq(int seq) {
+    if (_lastSeq != null && seq > _lastSeq! + 1) {
+      debugPrint("[WS] Sequence gap ($_lastSeq -> $seq), requesting snapshot");
+      requestState();
+    }
+    if (_lastSeq == null || seq > _lastSeq!) {
+      _lastSeq = seq;
+    }
+  }
+
+  void _handleRoomFrame(StompFrame frame) {
+    final seq = int.tryParse(frame.headers["seq"] ?? "");
+    if (seq != null) {
+      // Replayed frames may overlap with what was already received
+      if (_lastEventSeq != null && seq <= _lastEventSeq!) {
+        return;
+      }
+      _lastEventSeq = seq;
+      _trackSeq(seq);
+    }
+    _addToMessageStream(frame.body!);
+  }
+
+  // Snapshots replace the state; deltas are applied in seq order
+  void _handleStateFrame(String body) {
+    final Map<String, dynamic> update = json.decode(body);
+    final int seq = update["seq"] ?? 0;
+
+    // seq 0: the server runs behind a broker relay and does not number frames, so
+    // there is nothing to order or resume by; every frame is applied as it comes
+    if (seq == 0) {
+      _addToStateStream(update);
+      return;
+    }
+
+    if (update["type"] == "Snapshot") {
+      if (_lastSeq != null && seq < _lastSeq!) {
+        // The server lost its sequence (restart); start counting from the snapshot
+        _lastSeq = seq;
+        _lastEventSeq = null;
+      }
+      _stateSeq = seq;
+      _addToStateStream(update);
+      final pending = _pendingDeltas.where((d) => d["seq"] > seq).toList();
+      _pendingDeltas.clear();
+      pending.forEach(_applyDelta);
+    } else if (_stateSeq == null) {
+      _pendingDeltas.add(update);
+    } else {
+      _applyDelta(update);
+    }
+  }
+
+  void _applyDelta(Map<String, dynamic> delta) {
+    final int seq = delta["seq"];
+    if (seq <= _stateSeq!) {
+      return;
+    }
+    _trackSeq(seq);
+    _stateSeq = seq;
+    _addToStateStream(delta);
+  }
+
   void _addToConnectionStream(bool connected) {
     if (!_connectionController.isClosed) {
       _connectionController.sink.add(connected);
@@ -64,6 +146,9 @@ class WebsocketService {
 
     _token = token;
     _reconnectAttempts = 0;
+    _lastSeq = null;
+    _lastEventSeq = null;
+    _stateSeq = null;
     _createStompClient();
   }
 
@@ -94,7 +179,10 @@ class WebsocketService {
           _unsubscribeFromTopics();
           _handleDisconnection();
         },
-        stompConnectHeaders: {"roomId": _roomId!},
+        stompConnectHeaders: {
+          "roomId": _roomId!,
+          if (_lastSeq != null) "last-seq": "$_lastSeq",
+        },
       ),
     );
 
@@ -151,13 +239,40 @@ class WebsocketService {
       callback: (StompFrame frame) {
         if (frame.body != null) {
           debugPrint("[WS] Received message: ${frame.body}");
-          _addToMessageStream(frame.body!);
+          _handleRoomFrame(frame);
         } else {
           debugPrint('[WS] Received frame with empty body on $roomTopic');
         }
       },
     );
 
+    // When resuming, the server replays missed deltas on top of the state we have
+    if (_lastSeq == null) {
+      _stateSeq = null;
+    }
+    _pendingDeltas.clear();
+
+    _stateReplySubscription = _stompClient!.subscribe(
+      destination: "/user/queue/state",
+      callback: (StompFrame frame) {
+        if (frame.body != null) {
+          _handleStateFrame(frame.body!);
+        }
+      },
+    );
+
+    final stateTopic = "$roomTopic.state";
+    debugPrint("[WS] Subscribing to $stateTopic");
+
+    _stateSubscription = _stompClient!.subscribe(
+      destination: stateTopic,
+      callback: (StompFrame frame) {
+        if (frame.body != null) {
+          _handleStateFrame(frame.body!);
+        }
+      },
+    );
+
     debugPrint('[WS] Subscribing to /user/queue/errors');
     _errorSubscription = _stompClient!.subscribe(
       destination: "/user/queue/errors",
@@ -183,6 +298,14 @@ class WebsocketService {
       _errorSubscription = null;
       debugPrint("[WS] Unsubscribed from error queue");
     }
+
+    if (_stateSubscription != null) {
+      _stateSubscription?.call();
+      _stateSubscription = null;
+      _stateReplySubscription?.call();
+      _stateReplySubscription = null;
+      debugPrint("[WS] Unsubscribed from room state");
+    }
   }
 
   void sendJoin() {
@@ -194,6 +317,15 @@ class WebsocketService {
     _stompClient!.send(destination: "/app/join", body: "");
   }
 
+  void requestState() {
+    if (!_isConnected || _stompClient == null) {
+      debugPrint("Cannot request state - not connected");
+      return;
+    }
+
+    _stompClient!.send(destination: "/app/state", body: "");
+  }
+
   void sendReady() {
     if (!_isConnected || _stompClient == null) {
       debugPrint("Cannot send ready - not connected");
@@ -218,8 +350,7 @@ class WebsocketService {
       return;
     }
 
-    String formattedMessage = " asked: $question";
-    _stompClient!.send(destination: "/app/question", body: formattedMessage);
+    _stompClient!.send(destination: "/app/question", body: question);
   }
 
   void sendAnswer(String answer) {
@@ -228,8 +359,7 @@ class WebsocketService {
       return;
     }
 
-    String formattedMessage = " answered: $answer";
-    _stompClient!.send(destination: "/app/answer", body: formattedMessage);
+    _stompClient!.send(destination: "/app/answer", body: answer);
   }
 
   void sendGuess(String characterId) {
@@ -264,5 +394,6 @@ class WebsocketService {
     _messageController.close();
     _errorController.close();
     _connectionController.close();
+    _stateController.close();
   }
 }